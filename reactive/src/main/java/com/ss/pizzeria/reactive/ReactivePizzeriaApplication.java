@@ -0,0 +1,23 @@
+package com.ss.pizzeria.reactive;
+
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The pizzeria API on WebFlux and R2DBC, for clients keeping many slow connections open:
+ * no request holds a thread while it waits for the database or the network.
+ *
+ * @author Sneha
+ */
+@SpringBootApplication
+@Import({JwtTokens.class, OrderVersions.class})
+public class ReactivePizzeriaApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactivePizzeriaApplication.class, args);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.ss.pizzeria.reactive.data;
+
+import org.springframework.lang.NonNull;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands out ids in blocks reserved from a database sequence, like the pooled-lo optimizer of the servlet
+ * application: the sequence value v reserves the ids v up to v + allocation size - 1. Both applications may
+ * take ids from the same sequence, so the allocation size has to be the increment of the sequence.
+ *
+ * @author Sneha
+ */
+public class IdBlocks {
+
+    @NonNull
+    private final DatabaseClient client;
+
+    @NonNull
+    private final String nextValue;
+
+    private final int allocationSize;
+
+    /* next id of the current block, guarded by this */
+    private long next;
+
+    /* end of the current block, exclusive, guarded by this */
+    private long end;
+
+    public IdBlocks(@NonNull final DatabaseClient client, @NonNull final String sequence, final int allocationSize) {
+        this.client = client;
+        this.nextValue = "select next value for " + sequence;
+        this.allocationSize = allocationSize;
+    }
+
+    /**
+     * the next id, reserving another block when the current one is used up
+     */
+    @NonNull
+    public Mono<Long> nextId() {
+        synchronized (this) {
+            if (this.next < this.end) {
+                return Mono.just(this.next++);
+            }
+        }
+        return this.client.sql(this.nextValue)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(this::takeBlock);
+    }
+
+    /**
+     * starts the block of given low value, and takes its first id.
+     * Blocks reserved concurrently replace each other, leaving a gap of unused ids.
+     */
+    private synchronized long takeBlock(final long low) {
+        this.next = low + 1;
+        this.end = low + this.allocationSize;
+        return low;
+    }
+}
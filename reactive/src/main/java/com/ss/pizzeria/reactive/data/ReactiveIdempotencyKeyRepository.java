@@ -0,0 +1,76 @@
+package com.ss.pizzeria.reactive.data;
+
+import lombok.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the idempotency_keys table of the servlet application, holding the responses stored
+ * by Idempotency-Key. Rows are only ever inserted and deleted, never updated.
+ *
+ * @author Sneha
+ */
+@Repository
+public class ReactiveIdempotencyKeyRepository {
+
+    @NonNull
+    private final DatabaseClient client;
+
+    public ReactiveIdempotencyKeyRepository(@NonNull final DatabaseClient client) {
+        this.client = client;
+    }
+
+    /**
+     * the response stored for given key digest, or nothing
+     */
+    @NonNull
+    public Mono<StoredKey> findById(@NonNull final String id) {
+        return this.client.sql("select request_hash, status, body, created_at from idempotency_keys where id = :id")
+                .bind("id", id)
+                .map(row -> new StoredKey(row.get("request_hash", String.class), row.get("status", Integer.class),
+                        row.get("body", String.class), row.get("created_at", Long.class)))
+                .one();
+    }
+
+    /**
+     * stores the response to the request of given key digest. Fails with a DataIntegrityViolationException
+     * when the key was stored meanwhile.
+     */
+    @NonNull
+    public Mono<Void> insert(@NonNull final String id, @NonNull final StoredKey key) {
+        return this.client.sql("insert into idempotency_keys (id, request_hash, status, body, created_at)"
+                        + " values (:id, :requestHash, :status, :body, :createdAt)")
+                .bind("id", id)
+                .bind("requestHash", key.getRequestHash())
+                .bind("status", key.getStatus())
+                .bind("body", key.getBody())
+                .bind("createdAt", key.getCreatedAt())
+                .then();
+    }
+
+    /**
+     * deletes the key of given digest if it was created before the cutoff, returns the number of deleted keys
+     */
+    @NonNull
+    public Mono<Integer> deleteExpired(@NonNull final String id, final long cutoff) {
+        return this.client.sql("delete from idempotency_keys where id = :id and created_at < :cutoff")
+                .bind("id", id)
+                .bind("cutoff", cutoff)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * a stored response, with the digest of the request body it answered
+     */
+    @Value
+    public static class StoredKey {
+        String requestHash;
+        int status;
+        /* the response body as JSON */
+        String body;
+        long createdAt;
+    }
+}
@@ -0,0 +1,221 @@
+package com.ss.pizzeria.reactive.data;
+
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.OrderUpdateDto;
+import com.ss.pizzeria.backend.service.OrderCursor;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Non-blocking access to the orders table of the servlet application.
+ * The pizza columns hold the ordinals of the enums, as mapped by JPA.
+ *
+ * @author Sneha
+ */
+@Repository
+public class ReactiveOrderRepository {
+
+    private static final String SELECT = "select o.id, o.crust, o.flavour, o.size, o.table_no, o.person_id,"
+            + " o.timestamp, o.version";
+
+    @NonNull
+    private final DatabaseClient client;
+
+    @NonNull
+    private final IdBlocks ids;
+
+    public ReactiveOrderRepository(@NonNull final DatabaseClient client,
+                                   @Value("${pizzeria.ids.allocation-size:50}") final int allocationSize) {
+        this.client = client;
+        this.ids = new IdBlocks(client, "orders_seq", allocationSize);
+    }
+
+    /**
+     * every order sorted by (timestamp, id), rows are read as the subscriber requests them
+     */
+    @NonNull
+    public Flux<OrderDto> findAllSortedByTime() {
+        return this.client.sql(SELECT + " from orders o order by o.timestamp, o.id")
+                .map(ReactiveOrderRepository::toDto)
+                .all();
+    }
+
+    /**
+     * the orders of given customer sorted by (timestamp, id), each wrapped in an Optional, or a single
+     * empty Optional for a customer without orders; nothing at all for an unknown customer
+     */
+    @NonNull
+    public Flux<Optional<OrderDto>> findCustomerWithOrdersSortedByTime(final long customerId) {
+        return this.client.sql(SELECT + " from persons p left join orders o on o.person_id = p.id"
+                        + " where p.id = :customerId order by o.timestamp, o.id")
+                .bind("customerId", customerId)
+                .map(row -> row.get("id") == null ? Optional.<OrderDto>empty() : Optional.of(toDto(row)))
+                .all();
+    }
+
+    /**
+     * inserts given complete order, stamped with the current time. Fails with a DataIntegrityViolationException
+     * on the person foreign key for an unknown customer.
+     */
+    @NonNull
+    public Mono<OrderDto> insert(@NonNull final OrderCreateDto order) {
+        return this.ids.nextId().flatMap(id -> {
+            final OrderDto created = new OrderDto(id, System.currentTimeMillis());
+            created.setCrust(order.getCrust());
+            created.setFlavour(order.getFlavour());
+            created.setSize(order.getSize());
+            created.setTableNo(order.getTableNo());
+            created.setCustomerId(order.getCustomerId());
+            return this.client
+                    .sql("insert into orders (id, crust, flavour, size, table_no, person_id, timestamp, version)"
+                            + " values (:id, :crust, :flavour, :size, :tableNo, :personId, :timestamp, 0)")
+                    .bind("id", id)
+                    .bind("crust", order.getCrust().ordinal())
+                    .bind("flavour", order.getFlavour().ordinal())
+                    .bind("size", order.getSize().ordinal())
+                    .bind("tableNo", order.getTableNo())
+                    .bind("personId", order.getCustomerId())
+                    .bind("timestamp", created.getTimestamp())
+                    .then()
+                    .thenReturn(created);
+        });
+    }
+
+    /**
+     * the first orders sorted by (timestamp, id), or those following given cursor, at most limit of them.
+     * The leading range on timestamp keeps the predicate usable as an index seek.
+     */
+    @NonNull
+    public Flux<OrderDto> findPageSortedByTime(final int limit, @Nullable final OrderCursor after) {
+        if (after == null) {
+            return this.client.sql(SELECT + " from orders o order by o.timestamp, o.id limit :limit")
+                    .bind("limit", limit)
+                    .map(ReactiveOrderRepository::toDto)
+                    .all();
+        }
+        return this.client.sql(SELECT + " from orders o where o.timestamp >= :timestamp"
+                        + " and (o.timestamp > :timestamp or o.id > :id) order by o.timestamp, o.id limit :limit")
+                .bind("timestamp", after.getTimestamp())
+                .bind("id", after.getId())
+                .bind("limit", limit)
+                .map(ReactiveOrderRepository::toDto)
+                .all();
+    }
+
+    /**
+     * the order of given id, or nothing when there is none
+     */
+    @NonNull
+    public Mono<OrderDto> findById(final long id) {
+        return this.client.sql(SELECT + " from orders o where o.id = :id")
+                .bind("id", id)
+                .map(ReactiveOrderRepository::toDto)
+                .one();
+    }
+
+    /**
+     * tells whether an order of given id exists
+     */
+    @NonNull
+    public Mono<Boolean> existsById(final long id) {
+        return this.client.sql("select 1 from orders where id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * sets the given fields of the order with given id in a single statement, and moves its version on,
+     * as long as the order is still at the version the update is based on. Returns the number of updated orders.
+     */
+    @NonNull
+    public Mono<Integer> update(final long id, @NonNull final OrderUpdateDto update) {
+        // only the given fields are set
+        final Map<String, Object> columns = new LinkedHashMap<>();
+        if (update.getCrust() != null) {
+            columns.put("crust", update.getCrust().ordinal());
+        }
+        if (update.getFlavour() != null) {
+            columns.put("flavour", update.getFlavour().ordinal());
+        }
+        if (update.getSize() != null) {
+            columns.put("size", update.getSize().ordinal());
+        }
+        if (update.getTableNo() != null) {
+            columns.put("table_no", update.getTableNo());
+        }
+        final StringBuilder sql = new StringBuilder("update orders set ");
+        columns.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+        sql.append("version = version + 1 where id = :id and version = :version");
+        DatabaseClient.GenericExecuteSpec statement = this.client.sql(sql.toString())
+                .bind("id", id)
+                .bind("version", update.getVersion());
+        for (Map.Entry<String, Object> column : columns.entrySet()) {
+            statement = statement.bind(column.getKey(), column.getValue());
+        }
+        return statement.fetch().rowsUpdated();
+    }
+
+    /**
+     * deletes the order of given id in a single statement, and returns the customer id of the deleted order,
+     * or nothing when there was none
+     */
+    @NonNull
+    public Mono<Long> deleteReturningCustomerId(final long id) {
+        return this.client.sql("select person_id from old table (delete from orders where id = :id)")
+                .bind("id", id)
+                .map(row -> row.get("person_id", Long.class))
+                .one();
+    }
+
+    /**
+     * deletes at most limit orders of given customer, or of any customer without one, placed in [from, to),
+     * in a single statement. Returns the customer id of each deleted order.
+     */
+    @NonNull
+    public Flux<Long> deleteChunkReturningCustomerIds(@Nullable final Long customerId, final long from,
+                                                      final long to, final int limit) {
+        final String customer = customerId == null ? "" : "person_id = :customerId and ";
+        DatabaseClient.GenericExecuteSpec statement = this.client
+                .sql("select person_id from old table (delete from orders where " + customer
+                        + "timestamp >= :from and timestamp < :to limit :limit)")
+                .bind("from", from)
+                .bind("to", to)
+                .bind("limit", limit);
+        if (customerId != null) {
+            statement = statement.bind("customerId", customerId);
+        }
+        return statement.map(row -> row.get("person_id", Long.class)).all();
+    }
+
+    @NonNull
+    private static OrderDto toDto(@NonNull final Row row) {
+        final OrderDto dto = new OrderDto(row.get("id", Long.class), row.get("timestamp", Long.class));
+        dto.setCrust(toEnum(Pizza.Crust.values(), row.get("crust", Integer.class)));
+        dto.setFlavour(toEnum(Pizza.Flavour.values(), row.get("flavour", Integer.class)));
+        dto.setSize(toEnum(Pizza.Size.values(), row.get("size", Integer.class)));
+        final Integer tableNo = row.get("table_no", Integer.class);
+        dto.setTableNo(tableNo == null ? 0 : tableNo);
+        dto.setCustomerId(row.get("person_id", Long.class));
+        dto.setVersion(row.get("version", Long.class));
+        return dto;
+    }
+
+    @Nullable
+    private static <E extends Enum<E>> E toEnum(@NonNull final E[] values, @Nullable final Integer ordinal) {
+        return ordinal == null ? null : values[ordinal];
+    }
+}
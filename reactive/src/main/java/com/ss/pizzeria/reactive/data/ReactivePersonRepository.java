@@ -0,0 +1,58 @@
+package com.ss.pizzeria.reactive.data;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking access to the persons table of the servlet application
+ *
+ * @author Sneha
+ */
+@Repository
+public class ReactivePersonRepository {
+
+    @NonNull
+    private final DatabaseClient client;
+
+    @NonNull
+    private final IdBlocks ids;
+
+    public ReactivePersonRepository(@NonNull final DatabaseClient client,
+                                    @Value("${pizzeria.ids.allocation-size:50}") final int allocationSize) {
+        this.client = client;
+        this.ids = new IdBlocks(client, "persons_seq", allocationSize);
+    }
+
+    /**
+     * inserts a person with given name, and returns its id
+     */
+    @NonNull
+    public Mono<Long> insert(@NonNull final String name) {
+        return this.ids.nextId().flatMap(id -> this.client
+                .sql("insert into persons (id, name) values (:id, :name)")
+                .bind("id", id)
+                .bind("name", name)
+                .then()
+                .thenReturn(id));
+    }
+
+    /**
+     * the ids among given ones which belong to a person, in a single query
+     */
+    @NonNull
+    public Flux<Long> findExistingIds(@NonNull final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return this.client.sql("select id from persons where id in (:ids)")
+                .bind("ids", ids)
+                .map(row -> row.get("id", Long.class))
+                .all();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ss.pizzeria.reactive.rest;
+
+import com.ss.pizzeria.backend.rest.dto.ResponseMessageDto;
+import com.ss.pizzeria.backend.service.IdempotencyKeyReusedException;
+import com.ss.pizzeria.backend.service.InvalidRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Answers failures with the status codes and message bodies of the servlet application
+ *
+ * @author Sneha
+ */
+@Slf4j
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(ServerWebInputException.class)
+    protected ResponseEntity<ResponseMessageDto> handleServerWebInputException (ServerWebInputException ex) {
+        log.info(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ResponseMessageDto(HttpStatus.BAD_REQUEST.getReasonPhrase() + " >> " + ex.getReason()));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    protected ResponseEntity<ResponseMessageDto> handleNoSuchElementException (NoSuchElementException ex) {
+        log.info(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    protected ResponseEntity<ResponseMessageDto> handleInvalidRequestException (InvalidRequestException ex) {
+        log.info(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<ResponseMessageDto> handleOptimisticLockingFailureException (OptimisticLockingFailureException ex) {
+        log.info(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    protected ResponseEntity<ResponseMessageDto> handleIdempotencyKeyReusedException (IdempotencyKeyReusedException ex) {
+        log.info(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(new ResponseMessageDto(ex.getMessage()));
+    }
+}
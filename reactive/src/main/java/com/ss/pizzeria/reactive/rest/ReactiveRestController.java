@@ -0,0 +1,209 @@
+package com.ss.pizzeria.reactive.rest;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.rest.dto.AccessTokenDto;
+import com.ss.pizzeria.backend.rest.dto.OrderBatchResultDto;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDeleteResultDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.OrderPageDto;
+import com.ss.pizzeria.backend.rest.dto.OrderUpdateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import com.ss.pizzeria.backend.rest.dto.ResponseMessageDto;
+import com.ss.pizzeria.backend.rest.dto.UserAuthDto;
+import com.ss.pizzeria.backend.service.IdempotentResponse;
+import com.ss.pizzeria.reactive.service.ReactiveIdempotentRequests;
+import com.ss.pizzeria.reactive.service.ReactivePizzeriaService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The `/api/auth', `/api/register' and `/api/orders' contract of the servlet RestController, on WebFlux.
+ * <p>
+ * Order lists are streamed as they are read: as a JSON array, or as NDJSON with `Accept: application/x-ndjson'.
+ * Rows are only read as fast as the client takes them, so a slow client holds neither a thread nor the whole list.
+ * Both lists carry an ETag, answered with 304 Not Modified before any row is read.
+ *
+ * @author Sneha
+ */
+@RestController
+@RequestMapping(path = Constants.Paths.API, produces = MediaType.APPLICATION_JSON_VALUE)
+public class ReactiveRestController {
+
+    private static final String ORDERS = Constants.Paths.ORDERS;
+    private static final String PARAM_CUSTOMER_ID = Constants.Params.CUSTOMER_ID;
+    private static final String PARAM_ORDER_ID = Constants.Params.ORDER_ID;
+    private static final String PARAM_LIMIT = Constants.Params.LIMIT;
+    private static final String PARAM_AFTER = Constants.Params.AFTER;
+    private static final String PARAM_ATOMIC = Constants.Params.ATOMIC;
+    private static final String PARAM_FROM = Constants.Params.FROM;
+    private static final String PARAM_TO = Constants.Params.TO;
+
+    @NonNull
+    private final ReactivePizzeriaService myService;
+
+    @NonNull
+    private final ReactiveIdempotentRequests idempotentRequests;
+
+    public ReactiveRestController(@NonNull final ReactivePizzeriaService myService,
+                                  @NonNull final ReactiveIdempotentRequests idempotentRequests) {
+        this.myService = myService;
+        this.idempotentRequests = idempotentRequests;
+    }
+
+    /**
+     * Authenticate with the API
+     */
+    @PostMapping(path = Constants.Paths.AUTH)
+    public ResponseEntity<Object> authenticateApi(@RequestBody @NonNull final UserAuthDto auth) {
+        final AccessTokenDto accessToken = this.myService.fetchTokenForUser(auth);
+        if (accessToken.getAccessToken().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ResponseMessageDto(Constants.Messages.BAD_CREDENTIALS));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(accessToken);
+    }
+
+    /**
+     * Read all Orders, sorted by timestamp
+     */
+    @GetMapping(path = ORDERS, params = {"!" + PARAM_LIMIT, "!" + PARAM_AFTER},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<OrderDto>> getAllOrders() {
+        // the version is read before the orders, so the ETag can only be older than the body
+        return ResponseEntity.ok().eTag(this.myService.readOrdersVersion())
+                .body(this.myService.readAllOrdersSortedByTime());
+    }
+
+    /**
+     * Read one page of Orders, sorted by timestamp
+     */
+    @GetMapping(path = ORDERS, params = PARAM_LIMIT)
+    public Mono<OrderPageDto> getOrdersPage(@RequestParam(name = PARAM_LIMIT) final int limit,
+                                            @RequestParam(name = PARAM_AFTER, required = false)
+                                            @Nullable final String after) {
+        return this.myService.readOrdersPageSortedByTime(limit, after);
+    }
+
+    /**
+     * Register Customer
+     */
+    @PostMapping(path = Constants.Paths.REG)
+    public Mono<ResponseEntity<PersonDto>> addPerson(@RequestBody @NonNull final PersonCreateDto name) {
+        return this.myService.registerPerson(name)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    /**
+     * Read all Orders for given customerId, sorted by timestamp
+     */
+    @GetMapping(path = ORDERS + "/{" + PARAM_CUSTOMER_ID + "}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<OrderDto>> getAllOrdersForPerson(@PathVariable(name = PARAM_CUSTOMER_ID)
+                                                                @NonNull final String customerId) {
+        // the version is read before the orders, so the ETag can only be older than the body
+        return ResponseEntity.ok().eTag(this.myService.readOrdersVersionForPerson(customerId))
+                .body(this.myService.readAllOrdersForPersonSortedByTime(customerId));
+    }
+
+    /**
+     * Create a new Order for Person, at most once per Idempotency-Key
+     */
+    @PostMapping(path = ORDERS)
+    public Mono<ResponseEntity<OrderDto>> createOrder(@RequestHeader(name = Constants.Headers.IDEMPOTENCY_KEY,
+                                                              required = false)
+                                                      @Nullable final String idempotencyKey,
+                                                      @RequestHeader(name = TokenWebFilter.TOKEN_HEADER)
+                                                      @NonNull final String token,
+                                                      @RequestBody @NonNull final OrderCreateDto order) {
+        if (idempotencyKey == null) {
+            return this.myService.createOrder(order)
+                    .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+        }
+        return this.idempotentRequests.execute(token, idempotencyKey, order, () -> this.myService.createOrder(order)
+                        .map(created -> new IdempotentResponse(HttpStatus.CREATED.value(), created, false)))
+                .map(response -> ResponseEntity.status(response.getStatus())
+                        .header(Constants.Headers.IDEMPOTENT_REPLAYED, String.valueOf(response.isReplayed()))
+                        .body(response.getOrder()));
+    }
+
+    /**
+     * Create a batch of Orders
+     */
+    @PostMapping(path = ORDERS + Constants.Paths.BATCH)
+    public Mono<ResponseEntity<OrderBatchResultDto>> createOrders(@RequestParam(name = PARAM_ATOMIC,
+                                                                          defaultValue = "false")
+                                                                  final boolean atomic,
+                                                                  @RequestBody
+                                                                  @NonNull final List<OrderCreateDto> orders) {
+        return this.myService.createOrders(orders, atomic).map(result -> {
+            final HttpStatus status;
+            if (result.getCreated() == orders.size()) {
+                status = HttpStatus.CREATED;
+            } else if (result.getCreated() > 0) {
+                status = HttpStatus.MULTI_STATUS;
+            } else {
+                status = HttpStatus.BAD_REQUEST;
+            }
+            return ResponseEntity.status(status).body(result);
+        });
+    }
+
+    /**
+     * Replace every field of an Order
+     */
+    @PutMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}")
+    public Mono<OrderDto> replaceOrder(@PathVariable(name = PARAM_ORDER_ID) @NonNull final String id,
+                                       @RequestBody @NonNull final OrderUpdateDto update) {
+        return this.myService.updateOrder(id, update, true);
+    }
+
+    /**
+     * Update some fields of an Order
+     */
+    @PatchMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}")
+    public Mono<OrderDto> patchOrder(@PathVariable(name = PARAM_ORDER_ID) @NonNull final String id,
+                                     @RequestBody @NonNull final OrderUpdateDto update) {
+        return this.myService.updateOrder(id, update, false);
+    }
+
+    /**
+     * Delete an Order
+     */
+    @DeleteMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}")
+    public Mono<ResponseEntity<ResponseMessageDto>> deleteOrder(@PathVariable(name = PARAM_ORDER_ID) @NonNull final String id) {
+        return this.myService.removeOrder(id)
+                .thenReturn(ResponseEntity.ok(new ResponseMessageDto(Constants.Messages.ORDER_DELETED + id)));
+    }
+
+    /**
+     * Delete the Orders of a customer and/or placed in a time range
+     */
+    @DeleteMapping(path = ORDERS)
+    public Mono<OrderDeleteResultDto> deleteOrders(@RequestParam(name = PARAM_CUSTOMER_ID, required = false)
+                                                   @Nullable final String customerId,
+                                                   @RequestParam(name = PARAM_FROM, required = false)
+                                                   @Nullable final Long from,
+                                                   @RequestParam(name = PARAM_TO, required = false)
+                                                   @Nullable final Long to) {
+        return this.myService.removeOrders(customerId, from, to).map(OrderDeleteResultDto::new);
+    }
+}
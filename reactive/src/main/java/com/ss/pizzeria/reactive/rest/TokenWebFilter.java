@@ -0,0 +1,104 @@
+package com.ss.pizzeria.reactive.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.rest.dto.ResponseMessageDto;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Checks the JWT in the `token' header of every request which changes data, except logging in,
+ * before the body is read, like the TokenAuthenticationFilter of the servlet application.
+ * Tokens are verified in memory, so the check never blocks the event loop.
+ *
+ * @author Sneha
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TokenWebFilter implements WebFilter {
+
+    /* name of the header holding the token */
+    public static final String TOKEN_HEADER = Constants.Headers.TOKEN;
+
+    private static final String LOGIN_PATH = Constants.Paths.API + Constants.Paths.AUTH;
+
+    @NonNull
+    private final JwtTokens jwtTokens;
+
+    @NonNull
+    private final byte[] missingToken;
+
+    @NonNull
+    private final byte[] incorrectToken;
+
+    public TokenWebFilter(@NonNull final JwtTokens jwtTokens, @NonNull final ObjectMapper objectMapper) {
+        this.jwtTokens = jwtTokens;
+        this.missingToken = toJson(objectMapper, Constants.Messages.MISSING_TOKEN);
+        this.incorrectToken = toJson(objectMapper, Constants.Messages.INCORRECT_TOKEN);
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull final ServerWebExchange exchange, @NonNull final WebFilterChain chain) {
+        final ServerHttpRequest request = exchange.getRequest();
+        if (isExempt(request)) {
+            return chain.filter(exchange);
+        }
+        final String token = request.getHeaders().getFirst(TOKEN_HEADER);
+        if (token == null || token.isEmpty()) {
+            return reject(exchange.getResponse(), this.missingToken);
+        }
+        if (!this.jwtTokens.verify(token)) {
+            return reject(exchange.getResponse(), this.incorrectToken);
+        }
+        return chain.filter(exchange);
+    }
+
+    /**
+     * reading requests, and logging in, need no token
+     */
+    private static boolean isExempt(@NonNull final ServerHttpRequest request) {
+        final HttpMethod method = request.getMethod();
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD
+                || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE) {
+            return true;
+        }
+        String path = request.getPath().pathWithinApplication().value();
+        while (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return method == HttpMethod.POST && path.equals(LOGIN_PATH);
+    }
+
+    @NonNull
+    private static Mono<Void> reject(@NonNull final ServerHttpResponse response, @NonNull final byte[] body) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+
+    @NonNull
+    private static byte[] toJson(@NonNull final ObjectMapper objectMapper, @NonNull final String message) {
+        try {
+            return objectMapper.writeValueAsBytes(new ResponseMessageDto(message));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.ss.pizzeria.reactive.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.service.IdempotencyKeyReusedException;
+import com.ss.pizzeria.backend.service.IdempotentResponse;
+import com.ss.pizzeria.backend.service.RequestDigests;
+import com.ss.pizzeria.reactive.data.ReactiveIdempotencyKeyRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of the IdempotentRequests of the servlet application, on the same table and with
+ * the same digests, so a key stored by either application is replayed by both.
+ * <p>
+ * Concurrent duplicates wait for the response of the first request without holding a thread. Completed responses
+ * are stored in the same transaction as the request's own writes; failed or cancelled requests are not stored,
+ * and may be retried with the same key. Expired keys are purged by the servlet application, or when they come back.
+ *
+ * @author Sneha
+ */
+@Component
+public class ReactiveIdempotentRequests {
+
+    @NonNull
+    private final ReactiveIdempotencyKeyRepository keyRepos;
+
+    @NonNull
+    private final TransactionalOperator transactionalOperator;
+
+    @NonNull
+    private final ObjectMapper objectMapper;
+
+    @NonNull
+    private final Duration ttl;
+
+    /* pending and completed requests by the digest of their client and key */
+    @NonNull
+    private final ConcurrentMap<String, Attempt> responses;
+
+    public ReactiveIdempotentRequests(@NonNull final ReactiveIdempotencyKeyRepository keyRepos,
+                                      @NonNull final TransactionalOperator transactionalOperator,
+                                      @NonNull final ObjectMapper objectMapper,
+                                      @Value("${pizzeria.idempotency.max-size:100000}") final long maxSize,
+                                      @Value("${pizzeria.idempotency.ttl:24h}") @NonNull final Duration ttl) {
+        this.keyRepos = keyRepos;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        final Cache<String, Attempt> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.responses = cache.asMap();
+    }
+
+    /**
+     * the response stored for given client and key, or the response of given request, once stored.
+     * The body is the parsed request body, its JSON is what binds the key.
+     */
+    @NonNull
+    public Mono<IdempotentResponse> execute(@NonNull final String client, @NonNull final String key,
+                                            @NonNull final Object body,
+                                            @NonNull final Supplier<Mono<IdempotentResponse>> request) {
+        return Mono.defer(() -> {
+            final String id = RequestDigests.ofKey(client, key);
+            final Sinks.One<IdempotentResponse> response = Sinks.one();
+            final Attempt mine = new Attempt(RequestDigests.of(toJsonBytes(body)), response.asMono());
+            final Attempt pending = this.responses.putIfAbsent(id, mine);
+            if (pending != null) {
+                checkSameRequest(pending.getRequestHash(), mine.getRequestHash());
+                return pending.getResponse().map(IdempotentResponse::asReplayed);
+            }
+            return load(id, mine.getRequestHash()).map(IdempotentResponse::asReplayed)
+                    .switchIfEmpty(Mono.defer(() -> run(id, mine.getRequestHash(), request)))
+                    .doOnNext(response::tryEmitValue)
+                    .doOnError(ex -> forget(id, mine, response, ex))
+                    .doOnCancel(() -> forget(id, mine, response,
+                            new CancellationException("Request with the same Idempotency-Key was cancelled")));
+        });
+    }
+
+    /**
+     * runs given request and stores its response in one transaction.
+     * When another instance stored the key first, its response wins and this request is rolled back.
+     */
+    @NonNull
+    private Mono<IdempotentResponse> run(@NonNull final String id, @NonNull final String requestHash,
+                                         @NonNull final Supplier<Mono<IdempotentResponse>> request) {
+        return this.transactionalOperator.transactional(request.get().flatMap(response -> this.keyRepos
+                        .insert(id, new ReactiveIdempotencyKeyRepository.StoredKey(requestHash, response.getStatus(),
+                                toJson(response.getOrder()), System.currentTimeMillis()))
+                        .thenReturn(response)))
+                .onErrorResume(DataIntegrityViolationException.class, ex -> load(id, requestHash)
+                        .map(IdempotentResponse::asReplayed)
+                        .switchIfEmpty(Mono.error(ex)));
+    }
+
+    /**
+     * reads the response stored for given key, an expired key is deleted so it can be used again.
+     * Fails with an IdempotencyKeyReusedException when the key was stored for another request.
+     */
+    @NonNull
+    private Mono<IdempotentResponse> load(@NonNull final String id, @NonNull final String requestHash) {
+        return this.keyRepos.findById(id).flatMap(stored -> {
+            final long cutoff = System.currentTimeMillis() - this.ttl.toMillis();
+            if (stored.getCreatedAt() < cutoff) {
+                return this.keyRepos.deleteExpired(id, cutoff).then(Mono.<IdempotentResponse>empty());
+            }
+            checkSameRequest(stored.getRequestHash(), requestHash);
+            return Mono.just(new IdempotentResponse(stored.getStatus(), fromJson(stored.getBody()), false));
+        });
+    }
+
+    /**
+     * drops the attempt of a request which did not complete, so waiting duplicates fail and the key can be retried
+     */
+    private void forget(@NonNull final String id, @NonNull final Attempt attempt,
+                        @NonNull final Sinks.One<IdempotentResponse> response, @NonNull final Throwable ex) {
+        this.responses.remove(id, attempt);
+        response.tryEmitError(ex);
+    }
+
+    /**
+     * throws an IdempotencyKeyReusedException unless both requests have the same body
+     */
+    private static void checkSameRequest(@NonNull final String firstHash, @NonNull final String requestHash) {
+        if (!firstHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+    }
+
+    @NonNull
+    private String toJson(@NonNull final OrderDto order) {
+        try {
+            return this.objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @NonNull
+    private byte[] toJsonBytes(@NonNull final Object body) {
+        try {
+            return this.objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @NonNull
+    private OrderDto fromJson(@NonNull final String json) {
+        try {
+            return this.objectMapper.readValue(json, OrderDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * a request in progress or completed, with the digest of its body
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Attempt {
+        private final String requestHash;
+        private final Mono<IdempotentResponse> response;
+    }
+}
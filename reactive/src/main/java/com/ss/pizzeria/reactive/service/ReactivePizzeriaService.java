@@ -0,0 +1,378 @@
+package com.ss.pizzeria.reactive.service;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.rest.dto.AccessTokenDto;
+import com.ss.pizzeria.backend.rest.dto.OrderBatchItemDto;
+import com.ss.pizzeria.backend.rest.dto.OrderBatchResultDto;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.OrderPageDto;
+import com.ss.pizzeria.backend.rest.dto.OrderUpdateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import com.ss.pizzeria.backend.rest.dto.UserAuthDto;
+import com.ss.pizzeria.backend.service.InvalidIdException;
+import com.ss.pizzeria.backend.service.InvalidRequestException;
+import com.ss.pizzeria.backend.service.OrderCursor;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.reactive.data.ReactiveOrderRepository;
+import com.ss.pizzeria.reactive.data.ReactivePersonRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of the PizzeriaService of the servlet application, for the same tables
+ *
+ * @author Sneha
+ */
+@Service
+public class ReactivePizzeriaService {
+
+    /* name of the foreign key to the ordering person, as created by the servlet application */
+    private static final String FK_PERSON_ID = "fk_order_person_id";
+
+    @NonNull
+    private final ReactivePersonRepository peopleRepos;
+
+    @NonNull
+    private final ReactiveOrderRepository orderRepos;
+
+    @NonNull
+    private final JwtTokens jwtTokens;
+
+    /* versions of the order lists, for conditional requests */
+    @NonNull
+    private final OrderVersions orderVersions;
+
+    /* runs batches of writes in a single transaction */
+    @NonNull
+    private final TransactionalOperator transactionalOperator;
+
+    /* maximum number of orders removed per statement by bulk deletes */
+    private final int deleteChunkSize;
+
+    public ReactivePizzeriaService(@NonNull final ReactivePersonRepository peopleRepos,
+                                   @NonNull final ReactiveOrderRepository orderRepos,
+                                   @NonNull final JwtTokens jwtTokens,
+                                   @NonNull final OrderVersions orderVersions,
+                                   @NonNull final TransactionalOperator transactionalOperator,
+                                   @Value("${pizzeria.orders.delete.chunk-size:1000}") final int deleteChunkSize) {
+        if (deleteChunkSize < 1) {
+            throw new IllegalArgumentException("Delete chunk size must be positive: " + deleteChunkSize);
+        }
+        this.peopleRepos = peopleRepos;
+        this.orderRepos = orderRepos;
+        this.jwtTokens = jwtTokens;
+        this.orderVersions = orderVersions;
+        this.transactionalOperator = transactionalOperator;
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    /**
+     * Returns a signed token for `test' user and an empty token otherwise
+     */
+    @NonNull
+    public AccessTokenDto fetchTokenForUser(@NonNull final UserAuthDto credentials) {
+        final AccessTokenDto accessTokenDto = new AccessTokenDto();
+        if (credentials.getUsername().equals(Constants.Users.USERNAME)
+                && credentials.getPassword().equals(Constants.Users.PASSWORD)) {
+            accessTokenDto.setAccessToken(this.jwtTokens.issue(credentials.getUsername()));
+        }
+        return accessTokenDto;
+    }
+
+    /**
+     * version of the list of all orders, changes with every created, updated or removed order
+     */
+    @NonNull
+    public String readOrdersVersion() {
+        return this.orderVersions.globalTag();
+    }
+
+    /**
+     * version of the list of orders of given person, changes with every write to the orders of that person
+     */
+    @NonNull
+    public String readOrdersVersionForPerson(@NonNull final String customerId) {
+        return this.orderVersions.customerTag(InvalidIdException.parse(customerId));
+    }
+
+    /**
+     * streams every order sorted by time, as fast as the client reads them
+     */
+    @NonNull
+    public Flux<OrderDto> readAllOrdersSortedByTime() {
+        return this.orderRepos.findAllSortedByTime();
+    }
+
+    /**
+     * fetches one page of orders sorted by (timestamp, id), starting right after the given cursor
+     */
+    @NonNull
+    public Mono<OrderPageDto> readOrdersPageSortedByTime(final int limit, @Nullable final String after) {
+        return Mono.defer(() -> {
+            if (limit < 1 || limit > Constants.Paging.MAX_LIMIT) {
+                throw new InvalidRequestException(Constants.Messages.INVALID_LIMIT);
+            }
+            final OrderCursor cursor = after == null ? null : OrderCursor.decode(after);
+            // fetch one extra row to find out whether another page follows
+            return this.orderRepos.findPageSortedByTime(limit + 1, cursor).collectList().map(orders -> {
+                final boolean hasNext = orders.size() > limit;
+                final List<OrderDto> page = hasNext ? orders.subList(0, limit) : orders;
+                final String next = hasNext ? cursorAfter(page.get(limit - 1)).encode() : null;
+                return new OrderPageDto(page, next);
+            });
+        });
+    }
+
+    /**
+     * streams the orders of given person sorted by time, fails with a NoSuchElementException for an unknown person
+     */
+    @NonNull
+    public Flux<OrderDto> readAllOrdersForPersonSortedByTime(@NonNull final String customerId) {
+        return Flux.defer(() -> {
+            final long id = InvalidIdException.parse(customerId);
+            return this.orderRepos.findCustomerWithOrdersSortedByTime(id)
+                    // no row at all means there is no such person
+                    .switchIfEmpty(Flux.error(() ->
+                            new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + id)))
+                    .filter(Optional::isPresent)
+                    .map(Optional::get);
+        });
+    }
+
+    /**
+     * registers a new Person with empty order list
+     */
+    @NonNull
+    public Mono<PersonDto> registerPerson(@NonNull final PersonCreateDto request) {
+        return this.peopleRepos.insert(request.getName()).map(id -> {
+            final PersonDto registered = new PersonDto();
+            registered.setPersonId(id);
+            registered.setName(request.getName());
+            registered.setOrderList(List.of());
+            return registered;
+        });
+    }
+
+    /**
+     * creates a new Order in a single statement, the foreign key rejects unknown customers
+     */
+    @NonNull
+    public Mono<OrderDto> createOrder(@NonNull final OrderCreateDto orderRequest) {
+        if (isIncomplete(orderRequest)) {
+            return Mono.error(new InvalidRequestException(Constants.Messages.INCOMPLETE_NEW_ORDER));
+        }
+        return this.orderRepos.insert(orderRequest).onErrorMap(
+                ex -> ex instanceof DataIntegrityViolationException && ex.getMessage() != null
+                        && ex.getMessage().toLowerCase(Locale.ROOT).contains(FK_PERSON_ID),
+                ex -> new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID
+                        + orderRequest.getCustomerId()))
+                .flatMap(created -> ordersChanged(created.getCustomerId()).thenReturn(created));
+    }
+
+    /**
+     * creates a batch of Orders in one transaction, checking all their customers with a single query.
+     * Incomplete orders and orders of unknown customers are reported per item; with `atomic' none of the orders
+     * is created then.
+     */
+    @NonNull
+    public Mono<OrderBatchResultDto> createOrders(@NonNull final List<OrderCreateDto> orderRequests,
+                                                  final boolean atomic) {
+        return Mono.defer(() -> {
+            if (orderRequests.isEmpty() || orderRequests.size() > Constants.Batch.MAX_SIZE) {
+                throw new InvalidRequestException(Constants.Messages.INVALID_BATCH_SIZE);
+            }
+            final Set<Long> personIds = orderRequests.stream()
+                    .filter(request -> !isIncomplete(request))
+                    .map(OrderCreateDto::getCustomerId)
+                    .collect(Collectors.toSet());
+            return this.peopleRepos.findExistingIds(personIds).collect(Collectors.toSet())
+                    .flatMap(customers -> createOrders(orderRequests, customers, atomic));
+        });
+    }
+
+    /**
+     * updates the Order with given ID in a single conditional statement, and returns it as updated.
+     * Fails with an OptimisticLockingFailureException once another update changed the version the request
+     * is based on; without `replace' only the given fields change.
+     */
+    @NonNull
+    public Mono<OrderDto> updateOrder(@NonNull final String orderId, @NonNull final OrderUpdateDto update,
+                                      final boolean replace) {
+        return Mono.defer(() -> {
+            final long id = InvalidIdException.parse(orderId);
+            if (update.getVersion() == null) {
+                throw new InvalidRequestException(Constants.Messages.MISSING_VERSION);
+            }
+            if (replace && !update.isComplete()) {
+                throw new InvalidRequestException(Constants.Messages.INCOMPLETE_ORDER);
+            }
+            return this.transactionalOperator.transactional(this.orderRepos.update(id, update)
+                    .flatMap(updated -> updated > 0 ? this.orderRepos.findById(id) : updateFailed(orderId, id))
+                    .flatMap(order -> ordersChanged(order.getCustomerId()).thenReturn(order)));
+        });
+    }
+
+    /**
+     * removes the Order of given id in a single statement, fails with a NoSuchElementException for an unknown order
+     */
+    @NonNull
+    public Mono<Void> removeOrder(@NonNull final String orderId) {
+        return Mono.defer(() -> this.orderRepos.deleteReturningCustomerId(InvalidIdException.parse(orderId)))
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException(
+                        Constants.Messages.ORDER + orderId + Constants.Messages.ORDER_NOT_FOUND)))
+                .flatMap(this::ordersChanged);
+    }
+
+    /**
+     * removes the Orders of given customer and/or placed in [from, to), and returns how many were removed.
+     * Orders are deleted in chunks, one statement each, so a large delete never holds its locks for long.
+     * Chunks deleted before a failure stay deleted.
+     */
+    @NonNull
+    public Mono<Long> removeOrders(@Nullable final String customerId, @Nullable final Long from,
+                                   @Nullable final Long to) {
+        return Mono.defer(() -> {
+            if (customerId == null && from == null && to == null) {
+                throw new InvalidRequestException(Constants.Messages.MISSING_DELETE_FILTER);
+            }
+            final Long customer = customerId == null ? null : InvalidIdException.parse(customerId);
+            final long lower = from == null ? Long.MIN_VALUE : from;
+            final long upper = to == null ? Long.MAX_VALUE : to;
+            if (lower > upper) {
+                throw new InvalidRequestException(Constants.Messages.INVALID_TIME_RANGE);
+            }
+            // a short chunk means the range is exhausted, without another query to find out
+            return removeChunk(customer, lower, upper)
+                    .expand(removed -> removed == this.deleteChunkSize
+                            ? removeChunk(customer, lower, upper) : Mono.empty())
+                    .reduce(0L, Long::sum);
+        });
+    }
+
+    /**
+     * creates the complete orders of known customers, and reports the others
+     */
+    @NonNull
+    private Mono<OrderBatchResultDto> createOrders(@NonNull final List<OrderCreateDto> orderRequests,
+                                                   @NonNull final Set<Long> customers, final boolean atomic) {
+        // build orders, remembering the failed items
+        final List<OrderBatchItemDto> items = new ArrayList<>(orderRequests.size());
+        final List<OrderCreateDto> orders = new ArrayList<>(orderRequests.size());
+        for (OrderCreateDto request : orderRequests) {
+            if (isIncomplete(request)) {
+                items.add(new OrderBatchItemDto(null, Constants.Messages.INCOMPLETE_NEW_ORDER));
+                continue;
+            }
+            if (!customers.contains(request.getCustomerId())) {
+                items.add(new OrderBatchItemDto(null,
+                        Constants.Messages.NO_PERSON_EXISTS_WITH_ID + request.getCustomerId()));
+                continue;
+            }
+            orders.add(request);
+            items.add(new OrderBatchItemDto());
+        }
+        if (atomic && orders.size() < orderRequests.size()) {
+            items.stream()
+                    .filter(item -> item.getError() == null)
+                    .forEach(item -> item.setError(Constants.Messages.BATCH_ABORTED));
+            return Mono.just(new OrderBatchResultDto(0, items));
+        }
+        return this.transactionalOperator.transactional(Flux.fromIterable(orders)
+                        .concatMap(this.orderRepos::insert)
+                        .collectList()
+                        .flatMap(created -> Flux.fromIterable(customers)
+                                .concatMap(this::ordersChanged)
+                                .then(Mono.just(created))))
+                .map(created -> {
+                    final Iterator<OrderDto> createdOrders = created.iterator();
+                    items.stream()
+                            .filter(item -> item.getError() == null)
+                            .forEach(item -> item.setOrder(createdOrders.next()));
+                    return new OrderBatchResultDto(created.size(), items);
+                });
+    }
+
+    /**
+     * fails an update which changed no order, telling a missing order from a stale version
+     */
+    @NonNull
+    private Mono<OrderDto> updateFailed(@NonNull final String orderId, final long id) {
+        return this.orderRepos.existsById(id).flatMap(exists -> Mono.error(exists
+                ? new OptimisticLockingFailureException(Constants.Messages.ORDER + orderId
+                        + Constants.Messages.ORDER_VERSION_CONFLICT)
+                : new NoSuchElementException(Constants.Messages.ORDER + orderId
+                        + Constants.Messages.ORDER_NOT_FOUND)));
+    }
+
+    /**
+     * removes one chunk of the orders of given customer and/or time range, and returns how many were removed
+     */
+    @NonNull
+    private Mono<Long> removeChunk(@Nullable final Long customer, final long lower, final long upper) {
+        return this.orderRepos.deleteChunkReturningCustomerIds(customer, lower, upper, this.deleteChunkSize)
+                .collectList()
+                .flatMap(customers -> Flux.fromIterable(new HashSet<>(customers))
+                        .concatMap(this::ordersChanged)
+                        .then(Mono.just((long) customers.size())));
+    }
+
+    /**
+     * moves the list versions of given customer on, once the current transaction (if any) has committed,
+     * so a request seeing the new version never reads the old list
+     */
+    @NonNull
+    private Mono<Void> ordersChanged(@NonNull final Long customerId) {
+        final Runnable bump = () -> this.orderVersions.bump(customerId);
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronization -> synchronization.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    @NonNull
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(bump);
+                    }
+                }))
+                .switchIfEmpty(Mono.fromRunnable(bump))
+                .onErrorResume(NoTransactionException.class, ex -> Mono.fromRunnable(bump))
+                .then();
+    }
+
+    /**
+     * cursor pointing right after the given order
+     */
+    @NonNull
+    private static OrderCursor cursorAfter(@NonNull final OrderDto order) {
+        return new OrderCursor(order.getTimestamp(), order.getOrderId());
+    }
+
+    /**
+     * tells whether given order lacks a field required to create it
+     */
+    private static boolean isIncomplete(@Nullable final OrderCreateDto request) {
+        return request == null || request.getCrust() == null || request.getFlavour() == null
+                || request.getSize() == null || request.getCustomerId() == null;
+    }
+}
@@ -0,0 +1,31 @@
+-- the tables and sequences as created by Hibernate in the servlet application
+create sequence if not exists persons_seq start with 1 increment by 50;
+create sequence if not exists orders_seq start with 1 increment by 50;
+create table if not exists persons (
+    id bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+create table if not exists orders (
+    id bigint not null,
+    crust integer,
+    flavour integer,
+    size integer,
+    table_no integer,
+    timestamp bigint not null,
+    person_id bigint not null,
+    version bigint default 0 not null,
+    primary key (id),
+    constraint fk_order_person_id foreign key (person_id) references persons (id)
+);
+create index if not exists idx_orders_timestamp_id on orders (timestamp, id);
+create index if not exists idx_orders_person_id_timestamp_id on orders (person_id, timestamp, id);
+create table if not exists idempotency_keys (
+    id varchar(255) not null,
+    body varchar(4000) not null,
+    created_at bigint not null,
+    request_hash varchar(64) not null,
+    status integer not null,
+    primary key (id)
+);
+create index if not exists idx_idempotency_keys_created_at on idempotency_keys (created_at);
@@ -0,0 +1,27 @@
+package com.ss.pizzeria.reactive.rest;
+
+import com.ss.pizzeria.backend.rest.OrderApiScenarios;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.lang.NonNull;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the scenarios of the API of the servlet application against the WebFlux one, down to an in-memory database
+ *
+ * @author Sneha
+ */
+@SpringBootTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///scenarios")
+@AutoConfigureWebTestClient
+class ReactiveRestControllerScenariosTest extends OrderApiScenarios {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @NonNull
+    @Override
+    protected WebTestClient bindClient() {
+        return this.webTestClient;
+    }
+}
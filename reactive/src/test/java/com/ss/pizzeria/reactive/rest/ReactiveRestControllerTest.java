@@ -0,0 +1,302 @@
+package com.ss.pizzeria.reactive.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.*;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.reactive.service.ReactiveIdempotentRequests;
+import com.ss.pizzeria.reactive.service.ReactivePizzeriaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Tests the WebFlux controller on a mocked service: its token filter and writers, and what the mocks reach
+ * beyond the OrderApiScenarios which both applications run
+ *
+ * @author Sneha
+ */
+@WebFluxTest({ReactiveRestController.class})
+@Import({JwtTokens.class, TokenWebFilter.class, ReactiveExceptionHandler.class})
+class ReactiveRestControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactivePizzeriaService pizzeriaService;
+
+    @MockBean
+    private ReactiveIdempotentRequests idempotentRequests;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokens jwtTokens;
+
+    /* valid token of the `test' user */
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        assertNotNull(this.webTestClient, "WebTestClient instance should not be null.");
+        assertNotNull(this.pizzeriaService, "Mocked service instance should not be null.");
+        this.token = this.jwtTokens.issue("test");
+        // mock, the versions the lists are tagged with
+        Mockito.when(this.pizzeriaService.readOrdersVersion()).thenReturn("1-4");
+        Mockito.when(this.pizzeriaService.readOrdersVersionForPerson(Mockito.anyString())).thenReturn("1-3-7");
+    }
+
+    @Test
+    void testAuthenticateApi_responseCreated() throws Exception {
+        // input
+        final UserAuthDto testAuth = new UserAuthDto("test", "test");
+        // mock
+        final AccessTokenDto access = new AccessTokenDto();
+        access.setAccessToken(this.token);
+        Mockito.when(this.pizzeriaService.fetchTokenForUser(testAuth)).thenReturn(access);
+        // request
+        this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.AUTH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(objectAsJson(testAuth))
+                .exchange()
+                // response
+                .expectStatus().isCreated()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .fetchTokenForUser(Mockito.any(UserAuthDto.class));
+    }
+
+    @Test
+    void testAuthenticateApi_responseBadRequest() {
+        // request
+        this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.AUTH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("{ username: 5000.0 }")
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .fetchTokenForUser(Mockito.any(UserAuthDto.class));
+    }
+
+    @Test
+    void getAllOrders_responseOk() {
+        // mock
+        Mockito.when(this.pizzeriaService.readAllOrdersSortedByTime()).thenReturn(Flux.empty());
+        // request
+        this.webTestClient.get().uri(Constants.Paths.API + Constants.Paths.ORDERS)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .readAllOrdersSortedByTime();
+    }
+
+    @Test
+    void getAllOrders_responseSameAsJackson() throws Exception {
+        // mock
+        final List<OrderDto> orders = List.of(
+                buildOrderDto(1L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 1, 2L)),
+                buildOrderDto(2L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 3, 4L)));
+        Mockito.when(this.pizzeriaService.readAllOrdersSortedByTime()).thenReturn(Flux.fromIterable(orders));
+        // request
+        this.webTestClient.get().uri(Constants.Paths.API + Constants.Paths.ORDERS)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody(String.class).isEqualTo(this.objectMapper.writeValueAsString(orders));
+    }
+
+    @Test
+    void streamAllOrders_responseNdjson() throws Exception {
+        // mock
+        final List<OrderDto> orders = List.of(
+                buildOrderDto(1L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 1, 2L)),
+                buildOrderDto(3L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 4, 5L)));
+        Mockito.when(this.pizzeriaService.readAllOrdersSortedByTime()).thenReturn(Flux.fromIterable(orders));
+        // request
+        final String body = this.webTestClient.get().uri(Constants.Paths.API + Constants.Paths.ORDERS)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertNotNull(body, "Stream should not be empty");
+        final String[] lines = body.split("\n");
+        assertEquals(orders.size(), lines.length, "Every order should be written on its own line");
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(this.objectMapper.writeValueAsString(orders.get(i)), lines[i],
+                    "Line " + i + " should hold the order at index " + i);
+        }
+    }
+
+    @Test
+    void addPerson_responseBadRequest() throws Exception {
+        // input
+        PersonCreateDto personCreateDto = new PersonCreateDto();
+        personCreateDto.setName("John");
+        // request
+        // a missing token is rejected by the token filter, before the body is read
+        this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.REG)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("bad_token_name", this.token)
+                .bodyValue(objectAsJson(personCreateDto))
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized();
+        // request
+        this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.REG)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .bodyValue("{ bad content }")
+                .exchange()
+                // response
+                .expectStatus().isBadRequest();
+        // check that no service call is ever made
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .registerPerson(Mockito.any(PersonCreateDto.class));
+    }
+
+    @Test
+    void addPerson_responseUnAuthorized() throws Exception {
+        // input
+        PersonCreateDto personCreateDto = new PersonCreateDto();
+        personCreateDto.setName("John");
+        // request, with an empty and with a wrong token
+        for (String wrong : List.of("", "wrong_token")) {
+            this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.REG)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header("token", wrong)
+                    .bodyValue(objectAsJson(personCreateDto))
+                    .exchange()
+                    // response
+                    .expectStatus().isUnauthorized();
+        }
+        // check that no service call is ever made
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .registerPerson(Mockito.any(PersonCreateDto.class));
+    }
+
+    @Test
+    void getAllOrdersForPerson_responseOk() {
+        // input
+        final String id = "id";
+        // mock
+        Mockito.when(this.pizzeriaService.readAllOrdersForPersonSortedByTime(id)).thenReturn(Flux.empty());
+        // request
+        this.webTestClient.get().uri(Constants.Paths.API + Constants.Paths.ORDERS + "/" + id)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .readAllOrdersForPersonSortedByTime(id);
+    }
+
+    @Test
+    void testCreateOrder_responseUnAuthorized() throws Exception {
+        // input
+        final OrderCreateDto requestOrderDto = new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.QUARTTRO_FORMAGGI, Pizza.Size.M, 4444, 10L);
+        // request, with an empty and with a wrong token
+        for (String wrong : List.of("", "wrong_token")) {
+            this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.ORDERS)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header("token", wrong)
+                    .bodyValue(objectAsJson(requestOrderDto))
+                    .exchange()
+                    // response
+                    .expectStatus().isUnauthorized()
+                    .expectHeader().contentType(MediaType.APPLICATION_JSON);
+        }
+        // check that no service call is ever made
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .createOrder(Mockito.any(OrderCreateDto.class));
+    }
+
+    @Test
+    void testCreateOrder_unauthorizedBeforeBodyIsRead() {
+        // request: an unparsable body on another spelling of the path
+        this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.ORDERS + "/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{ bad body : incorrect}")
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.MISSING_TOKEN);
+        // request: a token signed with another secret
+        final String forged = new JwtTokens("another-secret-of-at-least-32-bytes!!", Duration.ofMinutes(1), 10)
+                .issue("test");
+        this.webTestClient.post().uri(Constants.Paths.API + Constants.Paths.ORDERS + "/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("token", forged)
+                .bodyValue("{ bad body : incorrect}")
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INCORRECT_TOKEN);
+        // check that no service call is ever made
+        Mockito.verifyNoInteractions(this.pizzeriaService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Mockito.clearAllCaches();
+    }
+
+    /**
+     * returns JSON String from given object, otherwise throws parsing error
+     */
+    private String objectAsJson(Object obj) throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(obj);
+    }
+
+    /**
+     * Create a new OrderDto with given id and CreateOrderDto.
+     */
+    private OrderDto buildOrderDto(@NonNull final Long id, @NonNull final OrderCreateDto in) {
+        OrderDto out = new OrderDto(id, Instant.now().truncatedTo(ChronoUnit.MILLIS).toEpochMilli());
+        out.setCrust(in.getCrust());
+        out.setFlavour(in.getFlavour());
+        out.setSize(in.getSize());
+        out.setTableNo(in.getTableNo());
+        out.setCustomerId(in.getCustomerId());
+        return out;
+    }
+}
@@ -0,0 +1,162 @@
+package com.ss.pizzeria.reactive.service;
+
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import com.ss.pizzeria.backend.service.InvalidIdException;
+import com.ss.pizzeria.backend.service.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the reactive service against an in-memory database with the schema of the servlet application
+ *
+ * @author Sneha
+ */
+@SpringBootTest
+class ReactivePizzeriaServiceTest {
+
+    @Autowired
+    private ReactivePizzeriaService service;
+
+    @Test
+    void registerPerson_andCreateOrders() {
+        // input
+        final PersonDto person = register("Axel");
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L,
+                4, person.getPersonId());
+        // response
+        final OrderDto first = this.service.createOrder(request).block();
+        final OrderDto second = this.service.createOrder(request).block();
+        assertNotNull(first, "Order should be created");
+        assertNotNull(second, "Order should be created");
+        assertEquals(Pizza.Flavour.HAWAII, first.getFlavour(), "Flavour should be stored");
+        assertEquals(0L, first.getVersion(), "New order should be at version 0");
+        // the orders are read back in creation order, with their enums
+        StepVerifier.create(this.service.readAllOrdersForPersonSortedByTime(person.getPersonId().toString()))
+                .assertNext(order -> {
+                    assertEquals(first.getOrderId(), order.getOrderId(), "First order should come first");
+                    assertEquals(Pizza.Size.L, order.getSize(), "Size should be read back");
+                })
+                .assertNext(order -> assertEquals(second.getOrderId(), order.getOrderId(),
+                        "Second order should come second"))
+                .verifyComplete();
+    }
+
+    @Test
+    void readOrdersForPerson_withoutOrders() {
+        // input
+        final PersonDto person = register("Bea");
+        // response
+        StepVerifier.create(this.service.readAllOrdersForPersonSortedByTime(person.getPersonId().toString()))
+                .verifyComplete();
+    }
+
+    @Test
+    void readOrdersForPerson_unknownOrInvalid() {
+        StepVerifier.create(this.service.readAllOrdersForPersonSortedByTime("987654321"))
+                .verifyError(NoSuchElementException.class);
+        StepVerifier.create(this.service.readAllOrdersForPersonSortedByTime("abc"))
+                .verifyError(InvalidIdException.class);
+    }
+
+    @Test
+    void createOrder_unknownCustomer() {
+        // input
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L,
+                4, 987654321L);
+        // response
+        StepVerifier.create(this.service.createOrder(request))
+                .verifyError(NoSuchElementException.class);
+        StepVerifier.create(this.service.createOrder(new OrderCreateDto()))
+                .verifyError(InvalidRequestException.class);
+    }
+
+    @Test
+    void readAllOrders_withBackpressure() {
+        // input
+        final PersonDto person = register("Cid");
+        Flux.range(0, 5)
+                .concatMap(i -> this.service.createOrder(new OrderCreateDto(Pizza.Crust.THIN,
+                        Pizza.Flavour.REGINA, Pizza.Size.M, i, person.getPersonId())))
+                .blockLast();
+        // response: rows are only emitted as requested
+        StepVerifier.create(this.service.readAllOrdersSortedByTime(), 1)
+                .expectNextCount(1)
+                .thenRequest(2)
+                .expectNextCount(2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void registerPerson_idsFromBlocks() {
+        // ids are handed out from the reserved blocks, unique and increasing
+        final List<Long> ids = Flux.range(0, 60)
+                .concatMap(i -> this.service.registerPerson(personNamed("P" + i)))
+                .map(PersonDto::getPersonId)
+                .collect(Collectors.toList())
+                .block();
+        assertNotNull(ids, "Ids should be returned");
+        assertEquals(60, ids.stream().filter(Objects::nonNull).distinct().count(), "Ids should be unique");
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1), "Ids should increase");
+        }
+    }
+
+    @Test
+    void removeOrder_onlyThatOrder() {
+        // input
+        final PersonDto person = register("Dee");
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M,
+                2, person.getPersonId());
+        final OrderDto removed = this.service.createOrder(request).block();
+        final OrderDto kept = this.service.createOrder(request).block();
+        assertNotNull(removed, "Order should be created");
+        assertNotNull(kept, "Order should be created");
+        // response
+        StepVerifier.create(this.service.removeOrder(removed.getOrderId().toString()))
+                .verifyComplete();
+        StepVerifier.create(this.service.readAllOrdersForPersonSortedByTime(person.getPersonId().toString()))
+                .assertNext(order -> assertEquals(kept.getOrderId(), order.getOrderId(),
+                        "Other order should be kept"))
+                .verifyComplete();
+        // deleting it again finds nothing
+        StepVerifier.create(this.service.removeOrder(removed.getOrderId().toString()))
+                .verifyError(NoSuchElementException.class);
+    }
+
+    @Test
+    void removeOrder_unknownOrInvalid() {
+        StepVerifier.create(this.service.removeOrder("987654321"))
+                .verifyError(NoSuchElementException.class);
+        StepVerifier.create(this.service.removeOrder("abc"))
+                .verifyError(InvalidIdException.class);
+    }
+
+    private PersonDto register(final String name) {
+        final PersonDto person = this.service.registerPerson(personNamed(name)).block();
+        assertNotNull(person, "Person should be registered");
+        return person;
+    }
+
+    private static PersonCreateDto personNamed(final String name) {
+        final PersonCreateDto request = new PersonCreateDto();
+        request.setName(name);
+        return request;
+    }
+}
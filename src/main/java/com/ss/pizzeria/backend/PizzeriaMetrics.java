@@ -0,0 +1,27 @@
+package com.ss.pizzeria.backend;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+
+/**
+ * Metrics of the application, scraped in the Prometheus format from /actuator/prometheus.
+ * <p>
+ * Spring Boot already times every request (`http.server.requests') and every repository call
+ * (`spring.data.repository.invocations'), and publishes the usage of the connection pool (`hikaricp.connections.*').
+ * Service methods annotated with @Timed are timed here, the error responses are counted by the filters and the
+ * exception handler themselves, as `pizzeria.errors'.
+ *
+ * @author Sneha
+ */
+@Configuration
+public class PizzeriaMetrics {
+
+    @Bean
+    @NonNull
+    public TimedAspect timedAspect(@NonNull final MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
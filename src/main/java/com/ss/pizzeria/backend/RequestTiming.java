@@ -0,0 +1,140 @@
+package com.ss.pizzeria.backend;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of the current request, sent back in its Server-Timing header.
+ * <p>
+ * Only the requests picked by the ServerTimingFilter are timed. For every other request, timing a phase costs
+ * a single thread-local read, and no clock read at all. A timing belongs to the thread handling the request,
+ * so work handed to other threads, like writing a streamed export, is not counted.
+ *
+ * @author Sneha
+ */
+public final class RequestTiming {
+
+    /* phases in the order of the header, with their metric name and description */
+    public enum Phase {
+        AUTH("auth", "Token check"),
+        DB("db", "Repository calls"),
+        MAPPING("mapping", "Entity to DTO mapping"),
+        SERIALIZATION("serialization", "JSON serialization");
+
+        @NonNull
+        private final String metric;
+
+        @NonNull
+        private final String description;
+
+        Phase(@NonNull final String metric, @NonNull final String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+
+    /* returned by start() when the current request is not timed, as System.nanoTime() may be any other value */
+    private static final long OFF = Long.MIN_VALUE;
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long started = System.nanoTime();
+
+    /* time and number of measurements per phase, only written by the thread handling the request */
+    private final long[] nanos = new long[Phase.values().length];
+    private final int[] counts = new int[Phase.values().length];
+
+    /* start of the serialization of the response body, OFF until the body is written */
+    private long serializationStarted = OFF;
+
+    /**
+     * start of a phase, to pass to stop()
+     */
+    public static long start() {
+        return CURRENT.get() != null ? System.nanoTime() : OFF;
+    }
+
+    /**
+     * adds the time since given start to given phase of the current request
+     */
+    public static void stop(@NonNull final Phase phase, final long start) {
+        if (start != OFF) {
+            add(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * adds given time, measured elsewhere, to given phase of the current request, if timed
+     */
+    public static void add(@NonNull final Phase phase, final long nanos) {
+        final RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.nanos[phase.ordinal()] += nanos;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * marks the start of the serialization of the response body of the current request, if timed
+     */
+    public static void serializing() {
+        final RequestTiming timing = CURRENT.get();
+        if (timing != null && timing.serializationStarted == OFF) {
+            timing.serializationStarted = System.nanoTime();
+        }
+    }
+
+    /**
+     * timing of the current request, or null when it is not timed
+     */
+    @Nullable
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * times the phases run by the current thread with this timing, until detached
+     */
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * ends the serialization of the response body, if it started
+     */
+    public void serialized() {
+        if (this.serializationStarted != OFF) {
+            this.nanos[Phase.SERIALIZATION.ordinal()] += System.nanoTime() - this.serializationStarted;
+            this.counts[Phase.SERIALIZATION.ordinal()]++;
+            this.serializationStarted = OFF;
+        }
+    }
+
+    /**
+     * value of the Server-Timing header: every phase which ran, in milliseconds, then the total so far
+     */
+    @NonNull
+    public String header() {
+        final StringBuilder header = new StringBuilder();
+        for (final Phase phase : Phase.values()) {
+            if (this.counts[phase.ordinal()] > 0) {
+                metric(header, phase.metric, this.nanos[phase.ordinal()], phase.description).append(", ");
+            }
+        }
+        return metric(header, "total", System.nanoTime() - this.started, "Request").toString();
+    }
+
+    @NonNull
+    private static StringBuilder metric(@NonNull final StringBuilder header, @NonNull final String name,
+                                        final long nanos, @NonNull final String description) {
+        return header.append(name)
+                .append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0))
+                .append(";desc=\"").append(description).append('"');
+    }
+}
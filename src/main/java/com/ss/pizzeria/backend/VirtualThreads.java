@@ -0,0 +1,71 @@
+package com.ss.pizzeria.backend;
+
+import com.ss.pizzeria.backend.data.GuardedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in handling of requests on virtual threads, one per request, instead of Tomcat's pool of platform threads.
+ * The controller and the service run on the request thread, so their blocking JDBC calls park a virtual thread only.
+ * <p>
+ * Requests are then no longer bounded by the thread pool, so the data source is guarded: besides the pooled
+ * connections, at most `max-waiting' requests wait for one, further ones fail right away with a 503.
+ * Virtual threads came with Java 21, while the project still compiles for Java 11, hence the reflection;
+ * on an older runtime the application refuses to start in this mode.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "pizzeria.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreads {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutor() {
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    public static BeanPostProcessor guardedDataSource(
+            @Value("${pizzeria.threads.virtual.max-waiting:200}") final int maxWaiting) {
+        return new BeanPostProcessor() {
+            @Override
+            @NonNull
+            public Object postProcessAfterInitialization(@NonNull final Object bean, @NonNull final String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    final HikariDataSource pool = (HikariDataSource) bean;
+                    return new GuardedDataSource(pool, pool.getMaximumPoolSize(), maxWaiting);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor(), when the runtime has it
+     */
+    @NonNull
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("pizzeria.threads.virtual.enabled needs Java 21 or later, running on "
+                    + Runtime.version(), ex);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Virtual threads are not available", ex);
+        }
+    }
+}
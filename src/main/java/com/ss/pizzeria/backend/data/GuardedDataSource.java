@@ -0,0 +1,95 @@
+package com.ss.pizzeria.backend.data;
+
+import com.ss.pizzeria.backend.Constants;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the threads holding or waiting for a connection, failing any further one right away.
+ * <p>
+ * The pool bounds the connections only, every other thread waits up to the connection timeout.
+ * With a thread per request that is bounded by the request threads, with virtual threads it is not,
+ * and thousands of waiting requests would only time out one after the other.
+ *
+ * @author Sneha
+ */
+public class GuardedDataSource extends DelegatingDataSource {
+
+    @NonNull
+    private final Semaphore permits;
+
+    /**
+     * lets given number of threads hold a connection, and given number more wait for one
+     */
+    public GuardedDataSource(@NonNull final DataSource target, final int maxConnections, final int maxWaiting) {
+        super(target);
+        this.permits = new Semaphore(maxConnections + maxWaiting);
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            this.permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection(@NonNull final String username, @NonNull final String password)
+            throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            this.permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * number of threads which may still hold or wait for a connection
+     */
+    public int availablePermits() {
+        return this.permits.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+        if (!this.permits.tryAcquire()) {
+            throw new SQLTransientConnectionException(Constants.Messages.DATABASE_BUSY);
+        }
+    }
+
+    /**
+     * returns given connection, giving its permit back once closed
+     */
+    @NonNull
+    private Connection guard(@NonNull final Connection connection) {
+        final AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                            this.permits.release();
+                        }
+                    }
+                });
+    }
+}
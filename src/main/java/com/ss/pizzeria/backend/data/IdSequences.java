@@ -0,0 +1,110 @@
+package com.ss.pizzeria.backend.data;
+
+import com.ss.pizzeria.backend.data.model.PooledSequenceGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configures the id block size of the entity sequences, and moves every sequence past the ids already
+ * stored in its table on startup.
+ * <p>
+ * Databases created before the per-entity sequences took their ids from the shared hibernate_sequence,
+ * so a freshly created sequence would hand out ids that are already taken. The migration also aligns the
+ * increment of existing sequences with the configured block size. It runs before the entity manager factory
+ * is built, so Hibernate finds the configured increment in the database, and any other increment it found
+ * would fail the startup. Sequences only created by Hibernate get restarted once all beans are created,
+ * before any id has been handed out.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Configuration
+public class IdSequences implements InitializingBean, SmartInitializingSingleton {
+
+    /* sequence name by table name */
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "orders", "orders_seq",
+            "persons", "persons_seq");
+
+    @NonNull
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int allocationSize;
+
+    public IdSequences(@NonNull final DataSource dataSource,
+                       @Value("${pizzeria.ids.allocation-size:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}")
+                       final int allocationSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.allocationSize = allocationSize;
+    }
+
+    /**
+     * builds the entity manager factory only once the existing sequences are migrated
+     */
+    @Bean
+    @NonNull
+    public static EntityManagerFactoryDependsOnPostProcessor idSequencesBeforeEntityManagerFactory() {
+        return new EntityManagerFactoryDependsOnPostProcessor(IdSequences.class);
+    }
+
+    @Bean
+    public static HibernatePropertiesCustomizer idAllocationSize(
+            @Value("${pizzeria.ids.allocation-size:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}")
+            final int allocationSize) {
+        return properties -> properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, allocationSize);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach(this::migrate);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // the sequences Hibernate has created meanwhile already have the configured increment
+        SEQUENCES.forEach(this::migrate);
+    }
+
+    /**
+     * restarts given sequence after the highest id of given table, and sets its increment to the block size
+     */
+    void migrate(@NonNull final String table, @NonNull final String sequence) {
+        final List<Map<String, Object>> found = this.jdbcTemplate.queryForList(
+                "select CURRENT_VALUE, INCREMENT from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = ?",
+                sequence.toUpperCase(Locale.ROOT));
+        if (found.isEmpty()) {
+            log.warn("Sequence {} does not exist, skipping its migration", sequence);
+            return;
+        }
+        final long current = ((Number) found.get(0).get("CURRENT_VALUE")).longValue();
+        final long increment = ((Number) found.get(0).get("INCREMENT")).longValue();
+        final boolean tableExists = this.jdbcTemplate.queryForObject(
+                "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_NAME = ?", Long.class,
+                table.toUpperCase(Locale.ROOT)) > 0;
+        final Long maxId = tableExists
+                ? this.jdbcTemplate.queryForObject("select max(id) from " + table, Long.class)
+                : null;
+        // with pooled-lo the last block handed out ends right before the next sequence value
+        final long next = current + increment;
+        final long start = maxId == null ? next : Math.max(next, maxId + 1);
+        if (start == next && increment == this.allocationSize) {
+            return;
+        }
+        log.info("Restarting sequence {} with {}, increment {}", sequence, start, this.allocationSize);
+        this.jdbcTemplate.execute("alter sequence " + sequence
+                + " restart with " + start + " increment by " + this.allocationSize);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ss.pizzeria.backend.data;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+
+/**
+ * Second-level cache of Hibernate, in bounded Caffeine caches behind JCache.
+ * <p>
+ * Persons are cached by id in the `persons' region: they are never deleted, and their name never changes,
+ * so an entry only goes stale when another application writes the table. Registering a person caches it
+ * once committed. The optional query cache holds the per-customer order query, which Hibernate drops on
+ * every write to the orders or persons table.
+ * <p>
+ * Each region publishes its hits, misses and hit percentage as a standard JCache MBean
+ * `javax.cache:type=CacheStatistics,CacheManager=pizzeria-second-level-cache-<n>,Cache=<region>',
+ * which are bound as the `cache.*' meters of the region, e.g. `cache_gets_total{cache="persons",result="hit"}'.
+ *
+ * @author Sneha
+ */
+@Configuration
+public class SecondLevelCache {
+
+    /* region of the Person entities */
+    public static final String PERSONS_REGION = "persons";
+
+    /* Hibernate's regions of the query results, and of the last write to each table */
+    public static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    /* name of the cache manager, made unique per application context, as every context builds its own regions */
+    private static final String CACHE_MANAGER = "pizzeria-second-level-cache";
+
+    @Bean(destroyMethod = "close")
+    @NonNull
+    public CacheManager secondLevelCacheManager(
+            @Value("${pizzeria.persons.cache.max-size:100000}") final long personsMaxSize,
+            @Value("${pizzeria.persons.query-cache.max-size:10000}") final long queryResultsMaxSize) {
+        final CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(CACHE_MANAGER + "-" + System.identityHashCode(this)),
+                        SecondLevelCache.class.getClassLoader());
+        cacheManager.createCache(PERSONS_REGION, region(personsMaxSize));
+        cacheManager.createCache(QUERY_RESULTS_REGION, region(queryResultsMaxSize));
+        // one entry per table, and never evicted, otherwise cached results could outlive their tables' writes
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, region(null));
+        return cacheManager;
+    }
+
+    @Bean
+    @NonNull
+    public static HibernatePropertiesCustomizer secondLevelCacheProperties(
+            @NonNull final CacheManager secondLevelCacheManager,
+            @Value("${pizzeria.persons.query-cache.enabled:false}") final boolean queryCache) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            // every region is created above, with its bound
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.USE_QUERY_CACHE, queryCache);
+        };
+    }
+
+    @Bean
+    @NonNull
+    public MeterBinder secondLevelCacheMetrics(@NonNull final CacheManager secondLevelCacheManager) {
+        return registry -> secondLevelCacheManager.getCacheNames().forEach(region ->
+                JCacheMetrics.monitor(registry, secondLevelCacheManager.getCache(region)));
+    }
+
+    /**
+     * configuration of a region holding at most given number of entries, or any number for null
+     */
+    @NonNull
+    private static CaffeineConfiguration<Object, Object> region(final Long maxSize) {
+        final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        configuration.setStatisticsEnabled(true);
+        configuration.setManagementEnabled(true);
+        return configuration;
+    }
+}
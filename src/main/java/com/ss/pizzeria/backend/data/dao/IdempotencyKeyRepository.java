@@ -0,0 +1,30 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * deletes the keys created before given time, returns the number of deleted keys
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") final long cutoff);
+
+    /**
+     * deletes given key if it was created before given time, returns the number of deleted keys
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.id = :id and k.createdAt < :cutoff")
+    int deleteExpired(@Param("id") final String id, @Param("cutoff") final long cutoff);
+
+}
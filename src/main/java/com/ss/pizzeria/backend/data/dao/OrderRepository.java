@@ -1,21 +1,129 @@
 package com.ss.pizzeria.backend.data.dao;
 
 import com.ss.pizzeria.backend.data.model.Order;
-import com.ss.pizzeria.backend.data.model.Person;
-import org.springframework.data.domain.Sort;
+import com.ss.pizzeria.backend.data.model.OrderView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import javax.validation.constraints.NotNull;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+
+    /* selects the columns of an OrderView, the customer id comes straight from the person_id column */
+    String SELECT_VIEW = "select new com.ss.pizzeria.backend.data.model.OrderView("
+            + "o.id, o.crust, o.flavour, o.size, o.tableNo, o.customer.id, o.timestamp, o.version) from Order o";
+
+    /* read-only listings never need pending changes flushed before they run */
+    String FLUSH_MODE = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+    String NO_FLUSH = "MANUAL";
+
+    /* results kept in the query cache, while enabled by pizzeria.persons.query-cache.enabled */
+    String CACHEABLE = org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
+    /**
+     * finds all orders, sorted by (timestamp, id)
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " order by o.timestamp, o.id")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    List<OrderView> findAllSortedByTime();
+
+    /**
+     * finds all orders for given customer id, sorted by (timestamp, id), in one round trip.
+     * Returns no rows when the customer does not exist, and a single row without order id
+     * when the customer exists but has no orders. Cached until the next write to either table.
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query("select new com.ss.pizzeria.backend.data.model.OrderView(o.id, o.crust, o.flavour, o.size,"
+            + " coalesce(o.tableNo, 0), p.id, coalesce(o.timestamp, 0), coalesce(o.version, 0))"
+            + " from Person p left join p.orderList o"
+            + " where p.id = :customerId order by o.timestamp, o.id")
+    @QueryHints({@QueryHint(name = FLUSH_MODE, value = NO_FLUSH), @QueryHint(name = CACHEABLE, value = "true")})
+    List<OrderView> findCustomerWithOrdersSortedByTime(@NotNull @Param("customerId") final Long customerId);
+
+    /**
+     * finds the first page of orders, sorted by (timestamp, id)
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " order by o.timestamp, o.id")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    List<OrderView> findFirstPageSortedByTime(@NotNull final Pageable page);
+
+    /**
+     * finds the page of orders following the given (timestamp, id) key, sorted by (timestamp, id).
+     * The leading range on timestamp keeps the predicate usable as an index seek.
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where o.timestamp >= :timestamp and (o.timestamp > :timestamp or o.id > :id)"
+            + " order by o.timestamp, o.id")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    List<OrderView> findPageSortedByTimeAfter(@Param("timestamp") final long timestamp,
+                                              @Param("id") final long id,
+                                              @NotNull final Pageable page);
 
     /**
-     * finds all orders for given customer, sorted by timestamp
+     * finds the order with given id
      */
     @NotNull
-    List<Order> findAllByCustomer(@NotNull final Person customer, @NotNull final Sort timestamp);
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where o.id = :id")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    Optional<OrderView> findViewById(@Param("id") final long id);
+
+    /**
+     * finds the distinct customer ids of the orders with given ids
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query("select distinct o.customer.id from Order o where o.id in :ids")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    List<Long> findCustomerIdsByIds(@NotNull @Param("ids") final Collection<Long> ids);
+
+    /**
+     * finds the ids of the orders placed in [from, to), for chunked deletes.
+     * Unsorted, so the index range scan stops after one chunk.
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query("select o.id from Order o where o.timestamp >= :from and o.timestamp < :to")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    List<Long> findIdsByTimeRange(@Param("from") final long from, @Param("to") final long to,
+                                  @NotNull final Pageable page);
+
+    /**
+     * finds the ids of the orders of given customer placed in [from, to), for chunked deletes.
+     * Unsorted, so the index range scan stops after one chunk.
+     */
+    @NotNull
+    @Transactional(readOnly = true)
+    @Query("select o.id from Order o where o.customer.id = :customerId"
+            + " and o.timestamp >= :from and o.timestamp < :to")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = NO_FLUSH))
+    List<Long> findIdsByCustomerAndTimeRange(@Param("customerId") final long customerId,
+                                             @Param("from") final long from, @Param("to") final long to,
+                                             @NotNull final Pageable page);
+
+    /**
+     * deletes the orders with given ids in a single statement, returns the number of deleted orders
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Order o where o.id in :ids")
+    int deleteOrdersByIds(@NotNull @Param("ids") final Collection<Long> ids);
 
 }
@@ -0,0 +1,41 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.OrderView;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import org.springframework.lang.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Queries of {@link OrderRepository} which need direct access to the EntityManager
+ *
+ * @author Sneha
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * streams all orders sorted by (timestamp, id) through a forward-only cursor.
+     * Must be consumed inside a transaction, and closed afterwards.
+     */
+    @NotNull
+    Stream<OrderView> streamAllSortedByTime();
+
+    /**
+     * updates the given fields of the order with given id in a single statement, unless its version changed.
+     * Fields passed as null keep their value, and so does the time the order was placed.
+     * Returns the number of updated orders.
+     */
+    int updateOrder(final long id, final long version, @Nullable final Pizza.Crust crust,
+                    @Nullable final Pizza.Flavour flavour, @Nullable final Pizza.Size size,
+                    @Nullable final Integer tableNo);
+
+    /**
+     * deletes the order with given id in a single statement, returns the customer id of the deleted order,
+     * or empty when there was none
+     */
+    @NotNull
+    Optional<Long> deleteOrderReturningCustomerId(final long id);
+
+}
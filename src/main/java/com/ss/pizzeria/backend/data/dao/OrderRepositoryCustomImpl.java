@@ -0,0 +1,91 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.OrderView;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link OrderRepositoryCustom}, picked up by Spring Data through its name.
+ *
+ * @author Sneha
+ */
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /* number of rows fetched from the JDBC cursor per round trip */
+    @Value("${pizzeria.orders.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @NotNull
+    @Override
+    public Stream<OrderView> streamAllSortedByTime() {
+        // rows are projected straight into OrderViews, so nothing accumulates in the persistence context
+        return this.entityManager
+                .createQuery(OrderRepository.SELECT_VIEW + " order by o.timestamp, o.id", OrderView.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, this.fetchSize)
+                .setHint(QueryHints.HINT_FLUSH_MODE, OrderRepository.NO_FLUSH)
+                .getResultStream();
+    }
+
+    @Override
+    @Transactional
+    public int updateOrder(final long id, final long version, @Nullable final Pizza.Crust crust,
+                           @Nullable final Pizza.Flavour flavour, @Nullable final Pizza.Size size,
+                           @Nullable final Integer tableNo) {
+        // only the given fields are set, each bound with the type of its column
+        final CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        final CriteriaUpdate<Order> update = builder.createCriteriaUpdate(Order.class);
+        final Root<Order> order = update.from(Order.class);
+        if (crust != null) {
+            update.set(order.<Pizza.Crust>get("crust"), crust);
+        }
+        if (flavour != null) {
+            update.set(order.<Pizza.Flavour>get("flavour"), flavour);
+        }
+        if (size != null) {
+            update.set(order.<Pizza.Size>get("size"), size);
+        }
+        if (tableNo != null) {
+            update.set(order.<Integer>get("tableNo"), tableNo);
+        }
+        final Path<Long> currentVersion = order.get("version");
+        update.set(currentVersion, builder.sum(currentVersion, 1L))
+                .where(builder.equal(order.get("id"), id), builder.equal(currentVersion, version));
+        return this.entityManager.createQuery(update).executeUpdate();
+    }
+
+    @NotNull
+    @Override
+    @Transactional
+    public Optional<Long> deleteOrderReturningCustomerId(final long id) {
+        // H2 returns the deleted row from the delete itself, so the customer needs no read beforehand
+        final List<?> deleted = this.entityManager
+                .createNativeQuery("select person_id from old table (delete from orders where id = ?1)")
+                .setParameter(1, id)
+                .getResultList();
+        // a select is no write to Hibernate, so it has to drop the cached results of the orders table itself
+        final EventSource session = this.entityManager.unwrap(EventSource.class);
+        session.getActionQueue().addAction(new BulkOperationCleanupAction(session, Set.of("orders")));
+        return deleted.stream().findFirst().map(customerId -> ((Number) customerId).longValue());
+    }
+}
@@ -0,0 +1,23 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.Person;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Queries of {@link PersonRepository} which need direct access to the EntityManager
+ *
+ * @author Sneha
+ */
+public interface PersonRepositoryCustom {
+
+    /**
+     * finds the persons with given ids, taking the cached ones from the second-level cache,
+     * and the others with a single query. Unknown and null ids are left out.
+     */
+    @NotNull
+    List<Person> findAllByIdCacheFirst(@NotNull final Collection<Long> ids);
+
+}
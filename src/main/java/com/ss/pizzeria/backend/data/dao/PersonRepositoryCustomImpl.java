@@ -0,0 +1,55 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.Person;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of {@link PersonRepositoryCustom}, picked up by Spring Data through its name.
+ *
+ * @author Sneha
+ */
+public class PersonRepositoryCustomImpl implements PersonRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @NotNull
+    @Override
+    @Transactional(readOnly = true)
+    public List<Person> findAllByIdCacheFirst(@NotNull final Collection<Long> ids) {
+        final Cache cache = this.entityManager.getEntityManagerFactory().getCache();
+        final List<Person> found = new ArrayList<>(ids.size());
+        final List<Long> uncached = new ArrayList<>();
+        for (Long id : ids) {
+            if (id == null) {
+                // no person has it, and the cache lookup would fail on it
+                continue;
+            }
+            if (cache.contains(Person.class, id)) {
+                // read from the cache, unless evicted meanwhile
+                final Person person = this.entityManager.find(Person.class, id);
+                if (person != null) {
+                    found.add(person);
+                }
+            } else {
+                uncached.add(id);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            // the persons loaded here are cached for the next lookup
+            found.addAll(this.entityManager
+                    .createQuery("select p from Person p where p.id in :ids", Person.class)
+                    .setParameter("ids", uncached)
+                    .getResultList());
+        }
+        return found;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ss.pizzeria.backend.data.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+/**
+ * DB Table for the accepted orders which could not be stored, kept with the reason of their failure
+ * so they can be looked into and placed again. Without a foreign key, as a missing customer may be that reason.
+ *
+ * @author Sneha
+ */
+@Entity
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "failed_orders")
+public class FailedOrder {
+
+    public static final int MAX_REASON_LENGTH = 1000;
+
+    /* the id the order was accepted with */
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    private Pizza.Crust crust;
+
+    private Pizza.Size size;
+
+    @Column(name = "table_no")
+    private int tableNo;
+
+    private Pizza.Flavour flavour;
+
+    @Column(name = "person_id", nullable = false)
+    private Long customerId;
+
+    private long timestamp;
+
+    @Column(name = "reason", length = MAX_REASON_LENGTH)
+    private String reason;
+
+    @Column(name = "failed_at", nullable = false)
+    private long failedAt;
+
+    public FailedOrder(@NotNull final Order order, @NotNull final Long customerId, final String reason,
+                       final long failedAt) {
+        this.id = order.getId();
+        this.crust = order.getCrust();
+        this.size = order.getSize();
+        this.tableNo = order.getTableNo();
+        this.flavour = order.getFlavour();
+        this.customerId = customerId;
+        this.timestamp = order.getTimestamp();
+        this.reason = reason;
+        this.failedAt = failedAt;
+    }
+}
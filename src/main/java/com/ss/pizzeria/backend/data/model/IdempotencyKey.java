@@ -0,0 +1,72 @@
+package com.ss.pizzeria.backend.data.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+/**
+ * DB Table for the responses stored by Idempotency-Key, so retried requests survive a restart.
+ * Rows are only ever inserted and purged, never updated. A row is identified by a digest of the client
+ * and its key, and remembers a digest of the request body, so a key reused for another request is told apart.
+ *
+ * @author Sneha
+ */
+@Entity
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "idempotency_keys", indexes = {
+        // serves the purge of expired keys
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyKey implements Persistable<String> {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /* digest of the client and its key */
+    @Id
+    @Column(name = "id", length = MAX_KEY_LENGTH, nullable = false)
+    private String id;
+
+    /* digest of the request body */
+    @Column(name = "request_hash", length = 64, nullable = false)
+    @NotNull
+    private String requestHash;
+
+    @Column(name = "status", nullable = false)
+    private int status;
+
+    /* the response body as JSON */
+    @Column(name = "body", length = 4000, nullable = false)
+    @NotNull
+    private String body;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    public IdempotencyKey(@NotNull final String id, @NotNull final String requestHash, final int status,
+                          @NotNull final String body, final long createdAt) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.status = status;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * keys are always inserted, so saving one never reads it first
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -20,11 +23,21 @@ import java.util.Objects;
 @Getter
 @Setter
 @ToString
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // serves listings sorted by time, and the (timestamp, id) keyset pages
+        @Index(name = "idx_orders_timestamp_id", columnList = "timestamp, id"),
+        // serves per customer listings sorted by time
+        @Index(name = "idx_orders_person_id_timestamp_id", columnList = "person_id, timestamp, id")
+})
 public class Order {
 
+    /* name of the foreign key to the ordering person */
+    public static final String FK_PERSON_ID = "fk_order_person_id";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @GenericGenerator(name = "orders_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "orders_seq"))
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -44,12 +57,17 @@ public class Order {
 
     @ManyToOne(optional = false, cascade = CascadeType.MERGE)
     @JoinColumn(name = "person_id", nullable = false, updatable = false,
-            foreignKey = @ForeignKey(name = "fk_order_person_id", value = ConstraintMode.CONSTRAINT))
+            foreignKey = @ForeignKey(name = Order.FK_PERSON_ID, value = ConstraintMode.CONSTRAINT))
     @NotNull
     private Person customer;
 
     private long timestamp;
 
+    // optimistic lock, the default fills the column for orders stored before it existed
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long version;
+
     public Order() {
         this.timestamp = getCurrentTime();
     }
@@ -0,0 +1,29 @@
+package com.ss.pizzeria.backend.data.model;
+
+import lombok.Value;
+
+/**
+ * Read-only projection of an {@link Order} row, selected without materializing the entity.
+ *
+ * @author Sneha
+ */
+@Value
+public class OrderView {
+
+    Long id;
+
+    Pizza.Crust crust;
+
+    Pizza.Flavour flavour;
+
+    Pizza.Size size;
+
+    int tableNo;
+
+    Long customerId;
+
+    long timestamp;
+
+    long version;
+
+}
@@ -1,7 +1,13 @@
 package com.ss.pizzeria.backend.data.model;
 
+import com.ss.pizzeria.backend.data.SecondLevelCache;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -10,9 +16,14 @@ import java.util.List;
 import java.util.Objects;
 
 /**
+ * Persons are never deleted and only get their name when registered, so they are kept in the
+ * second-level cache; their order list is not.
+ *
  * @author Sneha
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCache.PERSONS_REGION)
 @Getter
 @Setter
 @ToString
@@ -22,7 +33,9 @@ import java.util.Objects;
 public class Person {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persons_seq")
+    @GenericGenerator(name = "persons_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "persons_seq"))
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -0,0 +1,51 @@
+package com.ss.pizzeria.backend.data.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Sequence based id generator which reserves a block of ids per sequence call, using the pooled-lo optimizer.
+ * The block size is read from the {@value #ALLOCATION_SIZE} Hibernate setting, so it is shared by all entities.
+ * An entity saved with an id taken from this generator beforehand keeps that id.
+ *
+ * @author Sneha
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    /* name of the generator strategy, for @GenericGenerator */
+    public static final String STRATEGY = "com.ss.pizzeria.backend.data.model.PooledSequenceGenerator";
+
+    public static final String ALLOCATION_SIZE = "pizzeria.ids.allocation_size";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(final Type type, final Properties params, final ServiceRegistry serviceRegistry)
+            throws MappingException {
+        final Object allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings().get(ALLOCATION_SIZE);
+        params.setProperty(INCREMENT_PARAM,
+                allocationSize == null ? String.valueOf(DEFAULT_ALLOCATION_SIZE) : allocationSize.toString());
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(final SharedSessionContractImplementor session, final Object object) {
+        if (object != null) {
+            final Serializable assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+            if (assigned != null) {
+                return assigned;
+            }
+        }
+        return super.generate(session, object);
+    }
+}
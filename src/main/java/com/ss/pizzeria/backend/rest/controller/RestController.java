@@ -1,7 +1,13 @@
 package com.ss.pizzeria.backend.rest.controller;
 
 import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.rest.converter.OrderListJsonConverter;
 import com.ss.pizzeria.backend.rest.dto.*;
+import com.ss.pizzeria.backend.rest.filter.TokenAuthenticationFilter;
+import com.ss.pizzeria.backend.service.ConcurrencyLimiter;
+import com.ss.pizzeria.backend.service.IdempotentRequests;
+import com.ss.pizzeria.backend.service.IdempotentResponse;
+import com.ss.pizzeria.backend.service.OrderIngestor;
 import com.ss.pizzeria.backend.service.PizzeriaService;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,6 +15,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.info.Info;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
@@ -20,9 +27,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -52,13 +64,42 @@ public class RestController {
     private static final String ORDERS = Constants.Paths.ORDERS;
     private static final String PARAM_ORDER_ID = Constants.Params.ORDER_ID;
     private static final String PARAM_CUSTOMER_ID = Constants.Params.CUSTOMER_ID;
+    private static final String PARAM_LIMIT = Constants.Params.LIMIT;
+    private static final String PARAM_AFTER = Constants.Params.AFTER;
+    private static final String PARAM_ATOMIC = Constants.Params.ATOMIC;
+    private static final String PARAM_FROM = Constants.Params.FROM;
+    private static final String PARAM_TO = Constants.Params.TO;
+    private static final String PARAM_ASYNC = Constants.Params.ASYNC;
 
     /* Inject service */
     @NonNull
     private final PizzeriaService myService;
 
-    public RestController(@NonNull final PizzeriaService myService) {
+    /* Inject queue of orders stored in the background */
+    @NonNull
+    private final OrderIngestor orderIngestor;
+
+    /* Inject responses stored by Idempotency-Key */
+    @NonNull
+    private final IdempotentRequests idempotentRequests;
+
+    /* Inject limit of concurrent writes */
+    @NonNull
+    private final ConcurrencyLimiter writeLimiter;
+
+    /* Inject writer of the cached order JSON, for streamed responses */
+    @NonNull
+    private final OrderListJsonConverter orderWriter;
+
+    public RestController(@NonNull final PizzeriaService myService, @NonNull final OrderIngestor orderIngestor,
+                          @NonNull final IdempotentRequests idempotentRequests,
+                          @NonNull final ConcurrencyLimiter writeLimiter,
+                          @NonNull final OrderListJsonConverter orderWriter) {
         this.myService = myService;
+        this.orderIngestor = orderIngestor;
+        this.idempotentRequests = idempotentRequests;
+        this.writeLimiter = writeLimiter;
+        this.orderWriter = orderWriter;
     }
 
     /**
@@ -84,27 +125,90 @@ public class RestController {
             @NonNull final UserAuthDto auth) {
         final AccessTokenDto accessToken = this.myService.fetchTokenForUser(auth);
         if (accessToken.getAccessToken().isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ResponseMessageDto("Bad username or password"));
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ResponseMessageDto(Constants.Messages.BAD_CREDENTIALS));
         } else {
             return ResponseEntity.status(HttpStatus.CREATED).body(accessToken);
         }
     }
 
     /**
-     * Read all Orders, sorted by timestamp
+     * Stream all Orders as a JSON array, sorted by timestamp
      */
     // when using default 'consumes' at class level, cannot process empty media content '' for GET
-    @GetMapping(path = ORDERS)
-    @Description(value = "Read the entire set of orders, sorted by timestamp.")
+    @GetMapping(path = ORDERS, params = {"!" + PARAM_LIMIT, "!" + PARAM_AFTER})
+    @Description(value = "Read the entire set of orders, sorted by timestamp, streamed as they are read.")
     @Operation(operationId = "orders.read_all", summary = "Return list of Pizza Orders", tags = {TAG_ORDERS})
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully fetched list of Orders",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = OrderDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Orders did not change since the given ETag")
+    })
+    public ResponseEntity<StreamingResponseBody> getAllOrders(@NonNull final WebRequest request) {
+        // the version is read before the orders, so the ETag can only be older than the body
+        if (request.checkNotModified(this.myService.readOrdersVersion())) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamOrders(false));
+    }
+
+    /**
+     * Stream all Orders as newline delimited JSON, sorted by timestamp
+     */
+    @GetMapping(path = {ORDERS, ORDERS + Constants.Paths.EXPORT}, params = {"!" + PARAM_LIMIT, "!" + PARAM_AFTER},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Description(value = "Stream the entire set of orders as one JSON document per line, sorted by timestamp.")
+    @Operation(operationId = "orders.stream_ndjson", summary = "Stream Pizza Orders as NDJSON", tags = {TAG_ORDERS})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully started streaming Orders",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = OrderDto.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(streamOrders(true));
+    }
+
+    /**
+     * Export all Orders as one streamed JSON array, sorted by timestamp
+     */
+    @GetMapping(path = ORDERS + Constants.Paths.EXPORT)
+    @Description(value = "Export the entire set of orders as a streamed JSON array, sorted by timestamp.")
+    @Operation(operationId = "orders.export", summary = "Export all Pizza Orders", tags = {TAG_ORDERS})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully started exporting Orders",
                     content = @Content(schema = @Schema(implementation = OrderDto.class)))
     })
+    public ResponseEntity<StreamingResponseBody> exportAllOrders() {
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamOrders(false));
+    }
+
+    /**
+     * Read one page of Orders, sorted by timestamp
+     */
+    @GetMapping(path = ORDERS, params = PARAM_LIMIT)
+    @Description(value = "Read a page of orders, sorted by timestamp, continuing after the given cursor.")
+    @Operation(operationId = "orders.read_page", summary = "Return a page of Pizza Orders", tags = {TAG_ORDERS})
+    @Parameters(value = {
+            @Parameter(name = PARAM_LIMIT, description = "Maximum number of orders in the page", required = true, in = ParameterIn.QUERY),
+            @Parameter(name = PARAM_AFTER, description = "Cursor returned with the previous page", in = ParameterIn.QUERY)
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully fetched page of Orders",
+                    content = @Content(schema = @Schema(implementation = OrderPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or cursor",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
+    })
     @ResponseBody
-    public ResponseEntity<List<OrderDto>> getAllOrders() {
-        List<OrderDto> list = this.myService.readAllOrdersSortedByTime();
-        return ResponseEntity.status(HttpStatus.OK).body(list);
+    public ResponseEntity<OrderPageDto> getOrdersPage(@RequestParam(name = PARAM_LIMIT) final int limit,
+                                                      @RequestParam(name = PARAM_AFTER, required = false)
+                                                      @Nullable final String after) {
+        OrderPageDto page = this.myService.readOrdersPageSortedByTime(limit, after);
+        return ResponseEntity.status(HttpStatus.OK).body(page);
     }
 
     /**
@@ -124,20 +228,15 @@ public class RestController {
                     content = @Content(schema = @Schema(implementation = PersonDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid Request Body"),
             @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many changes in progress",
                     content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
     })
     @ResponseBody
-    public ResponseEntity<Object> addPerson(@RequestHeader(name = "token")
-                                            @NonNull final String bearerToken,
-                                            @org.springframework.web.bind.annotation.RequestBody
+    public ResponseEntity<Object> addPerson(@org.springframework.web.bind.annotation.RequestBody
                                             @Valid
                                             @NonNull final PersonCreateDto name) {
-        // TODO: 1
-        final String tokenStatus = checkTokenHeader(bearerToken);
-        if (!tokenStatus.equals(Constants.OK)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ResponseMessageDto(tokenStatus));
-        }
-        final PersonDto created = this.myService.registerPerson(name);
+        final PersonDto created = this.writeLimiter.execute(() -> this.myService.registerPerson(name));
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
@@ -151,12 +250,18 @@ public class RestController {
             summary = "Return list of Pizza Orders for given Person ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully fetched list of Orders",
-                    content = @Content(schema = @Schema(implementation = OrderDto.class)))
+                    content = @Content(schema = @Schema(implementation = OrderDto.class))),
+            @ApiResponse(responseCode = "304", description = "Orders did not change since the given ETag")
     })
     @ResponseBody
     public ResponseEntity<List<OrderDto>> getAllOrdersForPerson(@PathVariable(name = PARAM_CUSTOMER_ID)
                                                                     @Parameter(name = PARAM_CUSTOMER_ID)
-                                                                    @NonNull final String customerId) {
+                                                                    @NonNull final String customerId,
+                                                                @NonNull final WebRequest request) {
+        // the version is read before the orders, so the ETag can only be older than the body
+        if (request.checkNotModified(this.myService.readOrdersVersionForPerson(customerId))) {
+            return null;
+        }
         List<OrderDto> list = this.myService.readAllOrdersForPersonSortedByTime(customerId);
         return ResponseEntity.status(HttpStatus.OK).body(list);
     }
@@ -168,7 +273,10 @@ public class RestController {
     @Description(value = "Create a new order for given person (id)")
     @Operation(operationId = "orders.create", summary = "Create an Order for Person", tags = {TAG_ORDERS})
     @Parameters(value = {
-            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER)
+            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER),
+            @Parameter(name = PARAM_ASYNC, description = "Accept the order right away and store it in the background", in = ParameterIn.QUERY),
+            @Parameter(name = Constants.Headers.IDEMPOTENCY_KEY, in = ParameterIn.HEADER,
+                    description = "Unique key of this order per token, a retry with the same key and body gets the original response back")
     })
     @RequestBody(required = true, description = "Order to create",
             content = @Content(schema = @Schema(implementation = OrderCreateDto.class))
@@ -176,61 +284,248 @@ public class RestController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Successfully created order",
                     content = @Content(schema = @Schema(implementation = OrderDto.class))),
+            @ApiResponse(responseCode = "202", description = "Accepted order, to be stored shortly",
+                    content = @Content(schema = @Schema(implementation = OrderDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid Request Body"),
             @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used with another order",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many accepted orders waiting to be stored, "
+                    + "or too many changes in progress",
                     content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
     })
     @ResponseBody
-    public ResponseEntity<Object> createOrder(@RequestHeader(name = "token")
-                                               @NonNull final String bearerToken,
+    public ResponseEntity<Object> createOrder(@RequestParam(name = PARAM_ASYNC, defaultValue = "false")
+                                               final boolean async,
+                                               @RequestHeader(name = Constants.Headers.IDEMPOTENCY_KEY, required = false)
+                                               @Nullable final String idempotencyKey,
+                                               @RequestHeader(name = TokenAuthenticationFilter.TOKEN_HEADER)
+                                               @NonNull final String token,
                                                @org.springframework.web.bind.annotation.RequestBody
                                                @Valid
                                                @NonNull final OrderCreateDto order) {
-        // TODO: 1
-        final String tokenStatus = checkTokenHeader(bearerToken);
-        if (!tokenStatus.equals(Constants.OK)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ResponseMessageDto(tokenStatus));
+        if (idempotencyKey == null) {
+            final IdempotentResponse response = createOrder(order, async);
+            return ResponseEntity.status(response.getStatus()).body(response.getOrder());
         }
-        final OrderDto created = this.myService.createOrder(order);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        final IdempotentResponse response = this.idempotentRequests.execute(token, idempotencyKey, order,
+                () -> createOrder(order, async));
+        return ResponseEntity.status(response.getStatus())
+                .header(Constants.Headers.IDEMPOTENT_REPLAYED, String.valueOf(response.isReplayed()))
+                .body(response.getOrder());
     }
 
-    //@PutMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}/update")
-    //updateOrder(id, orderUpdateDto)
-    //takes order ID in path + updateDto as body
+    /**
+     * Create a batch of Orders
+     */
+    @PostMapping(path = ORDERS + Constants.Paths.BATCH)
+    @Description(value = "Create several orders at once, reporting the outcome of each order")
+    @Operation(operationId = "orders.create_batch", summary = "Create a batch of Orders", tags = {TAG_ORDERS})
+    @Parameters(value = {
+            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER),
+            @Parameter(name = PARAM_ATOMIC, description = "Create no order at all when any order fails", in = ParameterIn.QUERY)
+    })
+    @RequestBody(required = true, description = "Orders to create",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = OrderCreateDto.class)))
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created every order",
+                    content = @Content(schema = @Schema(implementation = OrderBatchResultDto.class))),
+            @ApiResponse(responseCode = "207", description = "Created some of the orders",
+                    content = @Content(schema = @Schema(implementation = OrderBatchResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid Request Body, or no order created",
+                    content = @Content(schema = @Schema(implementation = OrderBatchResultDto.class))),
+            @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many changes in progress",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
+    })
+    @ResponseBody
+    public ResponseEntity<Object> createOrders(@RequestParam(name = PARAM_ATOMIC, defaultValue = "false")
+                                               final boolean atomic,
+                                               @org.springframework.web.bind.annotation.RequestBody
+                                               @NonNull final List<OrderCreateDto> orders) {
+        final OrderBatchResultDto result = this.writeLimiter.execute(
+                () -> this.myService.createOrders(orders, atomic));
+        final HttpStatus status;
+        if (result.getCreated() == orders.size()) {
+            status = HttpStatus.CREATED;
+        } else if (result.getCreated() > 0) {
+            status = HttpStatus.MULTI_STATUS;
+        } else {
+            status = HttpStatus.BAD_REQUEST;
+        }
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @PutMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}")
+    @Description(value = "Replace every field of an order")
+    @Operation(operationId = "orders.replace", summary = "Replace an Order", tags = {TAG_ORDERS})
+    @Parameters(value = {
+            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER),
+            @Parameter(name = PARAM_ORDER_ID, description = "ID of order to update", required = true, in = ParameterIn.PATH)
+    })
+    @RequestBody(required = true, description = "Order fields and the Version they replace",
+            content = @Content(schema = @Schema(implementation = OrderUpdateDto.class))
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully replaced the order",
+                    content = @Content(schema = @Schema(implementation = OrderDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid Request Body, or missing field"),
+            @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "404", description = "Order not found",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "409", description = "Order was updated since the given Version",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many changes in progress",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
+    })
+    @ResponseBody
+    public ResponseEntity<Object> replaceOrder(@PathVariable(name = PARAM_ORDER_ID)
+                                               @Parameter(name = PARAM_ORDER_ID)
+                                               @NonNull final String id,
+                                               @org.springframework.web.bind.annotation.RequestBody
+                                               @Valid
+                                               @NonNull final OrderUpdateDto update) {
+        final OrderDto updated = this.writeLimiter.execute(() -> this.myService.updateOrder(id, update, true));
+        return ResponseEntity.status(HttpStatus.OK).body(updated);
+    }
+
+    @PatchMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}")
+    @Description(value = "Update some fields of an order")
+    @Operation(operationId = "orders.update", summary = "Update an Order", tags = {TAG_ORDERS})
+    @Parameters(value = {
+            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER),
+            @Parameter(name = PARAM_ORDER_ID, description = "ID of order to update", required = true, in = ParameterIn.PATH)
+    })
+    @RequestBody(required = true, description = "Order fields to change, and the Version they change",
+            content = @Content(schema = @Schema(implementation = OrderUpdateDto.class))
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated the order",
+                    content = @Content(schema = @Schema(implementation = OrderDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid Request Body"),
+            @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "404", description = "Order not found",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "409", description = "Order was updated since the given Version",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many changes in progress",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
+    })
+    @ResponseBody
+    public ResponseEntity<Object> patchOrder(@PathVariable(name = PARAM_ORDER_ID)
+                                             @Parameter(name = PARAM_ORDER_ID)
+                                             @NonNull final String id,
+                                             @org.springframework.web.bind.annotation.RequestBody
+                                             @Valid
+                                             @NonNull final OrderUpdateDto update) {
+        final OrderDto updated = this.writeLimiter.execute(() -> this.myService.updateOrder(id, update, false));
+        return ResponseEntity.status(HttpStatus.OK).body(updated);
+    }
 
     @DeleteMapping(path = ORDERS + "/{" + PARAM_ORDER_ID + "}")
     @Description(value = "Delete an order")
     @Operation(operationId = "orders.delete", summary = "Delete an Order from the orders list", tags = {TAG_ORDERS})
     @Parameters(value = {
+            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER),
             @Parameter(name = PARAM_ORDER_ID, description = "ID of order to delete", required = true, in = ParameterIn.PATH)
     })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully deleted an order",
                     content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
             @ApiResponse(responseCode = "404", description = "Order not found",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many changes in progress",
                     content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
     })
     @ResponseBody
     public ResponseEntity<Object> deleteOrder(@PathVariable(name = PARAM_ORDER_ID)
                                               @Parameter(name = PARAM_ORDER_ID)
                                               @NonNull final String id) {
-        this.myService.removeOrder(id);
+        this.writeLimiter.run(() -> this.myService.removeOrder(id));
         return ResponseEntity.status(HttpStatus.OK).body(
-                new ResponseMessageDto("Successfully deleted order #" + id));
+                new ResponseMessageDto(Constants.Messages.ORDER_DELETED + id));
+    }
+
+    @DeleteMapping(path = ORDERS)
+    @Description(value = "Delete the orders of a customer and/or placed in a time range")
+    @Operation(operationId = "orders.delete_bulk", summary = "Delete several Orders at once", tags = {TAG_ORDERS})
+    @Parameters(value = {
+            @Parameter(name = "token", description = "Token for authentication", required = true, in = ParameterIn.HEADER),
+            @Parameter(name = PARAM_CUSTOMER_ID, description = "ID of customer whose orders to delete", in = ParameterIn.QUERY),
+            @Parameter(name = PARAM_FROM, description = "Earliest timestamp to delete, in epoch milliseconds", in = ParameterIn.QUERY),
+            @Parameter(name = PARAM_TO, description = "Timestamp to delete up to, exclusive, in epoch milliseconds", in = ParameterIn.QUERY)
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully deleted the matching orders",
+                    content = @Content(schema = @Schema(implementation = OrderDeleteResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Missing filter, invalid customer ID or time range",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Not authorized",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many changes in progress",
+                    content = @Content(schema = @Schema(implementation = ResponseMessageDto.class)))
+    })
+    @ResponseBody
+    public ResponseEntity<Object> deleteOrders(@RequestParam(name = PARAM_CUSTOMER_ID, required = false)
+                                               @Nullable final String customerId,
+                                               @RequestParam(name = PARAM_FROM, required = false)
+                                               @Nullable final Long from,
+                                               @RequestParam(name = PARAM_TO, required = false)
+                                               @Nullable final Long to) {
+        final long deleted = this.writeLimiter.execute(() -> this.myService.removeOrders(customerId, from, to));
+        return ResponseEntity.status(HttpStatus.OK).body(new OrderDeleteResultDto(deleted));
     }
 
     /**
-     * check authorization header
+     * creates given order right away, or queues it with `async'
      */
     @NonNull
-    private String checkTokenHeader(@NonNull final String s) {
-        if (s.isEmpty()) {
-            return ("Missing Authorization Header");
+    private IdempotentResponse createOrder(@NonNull final OrderCreateDto order, final boolean async) {
+        if (async) {
+            return new IdempotentResponse(HttpStatus.ACCEPTED.value(), this.orderIngestor.accept(order), false);
         }
-        if (!s.equals(Constants.AUTH_TOKEN)) {
-            return ("Incorrect Authorization Header");
-        }
-        return Constants.OK;
+        return new IdempotentResponse(HttpStatus.CREATED.value(),
+                this.writeLimiter.execute(() -> this.myService.createOrder(order)), false);
+    }
+
+    /**
+     * writes each order to the response as soon as it is read, either as JSON array or as NDJSON
+     */
+    @NonNull
+    private StreamingResponseBody streamOrders(final boolean ndjson) {
+        return out -> {
+            if (!ndjson) {
+                out.write('[');
+            }
+            final boolean[] first = {true};
+            this.myService.forEachOrderSortedByTime(order -> {
+                try {
+                    if (!first[0] && !ndjson) {
+                        out.write(',');
+                    }
+                    this.orderWriter.writeOrder(order, out);
+                    if (ndjson) {
+                        out.write('\n');
+                    }
+                    // push the first row out right away, later rows leave whenever the buffers fill up
+                    if (first[0]) {
+                        first[0] = false;
+                        out.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            if (!ndjson) {
+                out.write(']');
+            }
+        };
     }
 }
@@ -0,0 +1,124 @@
+package com.ss.pizzeria.backend.rest.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes lists of {@link OrderDto} as a JSON array by copying the cached JSON of every order
+ * straight to the response, so each order is serialized once instead of on every request.
+ * Picked up by Spring Boot ahead of the default Jackson converter; every other type is left to Jackson.
+ * Streamed order lists write their orders through {@link #writeOrder} as they are read.
+ *
+ * @author Sneha
+ */
+@Component
+public class OrderListJsonConverter extends AbstractGenericHttpMessageConverter<List<OrderDto>> {
+
+    private static final ResolvableType ORDER_LIST = ResolvableType.forClassWithGenerics(List.class, OrderDto.class);
+
+    @NonNull
+    private final ObjectWriter orderWriter;
+
+    @NonNull
+    private final OrderJsonCache orderJsonCache;
+
+    /* a single instance, rather than a method reference per written order */
+    @NonNull
+    private final Function<OrderDto, byte[]> serializer = this::serialize;
+
+    public OrderListJsonConverter(@NonNull final ObjectMapper objectMapper, @NonNull final OrderJsonCache orderJsonCache) {
+        super(MediaType.APPLICATION_JSON);
+        this.orderWriter = objectMapper.writerFor(OrderDto.class);
+        this.orderJsonCache = orderJsonCache;
+    }
+
+    @Override
+    protected boolean supports(@NonNull final Class<?> clazz) {
+        // without generic type information a list could hold anything
+        return false;
+    }
+
+    @Override
+    public boolean canRead(@NonNull final Type type, @Nullable final Class<?> contextClass,
+                           @Nullable final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable final Type type, @NonNull final Class<?> clazz,
+                            @Nullable final MediaType mediaType) {
+        return type != null && ORDER_LIST.isAssignableFrom(ResolvableType.forType(type)) && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(@NonNull final List<OrderDto> orders, @Nullable final Type type,
+                                 @NonNull final HttpOutputMessage outputMessage) throws IOException {
+        final OutputStream out = outputMessage.getBody();
+        out.write('[');
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            try {
+                writeOrder(orders.get(i), out);
+            } catch (UncheckedIOException ex) {
+                throw new HttpMessageNotWritableException("Could not write order: " + ex.getMessage(), ex);
+            }
+        }
+        out.write(']');
+    }
+
+    /**
+     * writes the cached JSON of given order, serializing it first on a miss.
+     * Fails with an UncheckedIOException when the order cannot be serialized.
+     */
+    public void writeOrder(@NonNull final OrderDto order, @NonNull final OutputStream out) throws IOException {
+        out.write(this.orderJsonCache.get(order, this.serializer));
+    }
+
+    @Override
+    @NonNull
+    public List<OrderDto> read(@NonNull final Type type, @Nullable final Class<?> contextClass,
+                               @NonNull final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Order lists are never read by this converter", inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected List<OrderDto> readInternal(@NonNull final Class<? extends List<OrderDto>> clazz,
+                                          @NonNull final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Order lists are never read by this converter", inputMessage);
+    }
+
+    /**
+     * serializes one order the same way the Jackson converter would
+     */
+    @NonNull
+    private byte[] serialize(@NonNull final OrderDto order) {
+        try {
+            return this.orderWriter.writeValueAsBytes(order);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
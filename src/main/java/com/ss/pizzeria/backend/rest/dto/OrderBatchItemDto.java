@@ -0,0 +1,30 @@
+package com.ss.pizzeria.backend.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Outcome of one {@link OrderCreateDto} of a batch, either the created order or the reason it was not created
+ * @author Sneha
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderBatchItemDto {
+
+    @Schema(description = "Created order, absent when the order was not created")
+    @JsonProperty("Order")
+    @Nullable
+    private OrderDto order;
+
+    @Schema(description = "Reason the order was not created")
+    @JsonProperty("Error")
+    @Nullable
+    private String error;
+}
@@ -0,0 +1,27 @@
+package com.ss.pizzeria.backend.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch of {@link OrderCreateDto}s, one item per requested order in request order
+ * @author Sneha
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResultDto {
+
+    @Schema(description = "Number of created orders")
+    @JsonProperty("Created")
+    private int created;
+
+    @Schema(description = "Outcome of each requested order, in request order")
+    @JsonProperty("Items")
+    private List<OrderBatchItemDto> items;
+}
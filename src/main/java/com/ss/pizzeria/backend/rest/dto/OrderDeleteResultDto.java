@@ -0,0 +1,21 @@
+package com.ss.pizzeria.backend.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk delete of orders
+ * @author Sneha
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDeleteResultDto {
+
+    @Schema(description = "Number of deleted orders")
+    @JsonProperty("Deleted")
+    private long deleted;
+}
@@ -5,7 +5,9 @@ import com.ss.pizzeria.backend.data.model.Order;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 
 /**
  * DTO for {@link Order}
@@ -13,6 +15,8 @@ import lombok.NonNull;
  */
 @EqualsAndHashCode(callSuper = true)
 @Data
+@NoArgsConstructor
+@RequiredArgsConstructor
 public class OrderDto extends OrderCreateDto {
 
     @Schema(description = "Id of the order")
@@ -25,4 +29,8 @@ public class OrderDto extends OrderCreateDto {
     @NonNull
     private Long timestamp;
 
+    @Schema(description = "Version of the order, to be passed back when updating it")
+    @JsonProperty("Version")
+    private long version;
+
 }
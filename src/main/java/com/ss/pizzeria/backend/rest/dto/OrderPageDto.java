@@ -0,0 +1,29 @@
+package com.ss.pizzeria.backend.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * One page of {@link OrderDto}s, sorted by timestamp
+ * @author Sneha
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDto {
+
+    @Schema(description = "Orders of this page")
+    @JsonProperty("Orders")
+    private List<OrderDto> orders;
+
+    @Schema(description = "Cursor to pass as 'after' for the next page, absent on the last page")
+    @JsonProperty("Next_Cursor")
+    @Nullable
+    private String nextCursor;
+}
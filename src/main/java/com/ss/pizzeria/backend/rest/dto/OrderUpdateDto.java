@@ -0,0 +1,49 @@
+package com.ss.pizzeria.backend.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Update of an {@link Order}, fields left out keep their value when patching
+ * @author Sneha
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderUpdateDto {
+
+    @Schema(description = "Crust for the pizza")
+    @JsonProperty("Crust")
+    private Pizza.Crust crust;
+
+    @Schema(description = "Flavor of the pizza")
+    @JsonProperty("Flavor")
+    private Pizza.Flavour flavour;
+
+    @Schema(description = "Size of the pizza")
+    @JsonProperty("Size")
+    private Pizza.Size size;
+
+    @Schema(description = "Customer's table number")
+    @JsonProperty("Table_No")
+    private Integer tableNo;
+
+    @Schema(description = "Version of the order the update is based on", required = true)
+    @JsonProperty("Version")
+    @NotNull
+    private Long version;
+
+    /**
+     * tells whether every field of the order is given, as a replacement needs
+     */
+    public boolean isComplete() {
+        return this.crust != null && this.flavour != null && this.size != null && this.tableNo != null;
+    }
+}
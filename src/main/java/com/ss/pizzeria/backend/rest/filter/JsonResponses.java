@@ -0,0 +1,46 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.rest.dto.ResponseMessageDto;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Responses written by the filters themselves, with bodies serialized once up front
+ *
+ * @author Sneha
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class JsonResponses {
+
+    /**
+     * serializes given message the way the controllers answer it
+     */
+    @NonNull
+    static byte[] message(@NonNull final ObjectMapper objectMapper, @NonNull final String message) {
+        try {
+            return objectMapper.writeValueAsBytes(new ResponseMessageDto(message));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * answers with given status and serialized body, leaving the request body unread
+     */
+    static void send(@NonNull final HttpServletResponse response, @NonNull final HttpStatus status,
+                     @NonNull final byte[] body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
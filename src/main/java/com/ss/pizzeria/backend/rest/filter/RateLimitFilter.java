@@ -0,0 +1,80 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of requests per client, answering 429 with a Retry-After once its bucket is empty.
+ * <p>
+ * A client is its token, once the token filter verified it, so a tablet keeps its own budget whatever its address.
+ * Requests without a verified token are limited by their remote address instead, so made-up tokens gain nothing.
+ * Runs right after the token filter, before anything reads the request.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "pizzeria.rate-limit.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String TOKEN_CLIENT = "token:";
+    private static final String ADDRESS_CLIENT = "address:";
+
+    @NonNull
+    private final RateLimiter rateLimiter;
+
+    @NonNull
+    private final byte[] tooManyRequests;
+
+    @Autowired
+    public RateLimitFilter(@Value("${pizzeria.rate-limit.capacity:20}") final int capacity,
+                           @Value("${pizzeria.rate-limit.per-second:10}") final double perSecond,
+                           @Value("${pizzeria.rate-limit.idle-timeout:10m}") @NonNull final Duration idleTimeout,
+                           @Value("${pizzeria.rate-limit.max-clients:100000}") final long maxClients,
+                           @NonNull final ObjectMapper objectMapper) {
+        this(new RateLimiter(capacity, perSecond, idleTimeout, maxClients), objectMapper);
+    }
+
+    RateLimitFilter(@NonNull final RateLimiter rateLimiter, @NonNull final ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.tooManyRequests = JsonResponses.message(objectMapper, Constants.Messages.TOO_MANY_REQUESTS);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull final HttpServletRequest request,
+                                    @NonNull final HttpServletResponse response,
+                                    @NonNull final FilterChain chain) throws ServletException, IOException {
+        final Object token = request.getAttribute(TokenAuthenticationFilter.VERIFIED_TOKEN);
+        final String client = token != null ? TOKEN_CLIENT + token : ADDRESS_CLIENT + request.getRemoteAddr();
+        final long wait = this.rateLimiter.tryAcquire(client);
+        if (wait > 0) {
+            log.debug("Rate limited {} {}", request.getMethod(), request.getRequestURI());
+            // whole seconds, rounded up so a retry right on time finds a token
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(
+                    (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+            JsonResponses.send(response, HttpStatus.TOO_MANY_REQUESTS, this.tooManyRequests);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client, holding up to `capacity' requests and refilled at `per-second' requests a second.
+ * <p>
+ * A bucket is a single AtomicLong: the time at which it will be full again (the generic cell rate algorithm).
+ * Taking a token adds one refill interval to that time with a compare-and-set, so there is no lock and no
+ * refill thread, and clients never contend with each other. Buckets live in a bounded Caffeine map, striped
+ * internally, and are evicted once idle, when they would be full again anyway.
+ *
+ * @author Sneha
+ */
+public class RateLimiter {
+
+    /* nanos to refill one token */
+    private final long interval;
+
+    /* nanos to refill a whole bucket, how far ahead the full time may run */
+    private final long burst;
+
+    @NonNull
+    private final LongSupplier nanoTime;
+
+    /* client key to the nanoTime at which its bucket is full */
+    @NonNull
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(final int capacity, final double perSecond, @NonNull final Duration idleTimeout,
+                       final long maxClients) {
+        this(capacity, perSecond, idleTimeout, maxClients, System::nanoTime);
+    }
+
+    RateLimiter(final int capacity, final double perSecond, @NonNull final Duration idleTimeout,
+                final long maxClients, @NonNull final LongSupplier nanoTime) {
+        if (capacity < 1 || !(perSecond > 0)) {
+            throw new IllegalArgumentException("Rate limit needs a capacity and a refill rate above 0");
+        }
+        this.interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / perSecond));
+        this.burst = capacity * this.interval;
+        this.nanoTime = nanoTime;
+        // a bucket idle for longer than a refill is full, and the same as a new one
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout.compareTo(Duration.ofNanos(this.burst)) < 0
+                        ? Duration.ofNanos(this.burst) : idleTimeout)
+                .build();
+    }
+
+    /**
+     * takes a token from the bucket of given client, returns 0 when taken,
+     * otherwise the nanos until the next token is available
+     */
+    public long tryAcquire(@NonNull final String client) {
+        final AtomicLong bucket = this.buckets.get(client, key -> new AtomicLong(this.nanoTime.getAsLong()));
+        while (true) {
+            final long now = this.nanoTime.getAsLong();
+            final long fullAt = bucket.get();
+            // overflow safe, as nanoTime values may only be compared by their difference
+            final long next = (fullAt - now < 0 ? now : fullAt) + this.interval;
+            final long wait = next - now - this.burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * number of clients with a bucket, evicted ones may still be counted until the next cleanup
+     */
+    public long clients() {
+        return this.buckets.estimatedSize();
+    }
+}
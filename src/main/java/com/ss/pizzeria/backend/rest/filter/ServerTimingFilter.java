@@ -0,0 +1,81 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.RequestTiming;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers timed requests with a Server-Timing header, breaking their time down into the token check,
+ * the repository calls, the mapping of entities to DTOs and the serialization of the body.
+ * <p>
+ * Every request is timed while `pizzeria.server-timing.enabled' is set, otherwise only those with the header
+ * `Request-Timing: true', unless `pizzeria.server-timing.on-request' is unset. Runs before the token filter,
+ * so the token check is timed as well. Requests which are not timed are passed on as they are.
+ * <p>
+ * Timed bodies are held in memory, up to `pizzeria.server-timing.max-held-back' each, so enabling it for every
+ * request is meant for diagnosing a test system, not for production traffic.
+ *
+ * @author Sneha
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+
+    private final boolean onRequest;
+
+    private final int maxHeldBack;
+
+    public ServerTimingFilter(@Value("${pizzeria.server-timing.enabled:false}") final boolean enabled,
+                              @Value("${pizzeria.server-timing.on-request:true}") final boolean onRequest,
+                              @Value("${pizzeria.server-timing.max-held-back:64KB}")
+                              @NonNull final DataSize maxHeldBack) {
+        this.enabled = enabled;
+        this.onRequest = onRequest;
+        this.maxHeldBack = Math.toIntExact(maxHeldBack.toBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull final HttpServletRequest request) {
+        return !this.enabled
+                && !(this.onRequest && Boolean.parseBoolean(request.getHeader(Constants.Headers.REQUEST_TIMING)));
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // the async dispatch completes the response held back by the initial one
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull final HttpServletRequest request,
+                                    @NonNull final HttpServletResponse response,
+                                    @NonNull final FilterChain chain) throws ServletException, IOException {
+        final ServerTimingResponse dispatched = WebUtils.getNativeResponse(response, ServerTimingResponse.class);
+        final ServerTimingResponse timed = dispatched != null ? dispatched
+                : new ServerTimingResponse(response, request, new RequestTiming(), this.maxHeldBack);
+        timed.getTiming().attach();
+        try {
+            chain.doFilter(request, dispatched != null ? response : timed);
+        } finally {
+            RequestTiming.detach();
+        }
+        if (!request.isAsyncStarted()) {
+            timed.complete();
+        }
+    }
+}
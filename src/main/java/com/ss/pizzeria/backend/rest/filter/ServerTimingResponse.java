@@ -0,0 +1,213 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.RequestTiming;
+import org.springframework.lang.NonNull;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Response of a timed request, holding back its body until the Server-Timing header can be set.
+ * <p>
+ * The body is kept in memory until the request completes, so the header covers its serialization too.
+ * Flushing has no effect meanwhile, as the message converters flush every body they write. Only a body written
+ * after the request went async, like a streamed export, is sent at its first flush, with the phases timed so far.
+ * So is a body growing past the held back maximum, and one written in non-blocking mode, once given a listener.
+ *
+ * @author Sneha
+ */
+final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+    @NonNull
+    private final HttpServletRequest request;
+
+    @NonNull
+    private final RequestTiming timing;
+
+    /* body held back, written to the response once sent */
+    @NonNull
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    /* bytes of the body held back at most, a larger body is sent without waiting for its serialization */
+    private final int maxHeldBack;
+
+    /* the async thread of a streamed body may send the response */
+    private volatile boolean sent;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    ServerTimingResponse(@NonNull final HttpServletResponse response, @NonNull final HttpServletRequest request,
+                         @NonNull final RequestTiming timing, final int maxHeldBack) {
+        super(response);
+        this.request = request;
+        this.timing = timing;
+        this.maxHeldBack = maxHeldBack;
+    }
+
+    @NonNull
+    RequestTiming getTiming() {
+        return this.timing;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (this.outputStream == null) {
+            this.outputStream = new HeldBackOutputStream();
+        }
+        return this.outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (this.writer == null) {
+            this.writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return this.writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (this.request.isAsyncStarted()) {
+            send();
+        }
+        if (this.sent) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (!this.sent) {
+            this.body.reset();
+        }
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        if (!this.sent) {
+            this.body.reset();
+        }
+        super.reset();
+    }
+
+    @Override
+    public void sendError(final int status) throws IOException {
+        sendHeader();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(final int status, final String message) throws IOException {
+        sendHeader();
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(final String location) throws IOException {
+        sendHeader();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * ends the serialization, then sends the header and the body held back, unless already sent
+     */
+    void complete() throws IOException {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+        this.timing.serialized();
+        send();
+    }
+
+    private synchronized void send() throws IOException {
+        if (this.sent) {
+            return;
+        }
+        sendHeader();
+        if (this.body.size() > 0) {
+            this.body.writeTo(getResponse().getOutputStream());
+        }
+    }
+
+    /**
+     * sets the header, from now on the body goes straight to the response
+     */
+    private synchronized void sendHeader() {
+        if (this.sent) {
+            return;
+        }
+        this.sent = true;
+        if (!isCommitted()) {
+            setHeader(Constants.Headers.SERVER_TIMING, this.timing.header());
+        }
+    }
+
+    /**
+     * writes to the body held back until sent, then to the response
+     */
+    private final class HeldBackOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (!sent && body.size() + 1 > maxHeldBack) {
+                send();
+            }
+            if (sent) {
+                getResponse().getOutputStream().write(b);
+            } else {
+                body.write(b);
+            }
+        }
+
+        @Override
+        public void write(@NonNull final byte[] bytes, final int offset, final int length) throws IOException {
+            if (!sent && body.size() + length > maxHeldBack) {
+                send();
+            }
+            if (sent) {
+                getResponse().getOutputStream().write(bytes, offset, length);
+            } else {
+                body.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+        }
+
+        @Override
+        public boolean isReady() {
+            if (!sent) {
+                return true;
+            }
+            try {
+                return getResponse().getOutputStream().isReady();
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            // what was written so far goes out before the response turns non-blocking, the rest straight after
+            try {
+                send();
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException ex) {
+                writeListener.onError(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.RequestTiming;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Checks the JWT in the `token' header of every request which changes data, before anything else
+ * reads the request, so unauthorized requests are rejected without parsing or validating their body.
+ * <p>
+ * Every POST, PUT, PATCH and DELETE needs a token, except logging in. Unknown paths need a token too,
+ * so no spelling of a path slips through.
+ * Rejections are counted as `pizzeria.errors', once the meter registry has bound the filter.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TokenAuthenticationFilter extends OncePerRequestFilter implements MeterBinder {
+
+    /* name of the header holding the token */
+    public static final String TOKEN_HEADER = Constants.Headers.TOKEN;
+
+    /* request attribute holding the token once verified */
+    public static final String VERIFIED_TOKEN = TokenAuthenticationFilter.class.getName() + ".verifiedToken";
+
+    private static final String LOGIN_PATH = Constants.Paths.API + Constants.Paths.AUTH;
+
+    @NonNull
+    private final JwtTokens jwtTokens;
+
+    /* response bodies are written as they are, never serialized per request */
+    @NonNull
+    private final byte[] missingToken;
+
+    @NonNull
+    private final byte[] incorrectToken;
+
+    /* counters of the rejections, null until bound, e.g. in tests without metrics */
+    @Nullable
+    private volatile Counter missingTokens;
+
+    @Nullable
+    private volatile Counter incorrectTokens;
+
+    public TokenAuthenticationFilter(@NonNull final JwtTokens jwtTokens, @NonNull final ObjectMapper objectMapper) {
+        this.jwtTokens = jwtTokens;
+        this.missingToken = JsonResponses.message(objectMapper, Constants.Messages.MISSING_TOKEN);
+        this.incorrectToken = JsonResponses.message(objectMapper, Constants.Messages.INCORRECT_TOKEN);
+    }
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        this.missingTokens = rejections(registry, "missing_token");
+        this.incorrectTokens = rejections(registry, "incorrect_token");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull final HttpServletRequest request) {
+        final HttpMethod method = HttpMethod.resolve(request.getMethod());
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD
+                || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE) {
+            return true;
+        }
+        final String path = trimTrailingSlashes(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        return method == HttpMethod.POST && path.equals(LOGIN_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull final HttpServletRequest request,
+                                    @NonNull final HttpServletResponse response,
+                                    @NonNull final FilterChain chain) throws ServletException, IOException {
+        final String token = request.getHeader(TOKEN_HEADER);
+        if (token == null || token.isEmpty()) {
+            increment(this.missingTokens);
+            JsonResponses.send(response, HttpStatus.UNAUTHORIZED, this.missingToken);
+            return;
+        }
+        final long start = RequestTiming.start();
+        final boolean verified = this.jwtTokens.verify(token);
+        RequestTiming.stop(RequestTiming.Phase.AUTH, start);
+        if (!verified) {
+            increment(this.incorrectTokens);
+            JsonResponses.send(response, HttpStatus.UNAUTHORIZED, this.incorrectToken);
+            return;
+        }
+        request.setAttribute(VERIFIED_TOKEN, token);
+        chain.doFilter(request, response);
+    }
+
+    @NonNull
+    private static Counter rejections(@NonNull final MeterRegistry registry, @NonNull final String reason) {
+        return Counter.builder(Constants.Metrics.ERRORS)
+                .description("Requests answered with an error")
+                .tag(Constants.Metrics.STATUS, String.valueOf(HttpStatus.UNAUTHORIZED.value()))
+                .tag(Constants.Metrics.REASON, reason)
+                .register(registry);
+    }
+
+    private static void increment(@Nullable final Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @NonNull
+    private static String trimTrailingSlashes(@NonNull final String path) {
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(0, end);
+    }
+}
@@ -1,38 +1,114 @@
 package com.ss.pizzeria.backend.rest.handler;
 
+import com.ss.pizzeria.backend.Constants;
 import com.ss.pizzeria.backend.rest.dto.ResponseMessageDto;
+import com.ss.pizzeria.backend.service.IdempotencyKeyReusedException;
+import com.ss.pizzeria.backend.service.InvalidRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Rest Exception Handler for all Exceptions
+ * <p>
+ * Every error response is counted as `pizzeria.errors', tagged with its status and the simple name of the exception,
+ * once the meter registry has bound the handler.
  * @author Sneha
  */
 @Slf4j
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @ControllerAdvice
-public class RestExceptionHandler extends ResponseEntityExceptionHandler {
+public class RestExceptionHandler extends ResponseEntityExceptionHandler implements MeterBinder {
+
+    /* null until bound, e.g. in tests without metrics */
+    @Nullable
+    private volatile MeterRegistry registry;
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers, HttpStatus status, WebRequest request) {
+        count(status, ex);
+        return super.handleExceptionInternal(ex, body, headers, status, request);
+    }
 
     @Override
     protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
         log.info(ex.getMessage());
+        count(HttpStatus.BAD_REQUEST, ex);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseMessageDto(status.getReasonPhrase()+" >> "+ex.getMessage()));
     }
 
     @ExceptionHandler(NoSuchElementException.class)
     protected ResponseEntity<ResponseMessageDto> handleNoSuchElementException (NoSuchElementException ex) {
         log.info(ex.getMessage());
+        count(HttpStatus.NOT_FOUND, ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ResponseMessageDto(ex.getMessage()));
     }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    protected ResponseEntity<ResponseMessageDto> handleInvalidRequestException (InvalidRequestException ex) {
+        log.info(ex.getMessage());
+        count(HttpStatus.BAD_REQUEST, ex);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<ResponseMessageDto> handleOptimisticLockingFailureException (OptimisticLockingFailureException ex) {
+        log.info(ex.getMessage());
+        count(HttpStatus.CONFLICT, ex);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    protected ResponseEntity<ResponseMessageDto> handleIdempotencyKeyReusedException (IdempotencyKeyReusedException ex) {
+        log.info(ex.getMessage());
+        count(HttpStatus.UNPROCESSABLE_ENTITY, ex);
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    protected ResponseEntity<ResponseMessageDto> handleCannotCreateTransactionException (CannotCreateTransactionException ex) {
+        // no connection in time, or turned away by the guard of the connections
+        log.warn("{}: {}", ex.getMessage(), ex.getMostSpecificCause().getMessage());
+        count(HttpStatus.SERVICE_UNAVAILABLE, ex);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ResponseMessageDto(Constants.Messages.DATABASE_BUSY));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    protected ResponseEntity<ResponseMessageDto> handleRejectedExecutionException (RejectedExecutionException ex) {
+        log.info(ex.getMessage());
+        count(HttpStatus.SERVICE_UNAVAILABLE, ex);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ResponseMessageDto(ex.getMessage()));
+    }
+
+    private void count(@NonNull final HttpStatus status, @NonNull final Exception ex) {
+        final MeterRegistry meters = this.registry;
+        if (meters != null) {
+            meters.counter(Constants.Metrics.ERRORS, Constants.Metrics.STATUS, String.valueOf(status.value()),
+                    Constants.Metrics.REASON, ex.getClass().getSimpleName()).increment();
+        }
+    }
 }
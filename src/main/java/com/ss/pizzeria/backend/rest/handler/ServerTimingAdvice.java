@@ -0,0 +1,38 @@
+package com.ss.pizzeria.backend.rest.handler;
+
+import com.ss.pizzeria.backend.RequestTiming;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks the start of the serialization of every response body, which the Server-Timing header reports
+ * once the body is written.
+ *
+ * @author Sneha
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(@NonNull final MethodParameter returnType,
+                            @NonNull final Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    @Nullable
+    public Object beforeBodyWrite(@Nullable final Object body, @NonNull final MethodParameter returnType,
+                                  @NonNull final MediaType selectedContentType,
+                                  @NonNull final Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NonNull final ServerHttpRequest request, @NonNull final ServerHttpResponse response) {
+        RequestTiming.serializing();
+        return body;
+    }
+}
@@ -0,0 +1,166 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.Constants;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit of the writes running at once (AIMD), shedding the excess right away instead of letting it
+ * queue up for database connections.
+ * <p>
+ * Every write taking longer than `latency-threshold' cuts the limit by `backoff', at most once per threshold,
+ * since the writes in flight then were all slowed down by the same cause. Every faster write adds 1/limit,
+ * so the limit grows by one per limit's worth of writes, but only while writes actually use most of it.
+ * Writes over the limit fail with a RejectedExecutionException, answered by a 503 and a Retry-After.
+ * <p>
+ * The limit and the writes in flight are published as the gauges `pizzeria.writes.limit' and
+ * `pizzeria.writes.in.flight', the rejections as the counter `pizzeria.writes.rejected'.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Component
+@ManagedResource(objectName = "pizzeria:name=ConcurrencyLimiter", description = "Adaptive limit of concurrent writes")
+public class ConcurrencyLimiter implements MeterBinder {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long thresholdNanos;
+
+    private final double backoff;
+
+    @NonNull
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /* guarded by this, read without a lock */
+    private volatile double limit;
+
+    /* guarded by this */
+    private long lastDecrease;
+
+    @Autowired
+    public ConcurrencyLimiter(@Value("${pizzeria.writes.concurrency.initial-limit:20}") final int initialLimit,
+                              @Value("${pizzeria.writes.concurrency.min-limit:2}") final int minLimit,
+                              @Value("${pizzeria.writes.concurrency.max-limit:200}") final int maxLimit,
+                              @Value("${pizzeria.writes.concurrency.latency-threshold:200ms}")
+                              @NonNull final Duration latencyThreshold,
+                              @Value("${pizzeria.writes.concurrency.backoff:0.9}") final double backoff) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold, backoff, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit,
+                       @NonNull final Duration latencyThreshold, final double backoff,
+                       @NonNull final LongSupplier nanoTime) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || !(backoff > 0 && backoff < 1)) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max, "
+                    + "and backoff must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.thresholdNanos = latencyThreshold.toNanos();
+        this.backoff = backoff;
+        this.nanoTime = nanoTime;
+        this.limit = initialLimit;
+        this.lastDecrease = nanoTime.getAsLong() - this.thresholdNanos;
+    }
+
+    /**
+     * runs given write unless the limit is reached, in which case it throws a RejectedExecutionException
+     */
+    public <T> T execute(@NotNull final Supplier<T> write) {
+        int running;
+        do {
+            running = this.inFlight.get();
+            if (running >= (int) this.limit) {
+                this.rejected.increment();
+                throw new RejectedExecutionException(Constants.Messages.OVERLOADED);
+            }
+        } while (!this.inFlight.compareAndSet(running, running + 1));
+        final long start = this.nanoTime.getAsLong();
+        try {
+            return write.get();
+        } finally {
+            this.inFlight.decrementAndGet();
+            // failed writes count as well, a timeout is the clearest sign of overload
+            onSample(this.nanoTime.getAsLong() - start, running + 1);
+        }
+    }
+
+    /**
+     * runs given write unless the limit is reached, in which case it throws a RejectedExecutionException
+     */
+    public void run(@NotNull final Runnable write) {
+        execute(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        Gauge.builder("pizzeria.writes.limit", this, ConcurrencyLimiter::getLimit)
+                .description("Writes allowed to run at once")
+                .register(registry);
+        Gauge.builder("pizzeria.writes.in.flight", this, ConcurrencyLimiter::getInFlight)
+                .description("Writes running now")
+                .register(registry);
+        FunctionCounter.builder("pizzeria.writes.rejected", this, ConcurrencyLimiter::getRejected)
+                .description("Writes rejected over the limit")
+                .register(registry);
+    }
+
+    @ManagedAttribute(description = "Writes allowed to run at once")
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    @ManagedAttribute(description = "Writes running now")
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    @ManagedAttribute(description = "Writes rejected since the start")
+    public long getRejected() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * adapts the limit to the latency of a write, which ran with given number of writes in flight
+     */
+    private synchronized void onSample(final long latency, final int running) {
+        final double current = this.limit;
+        if (latency > this.thresholdNanos) {
+            final long now = this.nanoTime.getAsLong();
+            if (now - this.lastDecrease >= this.thresholdNanos) {
+                this.lastDecrease = now;
+                this.limit = Math.max(this.minLimit, current * this.backoff);
+                log.debug("Write took {}ms, concurrency limit lowered to {}", latency / 1_000_000, getLimit());
+            }
+        } else if (running * 2 >= current) {
+            this.limit = Math.min(this.maxLimit, current + 1 / current);
+        }
+    }
+}
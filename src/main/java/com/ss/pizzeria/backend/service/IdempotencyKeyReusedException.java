@@ -0,0 +1,21 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.Constants;
+
+/**
+ * Thrown when an Idempotency-Key comes back with another request body than the one it was first used with.
+ * Reused keys come from clients, not from bugs, so the exception skips capturing a stack trace.
+ *
+ * @author Sneha
+ */
+public class IdempotencyKeyReusedException extends IllegalStateException {
+
+    public IdempotencyKeyReusedException() {
+        super(Constants.Messages.IDEMPOTENCY_KEY_REUSED);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ss.pizzeria.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ss.pizzeria.backend.data.dao.IdempotencyKeyRepository;
+import com.ss.pizzeria.backend.data.model.IdempotencyKey;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.constraints.NotNull;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs requests carrying an Idempotency-Key at most once per client and key, and replays the stored response
+ * to repeats. A key is scoped by the client's token, so clients never see each other's responses, and is bound
+ * to the body it was first used with: a repeat with another body fails with an IdempotencyKeyReusedException.
+ * <p>
+ * Keys live in a bounded, expiring map of pending and completed responses, so concurrent duplicates wait for
+ * the first request instead of running again. Completed responses are also stored in a table, in the same
+ * transaction as the request's own writes, so a key outlives a restart and is shared by every instance.
+ * Failed requests are not stored, and may be retried with the same key.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Component
+public class IdempotentRequests {
+
+    @NonNull
+    private final IdempotencyKeyRepository keyRepos;
+
+    @NonNull
+    private final TransactionTemplate transactionTemplate;
+
+    @NonNull
+    private final ObjectMapper objectMapper;
+
+    @NonNull
+    private final Duration ttl;
+
+    /* pending and completed requests by the digest of their client and key */
+    @NonNull
+    private final ConcurrentMap<String, Attempt> responses;
+
+    public IdempotentRequests(@NonNull final IdempotencyKeyRepository keyRepos,
+                              @NonNull final PlatformTransactionManager transactionManager,
+                              @NonNull final ObjectMapper objectMapper,
+                              @Value("${pizzeria.idempotency.max-size:100000}") final long maxSize,
+                              @Value("${pizzeria.idempotency.ttl:24h}") @NonNull final Duration ttl) {
+        this.keyRepos = keyRepos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        final Cache<String, Attempt> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.responses = cache.asMap();
+    }
+
+    /**
+     * returns the response stored for given client and key, or runs given request and stores its response.
+     * The body is the parsed request body, its JSON is what binds the key.
+     */
+    @NotNull
+    public IdempotentResponse execute(@NotNull final String client, @NotNull final String key,
+                                      @NotNull final Object body, @NotNull final Supplier<IdempotentResponse> request) {
+        final String id = RequestDigests.ofKey(client, key);
+        final Attempt mine = new Attempt(RequestDigests.of(toJsonBytes(body)), new CompletableFuture<>());
+        final Attempt pending = this.responses.putIfAbsent(id, mine);
+        if (pending != null) {
+            checkSameRequest(pending.getRequestHash(), mine.getRequestHash());
+            return await(pending.getResponse()).asReplayed();
+        }
+        try {
+            final IdempotentResponse response = load(id, mine.getRequestHash()).map(IdempotentResponse::asReplayed)
+                    .orElseGet(() -> run(id, mine.getRequestHash(), request));
+            mine.getResponse().complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            this.responses.remove(id, mine);
+            mine.getResponse().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * deletes the stored keys which have expired
+     */
+    @Scheduled(initialDelayString = "${pizzeria.idempotency.purge-interval:PT1H}",
+            fixedDelayString = "${pizzeria.idempotency.purge-interval:PT1H}")
+    public int purgeExpired() {
+        final int purged = this.keyRepos.deleteCreatedBefore(System.currentTimeMillis() - this.ttl.toMillis());
+        log.debug("Purged {} expired idempotency keys", purged);
+        return purged;
+    }
+
+    /**
+     * runs given request and stores its response in one transaction.
+     * When another instance stored the key first, its response wins and this request is rolled back.
+     */
+    @NotNull
+    private IdempotentResponse run(@NotNull final String id, @NotNull final String requestHash,
+                                   @NotNull final Supplier<IdempotentResponse> request) {
+        try {
+            return this.transactionTemplate.execute(status -> {
+                final IdempotentResponse response = request.get();
+                this.keyRepos.saveAndFlush(new IdempotencyKey(id, requestHash, response.getStatus(),
+                        toJson(response.getOrder()), System.currentTimeMillis()));
+                return response;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            return load(id, requestHash).map(IdempotentResponse::asReplayed).orElseThrow(() -> ex);
+        }
+    }
+
+    /**
+     * reads the response stored for given key, an expired key is deleted so it can be used again.
+     * Throws an IdempotencyKeyReusedException when the key was stored for another request.
+     */
+    @NotNull
+    private Optional<IdempotentResponse> load(@NotNull final String id, @NotNull final String requestHash) {
+        final Optional<IdempotencyKey> stored = this.keyRepos.findById(id);
+        final long cutoff = System.currentTimeMillis() - this.ttl.toMillis();
+        if (stored.isPresent() && stored.get().getCreatedAt() < cutoff) {
+            // conditional, the entity is never taken for an existing one by deleteById()
+            this.keyRepos.deleteExpired(id, cutoff);
+            return Optional.empty();
+        }
+        stored.ifPresent(row -> checkSameRequest(row.getRequestHash(), requestHash));
+        return stored.map(row -> new IdempotentResponse(row.getStatus(), fromJson(row.getBody()), false));
+    }
+
+    /**
+     * throws an IdempotencyKeyReusedException unless both requests have the same body
+     */
+    private static void checkSameRequest(@NotNull final String firstHash, @NotNull final String requestHash) {
+        if (!firstHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+    }
+
+    /**
+     * waits for the response of the first request with the same key, rethrowing its failure
+     */
+    @NotNull
+    private static IdempotentResponse await(@NotNull final CompletableFuture<IdempotentResponse> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    @NotNull
+    private String toJson(@NotNull final OrderDto order) {
+        try {
+            return this.objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @NotNull
+    private byte[] toJsonBytes(@NotNull final Object body) {
+        try {
+            return this.objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @NotNull
+    private OrderDto fromJson(@NotNull final String json) {
+        try {
+            return this.objectMapper.readValue(json, OrderDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * a request in progress or completed, with the digest of its body
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Attempt {
+        private final String requestHash;
+        private final CompletableFuture<IdempotentResponse> response;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import lombok.Value;
+
+/**
+ * Response to a request carrying an Idempotency-Key, either fresh or replayed from an earlier request
+ *
+ * @author Sneha
+ */
+@Value
+public class IdempotentResponse {
+
+    int status;
+
+    OrderDto order;
+
+    /* whether the response was stored by an earlier request with the same key */
+    boolean replayed;
+
+    /**
+     * this response as seen by a repeated request
+     */
+    public IdempotentResponse asReplayed() {
+        return this.replayed ? this : new IdempotentResponse(this.status, this.order, true);
+    }
+}
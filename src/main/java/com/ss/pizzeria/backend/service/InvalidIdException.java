@@ -0,0 +1,39 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.Constants;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Thrown for ids which are not a positive number.
+ *
+ * @author Sneha
+ */
+public class InvalidIdException extends InvalidRequestException {
+
+    private static final String MAX_ID = Long.toString(Long.MAX_VALUE);
+
+    public InvalidIdException(@NotNull final String id) {
+        super(Constants.Messages.INVALID_ID + id);
+    }
+
+    /**
+     * parses given id without throwing a NumberFormatException for invalid input
+     */
+    public static long parse(@NotNull final String id) {
+        final int length = id.length();
+        if (length == 0 || length > MAX_ID.length()) {
+            throw new InvalidIdException(id);
+        }
+        for (int i = 0; i < length; i++) {
+            final char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new InvalidIdException(id);
+            }
+        }
+        if (length == MAX_ID.length() && id.compareTo(MAX_ID) > 0) {
+            throw new InvalidIdException(id);
+        }
+        return Long.parseLong(id);
+    }
+}
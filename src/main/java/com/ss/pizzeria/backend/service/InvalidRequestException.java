@@ -0,0 +1,22 @@
+package com.ss.pizzeria.backend.service;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Thrown for request values a client got wrong, like a cursor, a limit or a missing field, and answered with 400.
+ * Other IllegalArgumentExceptions are bugs, and stay server errors. Bad input is no bug,
+ * so the exception skips capturing a stack trace.
+ *
+ * @author Sneha
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(@NotNull final String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
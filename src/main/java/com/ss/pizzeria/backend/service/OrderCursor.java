@@ -0,0 +1,52 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.data.model.OrderView;
+import lombok.Value;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of an order in the (timestamp, id) ordering, passed to clients as an opaque string.
+ *
+ * @author Sneha
+ */
+@Value
+public class OrderCursor {
+
+    private static final char SEPARATOR = ':';
+
+    long timestamp;
+
+    long id;
+
+    /**
+     * cursor pointing right after the given order
+     */
+    @NotNull
+    public static OrderCursor of(@NotNull final OrderView order) {
+        return new OrderCursor(order.getTimestamp(), order.getId());
+    }
+
+    /**
+     * parses a cursor created by {@link #encode()}, otherwise throws an InvalidRequestException
+     */
+    @NotNull
+    public static OrderCursor decode(@NotNull final String cursor) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int split = raw.indexOf(SEPARATOR);
+            return new OrderCursor(Long.parseLong(raw.substring(0, split)), Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new InvalidRequestException(Constants.Messages.INVALID_CURSOR + cursor);
+        }
+    }
+
+    @NotNull
+    public String encode() {
+        final String raw = Long.toString(this.timestamp) + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
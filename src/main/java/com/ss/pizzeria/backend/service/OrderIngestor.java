@@ -0,0 +1,386 @@
+package com.ss.pizzeria.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.data.dao.PersonRepository;
+import com.ss.pizzeria.backend.data.model.FailedOrder;
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.NonNull;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind ingestion of orders: accepted orders get their id and timestamp right away, wait in a bounded
+ * queue, and are stored by a single writer thread in one transaction per batch (group commit).
+ * <p>
+ * A batch is written once it holds `batch-size' orders, or `linger' after its first order arrived.
+ * Ids come from the same pooled block allocator as the synchronous path, so they never collide.
+ * Customers are checked when accepting, so unknown customers still get a 404; persons are never deleted,
+ * which lets the most recently seen customers skip the check. On shutdown the queue is drained before the database
+ * goes away.
+ * <p>
+ * An order failing on its own, after its batch was retried order by order, is kept in the failed_orders table.
+ * Orders which cannot be stored there either are dropped. Both are counted as `pizzeria.orders.ingest.failed',
+ * tagged with their outcome, next to the `pizzeria.orders.ingest.pending' gauge.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Component
+public class OrderIngestor implements SmartLifecycle, MeterBinder {
+
+    @NonNull
+    private final SessionFactoryImplementor sessionFactory;
+
+    @NonNull
+    private final IdentifierGenerator orderIds;
+
+    @NonNull
+    private final EntityManager entityManager;
+
+    @NonNull
+    private final TransactionTemplate transactionTemplate;
+
+    @NonNull
+    private final PersonRepository peopleRepos;
+
+    @NonNull
+    private final OrderMapper orderMapper;
+
+    @NonNull
+    private final CustomerOrdersCache customerOrdersCache;
+
+    @NonNull
+    private final OrderVersions orderVersions;
+
+    @NonNull
+    private final BlockingQueue<AcceptedOrder> queue;
+
+    private final int batchSize;
+
+    @NonNull
+    private final Duration linger;
+
+    /* ids of the customers known to exist, bounded as every customer ever seen would be too many */
+    @NonNull
+    private final Cache<Long, Boolean> knownCustomers;
+
+    /* orders kept in the failed_orders table */
+    private final AtomicLong failed = new AtomicLong();
+
+    /* orders lost, as even keeping them as failed did not work */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /* guards the lifecycle flags against orders offered while the writer stops */
+    private final Object lifecycle = new Object();
+
+    private volatile boolean running;
+
+    /* set once stop began, orders accepted before the start are written once started */
+    private boolean stopped;
+
+    private Thread writer;
+
+    public OrderIngestor(@NonNull final EntityManagerFactory entityManagerFactory,
+                         @NonNull final PlatformTransactionManager transactionManager,
+                         @NonNull final PersonRepository peopleRepos, @NonNull final OrderMapper orderMapper,
+                         @NonNull final CustomerOrdersCache customerOrdersCache,
+                         @NonNull final OrderVersions orderVersions,
+                         @Value("${pizzeria.orders.ingest.queue-capacity:10000}")
+                         final int queueCapacity,
+                         @Value("${pizzeria.orders.ingest.batch-size:200}")
+                         final int batchSize,
+                         @Value("${pizzeria.orders.ingest.linger:20ms}")
+                         @NonNull final Duration linger,
+                         @Value("${pizzeria.orders.ingest.known-customers.max-size:100000}")
+                         final long knownCustomersMaxSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.orderIds = this.sessionFactory.getIdentifierGenerator(Order.class.getName());
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.peopleRepos = peopleRepos;
+        this.orderMapper = orderMapper;
+        this.customerOrdersCache = customerOrdersCache;
+        this.orderVersions = orderVersions;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.knownCustomers = Caffeine.newBuilder()
+                .maximumSize(knownCustomersMaxSize)
+                .build();
+    }
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        Gauge.builder(Constants.Metrics.INGEST_PENDING, this, OrderIngestor::pending)
+                .description("Accepted orders waiting to be stored")
+                .register(registry);
+        FunctionCounter.builder(Constants.Metrics.INGEST_FAILED, this.failed, AtomicLong::get)
+                .description("Accepted orders which could not be stored")
+                .tag(Constants.Metrics.OUTCOME, "kept")
+                .register(registry);
+        FunctionCounter.builder(Constants.Metrics.INGEST_FAILED, this.dropped, AtomicLong::get)
+                .description("Accepted orders which could not be stored")
+                .tag(Constants.Metrics.OUTCOME, "dropped")
+                .register(registry);
+    }
+
+    /**
+     * accepts given order to be stored in the background, and returns it with its final id and timestamp.
+     * Throws a RejectedExecutionException while the queue is full, and once the ingestor has been stopped.
+     */
+    @NotNull
+    public OrderDto accept(@NotNull final OrderCreateDto request) {
+        final Long customerId = request.getCustomerId();
+        checkCustomer(customerId);
+        final Order order = this.orderMapper.toEntity(request);
+        order.setId(nextId());
+        // mapped before queueing, so an order which cannot be answered is never written either
+        final OrderDto accepted = this.orderMapper.toDto(order, customerId);
+        synchronized (this.lifecycle) {
+            if (this.stopped) {
+                throw new RejectedExecutionException(Constants.Messages.INGEST_STOPPED);
+            }
+            if (!this.queue.offer(new AcceptedOrder(order, customerId))) {
+                throw new RejectedExecutionException(Constants.Messages.INGEST_QUEUE_FULL);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * number of accepted orders not yet handed to the writer
+     */
+    public int pending() {
+        return this.queue.size();
+    }
+
+    /**
+     * number of accepted orders which could not be stored, and were kept in the failed_orders table
+     */
+    public long failed() {
+        return this.failed.get();
+    }
+
+    /**
+     * number of accepted orders which could neither be stored nor kept as failed
+     */
+    public long dropped() {
+        return this.dropped.get();
+    }
+
+    @Override
+    public void start() {
+        synchronized (this.lifecycle) {
+            if (this.running) {
+                return;
+            }
+            this.running = true;
+            this.stopped = false;
+            this.writer = new Thread(this::drain, "order-ingestor");
+            this.writer.start();
+        }
+    }
+
+    /**
+     * stops accepting orders, and returns once every accepted order has been written
+     */
+    @Override
+    public void stop() {
+        final Thread stopped;
+        synchronized (this.lifecycle) {
+            if (!this.running) {
+                return;
+            }
+            this.running = false;
+            this.stopped = true;
+            stopped = this.writer;
+        }
+        try {
+            stopped.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while writing {} remaining orders", this.queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * stops after the web server, so no request is accepted once the queue has been drained
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 2048;
+    }
+
+    /**
+     * writer loop: collects a batch, waiting at most the linger for it to fill up, and writes it
+     */
+    private void drain() {
+        final List<AcceptedOrder> batch = new ArrayList<>(this.batchSize);
+        final long lingerNanos = this.linger.toNanos();
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                final AcceptedOrder first = this.queue.poll(lingerNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                final long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < this.batchSize) {
+                    this.queue.drainTo(batch, this.batchSize - batch.size());
+                    final long left = deadline - System.nanoTime();
+                    if (batch.size() >= this.batchSize || left <= 0) {
+                        break;
+                    }
+                    final AcceptedOrder next = this.queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                // keep draining, the queue is only left behind when the process dies
+                log.warn("Order writer interrupted with {} orders queued", this.queue.size());
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * writes given orders in one transaction, or one by one when the batch fails, so a bad order fails only itself
+     */
+    private void write(@NotNull final List<AcceptedOrder> batch) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> insert(batch));
+        } catch (RuntimeException ex) {
+            log.warn("Writing {} accepted orders failed, retrying one by one: {}", batch.size(), ex.getMessage());
+            for (AcceptedOrder accepted : batch) {
+                try {
+                    this.transactionTemplate.executeWithoutResult(status -> insert(List.of(accepted)));
+                } catch (RuntimeException retryEx) {
+                    keepFailed(accepted, retryEx);
+                }
+            }
+        }
+    }
+
+    /**
+     * inserts given orders with their preassigned ids, in jdbc batches on flush
+     */
+    private void insert(@NotNull final List<AcceptedOrder> orders) {
+        final Session session = this.entityManager.unwrap(Session.class);
+        final Set<Long> customers = new HashSet<>();
+        for (AcceptedOrder accepted : orders) {
+            final Order order = accepted.getOrder();
+            order.setCustomer(session.load(Person.class, accepted.getCustomerId()));
+            // save() keeps the preassigned id, where persist() would take the order for a detached one
+            session.save(order);
+            customers.add(accepted.getCustomerId());
+        }
+        session.flush();
+        customers.forEach(customerId -> {
+            this.customerOrdersCache.invalidate(customerId);
+            this.orderVersions.bump(customerId);
+        });
+    }
+
+    /**
+     * stores given order in the failed_orders table, and counts it as dropped when that fails too
+     */
+    private void keepFailed(@NotNull final AcceptedOrder accepted, @NotNull final RuntimeException cause) {
+        final FailedOrder failedOrder = new FailedOrder(accepted.getOrder(), accepted.getCustomerId(),
+                StringUtils.abbreviate(cause.getMessage(), FailedOrder.MAX_REASON_LENGTH), System.currentTimeMillis());
+        try {
+            this.transactionTemplate.executeWithoutResult(
+                    status -> this.entityManager.unwrap(Session.class).save(failedOrder));
+            this.failed.incrementAndGet();
+            log.error("Accepted order #{} of customer {} could not be stored, kept in failed_orders",
+                    failedOrder.getId(), failedOrder.getCustomerId(), cause);
+        } catch (RuntimeException ex) {
+            this.dropped.incrementAndGet();
+            log.error("Dropped accepted order {}, keeping it as failed did not work either: {}",
+                    failedOrder, ex.getMessage(), cause);
+        }
+    }
+
+    /**
+     * throws a NoSuchElementException unless given customer exists
+     */
+    private void checkCustomer(@NotNull final Long customerId) {
+        if (this.knownCustomers.getIfPresent(customerId) != null) {
+            return;
+        }
+        // by id, so a customer in the second-level cache needs no query
+        if (this.peopleRepos.findById(customerId).isEmpty()) {
+            throw new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + customerId);
+        }
+        this.knownCustomers.put(customerId, Boolean.TRUE);
+    }
+
+    /**
+     * takes the next order id from the pooled blocks, one sequence call per block
+     */
+    @NotNull
+    private Long nextId() {
+        try (StatelessSession session = this.sessionFactory.openStatelessSession()) {
+            return (Long) this.orderIds.generate((SharedSessionContractImplementor) session, null);
+        }
+    }
+
+    /**
+     * an order waiting to be written, with the id of its customer
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class AcceptedOrder {
+        private final Order order;
+        private final Long customerId;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ss.pizzeria.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Removes the orders older than the retention window on a schedule.
+ * Disabled unless `pizzeria.orders.purge.cron' is set.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Component
+public class OrderPurgeJob {
+
+    @NonNull
+    private final PizzeriaService pizzeriaService;
+
+    @NonNull
+    private final Duration retention;
+
+    public OrderPurgeJob(@NonNull final PizzeriaService pizzeriaService,
+                         @Value("${pizzeria.orders.purge.retention:30d}") @NonNull final Duration retention) {
+        this.pizzeriaService = pizzeriaService;
+        this.retention = retention;
+    }
+
+    /**
+     * removes every order placed before the retention window, returns the number of removed orders
+     */
+    @Scheduled(cron = "${pizzeria.orders.purge.cron:-}")
+    public long purge() {
+        final long cutoff = System.currentTimeMillis() - this.retention.toMillis();
+        final long removed = this.pizzeriaService.removeOrders(null, null, cutoff);
+        log.info("Purged {} orders placed before {}", removed, cutoff);
+        return removed;
+    }
+}
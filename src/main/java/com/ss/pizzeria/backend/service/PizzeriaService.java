@@ -1,22 +1,38 @@
 package com.ss.pizzeria.backend.service;
 
 import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.RequestTiming;
 import com.ss.pizzeria.backend.data.dao.OrderRepository;
 import com.ss.pizzeria.backend.data.dao.PersonRepository;
 import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.OrderView;
 import com.ss.pizzeria.backend.data.model.Person;
 import com.ss.pizzeria.backend.rest.dto.*;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import com.ss.pizzeria.backend.service.mapper.PersonMapper;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Sort;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.validation.constraints.NotNull;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for the functional logics.
@@ -27,6 +43,9 @@ import java.util.Optional;
 @Slf4j
 public class PizzeriaService {
 
+    /* timer of every service method, tagged with the method name */
+    static final String TIMER = "pizzeria.service";
+
     /* inject repository to access orders Table */
     @NonNull
     private final PersonRepository peopleRepos;
@@ -35,88 +54,388 @@ public class PizzeriaService {
     @NonNull
     private final OrderRepository orderRepos;
 
-    /* inject mapper to convert from jpa entity to dto */
+    /* inject mappers to convert between jpa entity and dto */
+    @NonNull
+    private final OrderMapper orderMapper;
+
+    @NonNull
+    private final PersonMapper personMapper;
+
+    /* inject cache of the order lists per customer */
+    @NonNull
+    private final CustomerOrdersCache customerOrdersCache;
+
+    /* inject versions of the order lists, for conditional requests */
+    @NonNull
+    private final OrderVersions orderVersions;
+
+    /* inject cache of the serialized orders */
+    @NonNull
+    private final OrderJsonCache orderJsonCache;
+
+    /* inject issuer of the access tokens */
     @NonNull
-    private final ModelMapper mapper;
+    private final JwtTokens jwtTokens;
 
-    public PizzeriaService(@NonNull PersonRepository peopleRepos, @NonNull final OrderRepository orderRepos, @NonNull final ModelMapper mapper) {
+    /* runs each chunk of a bulk delete in its own transaction */
+    @NonNull
+    private final TransactionTemplate transactionTemplate;
+
+    /* maximum number of orders removed per transaction by bulk deletes */
+    private final int deleteChunkSize;
+
+    public PizzeriaService(@NonNull PersonRepository peopleRepos, @NonNull final OrderRepository orderRepos,
+                           @NonNull final OrderMapper orderMapper, @NonNull final PersonMapper personMapper,
+                           @NonNull final CustomerOrdersCache customerOrdersCache,
+                           @NonNull final OrderVersions orderVersions,
+                           @NonNull final OrderJsonCache orderJsonCache,
+                           @NonNull final JwtTokens jwtTokens,
+                           @NonNull final PlatformTransactionManager transactionManager,
+                           @Value("${pizzeria.orders.delete.chunk-size:1000}") final int deleteChunkSize) {
+        if (deleteChunkSize < 1) {
+            throw new IllegalArgumentException("Delete chunk size must be positive: " + deleteChunkSize);
+        }
         this.peopleRepos = peopleRepos;
         this.orderRepos = orderRepos;
-        this.mapper = mapper;
+        this.orderMapper = orderMapper;
+        this.personMapper = personMapper;
+        this.customerOrdersCache = customerOrdersCache;
+        this.orderVersions = orderVersions;
+        this.orderJsonCache = orderJsonCache;
+        this.jwtTokens = jwtTokens;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deleteChunkSize = deleteChunkSize;
     }
 
     /**
-     * Returns a fixed token for `test' user and an empty token otherwise
+     * Returns a signed token for `test' user and an empty token otherwise
      */
     @NotNull
+    @Timed(value = TIMER, histogram = true)
     public AccessTokenDto fetchTokenForUser(@NotNull final UserAuthDto credentials) {
         final AccessTokenDto accessTokenDto = new AccessTokenDto();
-        if (credentials.getUsername().equals("test") && credentials.getPassword().equals("test")) {
-            accessTokenDto.setAccessToken(Constants.AUTH_TOKEN);
+        if (credentials.getUsername().equals(Constants.Users.USERNAME)
+                && credentials.getPassword().equals(Constants.Users.PASSWORD)) {
+            accessTokenDto.setAccessToken(this.jwtTokens.issue(credentials.getUsername()));
         }
         return accessTokenDto;
     }
 
+    /**
+     * version of the list of all orders, changes with every created or removed order
+     */
+    @NotNull
+    @Timed(value = TIMER, histogram = true)
+    public String readOrdersVersion() {
+        return this.orderVersions.globalTag();
+    }
+
+    /**
+     * version of the list of orders of given person, changes with every created or removed order of that person
+     */
+    @NotNull
+    @Timed(value = TIMER, histogram = true)
+    public String readOrdersVersionForPerson(@NotNull final String customerId) {
+        return this.orderVersions.customerTag(InvalidIdException.parse(customerId));
+    }
+
     /**
      * fetches a list of orders
      */
     @NotNull
+    @Timed(value = TIMER, histogram = true)
     public List<OrderDto> readAllOrdersSortedByTime() {
         List<OrderDto> dtoList = new ArrayList<>();
-        List<Order> orderList = this.orderRepos.findAll(Sort.by("timestamp"));
-        orderList.forEach(order -> dtoList.add(mapper.map(order, OrderDto.class)));
+        List<OrderView> orderList = this.orderRepos.findAllSortedByTime();
+        final long mapping = RequestTiming.start();
+        orderList.forEach(order -> dtoList.add(orderMapper.toDto(order)));
+        RequestTiming.stop(RequestTiming.Phase.MAPPING, mapping);
         return dtoList;
     }
 
     /**
-     * creates a new Order
+     * passes every order, sorted by timestamp, to the given sink as soon as it is read from the database.
+     * Returns the number of orders read.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = TIMER, histogram = true)
+    public long forEachOrderSortedByTime(@NotNull final Consumer<OrderDto> sink) {
+        final long[] count = {0L};
+        try (Stream<OrderView> orders = this.orderRepos.streamAllSortedByTime()) {
+            orders.forEach(order -> {
+                sink.accept(orderMapper.toDto(order));
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * fetches one page of orders sorted by (timestamp, id), starting right after the given cursor
      */
     @NotNull
+    @Timed(value = TIMER, histogram = true)
+    public OrderPageDto readOrdersPageSortedByTime(final int limit, @Nullable final String after) {
+        if (limit < 1 || limit > Constants.Paging.MAX_LIMIT) {
+            throw new InvalidRequestException(Constants.Messages.INVALID_LIMIT);
+        }
+        // fetch one extra row to find out whether another page follows
+        final Pageable page = PageRequest.of(0, limit + 1);
+        final List<OrderView> orderList;
+        if (after == null) {
+            orderList = this.orderRepos.findFirstPageSortedByTime(page);
+        } else {
+            final OrderCursor cursor = OrderCursor.decode(after);
+            orderList = this.orderRepos.findPageSortedByTimeAfter(cursor.getTimestamp(), cursor.getId(), page);
+        }
+        final boolean hasNext = orderList.size() > limit;
+        final List<OrderView> pageList = hasNext ? orderList.subList(0, limit) : orderList;
+        final List<OrderDto> dtoList = new ArrayList<>(pageList.size());
+        final long mapping = RequestTiming.start();
+        pageList.forEach(order -> dtoList.add(orderMapper.toDto(order)));
+        RequestTiming.stop(RequestTiming.Phase.MAPPING, mapping);
+        final String next = hasNext ? OrderCursor.of(pageList.get(limit - 1)).encode() : null;
+        return new OrderPageDto(dtoList, next);
+    }
+
+    /**
+     * creates a new Order, with a constant number of statements however many orders the customer already has
+     */
+    @NotNull
+    @Transactional
+    @Timed(value = TIMER, histogram = true)
     public OrderDto createOrder(@NotNull final OrderCreateDto orderRequest) {
-        // retrieve valid customer
+        // reference the customer without loading it, nor its list of orders
         final Long personId = orderRequest.getCustomerId();
-        final Optional<Person> findRegisteredCustomer = peopleRepos.findById(personId);
-        final Person customer = findRegisteredCustomer.orElseThrow(
-                () -> new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + personId)
-        );
-        // continue to create order
-        final Order order = this.mapper.map(orderRequest, Order.class);
-        order.setCustomer(customer);
-        customer.getOrderList().add(order);
-        /* save to any one repository is enough because of the oneToMany/ManyToOne mappings */
-        final Order created = this.orderRepos.saveAndFlush(order);
-        return this.mapper.map(created, OrderDto.class);
+        final Order order = this.orderMapper.toEntity(orderRequest);
+        order.setCustomer(this.peopleRepos.getById(personId));
+        final Order created;
+        try {
+            created = this.orderRepos.saveAndFlush(order);
+        } catch (DataIntegrityViolationException ex) {
+            // the foreign key on person_id rejects unknown customers
+            if (isForeignKeyViolation(ex, Order.FK_PERSON_ID)) {
+                throw new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + personId);
+            }
+            throw ex;
+        }
+        ordersChanged(personId);
+        return this.orderMapper.toDto(created);
+    }
+
+    /**
+     * creates a batch of Orders in one transaction, resolving the customers missing from the cache with a single query.
+     * Incomplete orders and orders of unknown customers are reported per item; with `atomic' none of the orders
+     * is created then.
+     */
+    @NotNull
+    @Transactional
+    @Timed(value = TIMER, histogram = true)
+    public OrderBatchResultDto createOrders(@NotNull final List<OrderCreateDto> orderRequests, final boolean atomic) {
+        if (orderRequests.isEmpty() || orderRequests.size() > Constants.Batch.MAX_SIZE) {
+            throw new InvalidRequestException(Constants.Messages.INVALID_BATCH_SIZE);
+        }
+        // retrieve all valid customers at once, repeat customers from the cache
+        final Set<Long> personIds = new HashSet<>();
+        orderRequests.stream()
+                .filter(request -> !isIncomplete(request))
+                .forEach(request -> personIds.add(request.getCustomerId()));
+        final Map<Long, Person> customers = new HashMap<>();
+        this.peopleRepos.findAllByIdCacheFirst(personIds).forEach(person -> customers.put(person.getId(), person));
+
+        // build orders, remembering the failed items
+        final List<OrderBatchItemDto> items = new ArrayList<>(orderRequests.size());
+        final List<Order> orders = new ArrayList<>(orderRequests.size());
+        for (OrderCreateDto request : orderRequests) {
+            if (isIncomplete(request)) {
+                items.add(new OrderBatchItemDto(null, Constants.Messages.INCOMPLETE_NEW_ORDER));
+                continue;
+            }
+            final Person customer = customers.get(request.getCustomerId());
+            if (customer == null) {
+                items.add(new OrderBatchItemDto(null,
+                        Constants.Messages.NO_PERSON_EXISTS_WITH_ID + request.getCustomerId()));
+                continue;
+            }
+            final Order order = this.orderMapper.toEntity(request);
+            order.setCustomer(customer);
+            orders.add(order);
+            items.add(new OrderBatchItemDto());
+        }
+        if (atomic && orders.size() < orderRequests.size()) {
+            items.stream()
+                    .filter(item -> item.getError() == null)
+                    .forEach(item -> item.setError(Constants.Messages.BATCH_ABORTED));
+            return new OrderBatchResultDto(0, items);
+        }
+
+        // inserts are sent in jdbc batches on flush
+        final List<Order> created = this.orderRepos.saveAll(orders);
+        this.orderRepos.flush();
+        final Iterator<Order> createdOrders = created.iterator();
+        items.stream()
+                .filter(item -> item.getError() == null)
+                .forEach(item -> item.setOrder(this.orderMapper.toDto(createdOrders.next())));
+        customers.keySet().forEach(this::ordersChanged);
+        return new OrderBatchResultDto(created.size(), items);
     }
 
     /**
-     * removes the Order with given ID
+     * updates the Order with given ID in a single conditional statement, instead of loading and saving it,
+     * and returns it as updated. Fails with an OptimisticLockingFailureException once another update
+     * changed the version the request is based on; without `replace' only the given fields change.
      */
+    @NotNull
+    @Transactional
+    @Timed(value = TIMER, histogram = true)
+    public OrderDto updateOrder(@NotNull final String orderId, @NotNull final OrderUpdateDto update,
+                                final boolean replace) {
+        final long id = InvalidIdException.parse(orderId);
+        if (update.getVersion() == null) {
+            throw new InvalidRequestException(Constants.Messages.MISSING_VERSION);
+        }
+        if (replace && !update.isComplete()) {
+            throw new InvalidRequestException(Constants.Messages.INCOMPLETE_ORDER);
+        }
+        final int updated = this.orderRepos.updateOrder(id, update.getVersion(), update.getCrust(),
+                update.getFlavour(), update.getSize(), update.getTableNo());
+        if (updated == 0) {
+            // tell a missing order from a stale version only when the update failed
+            if (!this.orderRepos.existsById(id)) {
+                throw new NoSuchElementException(Constants.Messages.ORDER + orderId
+                        + Constants.Messages.ORDER_NOT_FOUND);
+            }
+            throw new OptimisticLockingFailureException(Constants.Messages.ORDER + orderId
+                    + Constants.Messages.ORDER_VERSION_CONFLICT);
+        }
+        final OrderView order = this.orderRepos.findViewById(id).orElseThrow();
+        this.orderJsonCache.evict(id);
+        ordersChanged(order.getCustomerId());
+        return this.orderMapper.toDto(order);
+    }
+
+    /**
+     * removes the Order with given ID in a single statement, which also returns its customer id
+     */
+    @Transactional
+    @Timed(value = TIMER, histogram = true)
     public void removeOrder(@NotNull final String orderId) {
-        final Optional<Order> findOrder = this.orderRepos.findById(Long.parseLong(orderId, 10));
-        this.orderRepos.delete(findOrder.orElseThrow(() -> new NoSuchElementException("Order #" + orderId + " not found.")));
+        final long id = InvalidIdException.parse(orderId);
+        final Long customerId = this.orderRepos.deleteOrderReturningCustomerId(id)
+                .orElseThrow(() -> new NoSuchElementException(Constants.Messages.ORDER + orderId
+                        + Constants.Messages.ORDER_NOT_FOUND));
+        this.orderJsonCache.evict(id);
+        ordersChanged(customerId);
+    }
+
+    /**
+     * removes the Orders of given customer and/or placed in [from, to), and returns how many were removed.
+     * Orders are deleted in chunks, each in its own short transaction, so a large delete
+     * never holds its locks for long. Chunks deleted before a failure stay deleted.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public long removeOrders(@Nullable final String customerId, @Nullable final Long from, @Nullable final Long to) {
+        if (customerId == null && from == null && to == null) {
+            throw new InvalidRequestException(Constants.Messages.MISSING_DELETE_FILTER);
+        }
+        final Long customer = customerId == null ? null : InvalidIdException.parse(customerId);
+        final long lower = from == null ? Long.MIN_VALUE : from;
+        final long upper = to == null ? Long.MAX_VALUE : to;
+        if (lower > upper) {
+            throw new InvalidRequestException(Constants.Messages.INVALID_TIME_RANGE);
+        }
+        final Pageable chunk = PageRequest.of(0, this.deleteChunkSize);
+        // a short chunk means the range is exhausted, without another query to find out
+        final int[] found = {0};
+        long removed = 0;
+        do {
+            removed += Objects.requireNonNull(this.transactionTemplate.execute(status -> {
+                final List<Long> ids = customer == null
+                        ? this.orderRepos.findIdsByTimeRange(lower, upper, chunk)
+                        : this.orderRepos.findIdsByCustomerAndTimeRange(customer, lower, upper, chunk);
+                found[0] = ids.size();
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                final List<Long> customers = customer == null
+                        ? this.orderRepos.findCustomerIdsByIds(ids)
+                        : List.of(customer);
+                final int count = this.orderRepos.deleteOrdersByIds(ids);
+                this.orderJsonCache.evictAll(ids);
+                customers.forEach(this::ordersChanged);
+                return count;
+            }));
+        } while (found[0] == this.deleteChunkSize);
+        return removed;
     }
 
     /**
      * registers a new Person with empty order list
      */
     @NotNull
+    @Timed(value = TIMER, histogram = true)
     public PersonDto registerPerson(@NotNull final PersonCreateDto request) {
         // no need to check existing name, as it is possible to have 2 people with same name
-        final Person registered = this.peopleRepos.saveAndFlush(new Person(request.getName()));
-        // not considered mapping back from List<Order> to List<OrderDto>, as this is always empty list for new Person()
-        return this.mapper.map(registered, PersonDto.class);
+        final Person registered = this.peopleRepos.saveAndFlush(this.personMapper.toEntity(request));
+        return this.personMapper.toDto(registered);
     }
 
+    /**
+     * fetches the orders of given person sorted by time, from the cache when possible
+     */
     @NotNull
+    @Timed(value = TIMER, histogram = true)
     public List<OrderDto> readAllOrdersForPersonSortedByTime(@NotNull final String customerId) {
-        List<OrderDto> dtoList = new ArrayList<>();
-        // find requesting person from id
-        Optional<Person> findPerson = peopleRepos.findById(Long.parseLong(customerId));
-        Person requestingCustomer = findPerson.orElseThrow(
-                ()-> new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + customerId)
-        );
-        List<Order> orderList = this.orderRepos.findAllByCustomer(requestingCustomer, Sort.by("timestamp"));
-        orderList.forEach(order -> dtoList.add(mapper.map(order, OrderDto.class)));
+        return this.customerOrdersCache.get(InvalidIdException.parse(customerId), this::loadOrdersForPerson);
+    }
+
+    /**
+     * loads the orders of given person sorted by time, with a single query for both the person and the orders
+     */
+    @NotNull
+    private List<OrderDto> loadOrdersForPerson(@NotNull final Long customerId) {
+        final List<OrderView> orderList = this.orderRepos.findCustomerWithOrdersSortedByTime(customerId);
+        // no row at all means there is no such person
+        if (orderList.isEmpty()) {
+            throw new NoSuchElementException(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + customerId);
+        }
+        final List<OrderDto> dtoList = new ArrayList<>(orderList.size());
+        final long mapping = RequestTiming.start();
+        // a row without order id only tells that the person exists
+        orderList.stream()
+                .filter(order -> order.getId() != null)
+                .forEach(order -> dtoList.add(orderMapper.toDto(order)));
+        RequestTiming.stop(RequestTiming.Phase.MAPPING, mapping);
         return dtoList;
     }
+
+    /**
+     * drops the cached orders of given customer, then moves the list versions on
+     */
+    private void ordersChanged(@NotNull final Long customerId) {
+        // the cache has to be cleared first, so a request seeing the new version never reads the old list
+        this.customerOrdersCache.invalidate(customerId);
+        this.orderVersions.bump(customerId);
+    }
+
+    /**
+     * tells whether given batch item lacks a field required to create its order
+     */
+    private static boolean isIncomplete(@Nullable final OrderCreateDto request) {
+        return request == null || request.getCrust() == null || request.getFlavour() == null
+                || request.getSize() == null || request.getCustomerId() == null;
+    }
+
+    /**
+     * tells whether given exception was caused by a violation of the named constraint
+     */
+    private static boolean isForeignKeyViolation(@NotNull final DataIntegrityViolationException ex,
+                                                 @NotNull final String constraint) {
+        final Throwable cause = ex.getCause();
+        if (!(cause instanceof ConstraintViolationException)) {
+            return false;
+        }
+        final String name = ((ConstraintViolationException) cause).getConstraintName();
+        return name != null && name.toLowerCase(Locale.ROOT).startsWith(constraint);
+    }
 }
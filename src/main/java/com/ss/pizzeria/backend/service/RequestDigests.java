@@ -0,0 +1,49 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.Constants;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Digests identifying the requests carrying an Idempotency-Key, the same on every stack serving the API,
+ * so a key stored by one is recognized by the other.
+ *
+ * @author Sneha
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RequestDigests {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * digest of given client and key, throws an InvalidRequestException for a blank or too long key
+     */
+    @NotNull
+    public static String ofKey(@NotNull final String client, @NotNull final String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException(Constants.Messages.INVALID_IDEMPOTENCY_KEY);
+        }
+        // the client and the key are joined by a character neither can hold
+        return of((client + '\n' + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * SHA-256 of given bytes, in URL-safe Base64
+     */
+    @NotNull
+    public static String of(@NotNull final byte[] bytes) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform implements SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.ss.pizzeria.backend.service.auth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and verifies HS256 signed JSON Web Tokens.
+ * <p>
+ * Signatures are compared in constant time. Verified tokens are remembered in a bounded cache until their
+ * `exp', so a client sending the same token again skips the decoding and the HMAC. The cache is keyed by the
+ * SHA-256 of the token, so looking a token up never compares it with a valid one character by character.
+ *
+ * @author Sneha
+ */
+@Component
+public class JwtTokens {
+
+    /* the secret has no default, every deployment sets its own */
+    public static final String SECRET_PROPERTY = "pizzeria.auth.jwt.secret";
+
+    /* RFC 7518: a key of the same size as the hash output, or larger */
+    private static final int MIN_SECRET_BYTES = 32;
+
+    /* longer tokens are rejected before any work */
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    private static final String ALGORITHM = "HS256";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /* header and claims are plain JSON, independent of the configuration of the REST mapper */
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @NonNull
+    private final SecretKeySpec key;
+
+    @NonNull
+    private final Duration ttl;
+
+    @NonNull
+    private final Clock clock;
+
+    /* encoded header, the same for every issued token */
+    @NonNull
+    private final String header;
+
+    /* a Mac is not thread-safe, and costly to set up per token; pooled rather than thread-local,
+       as a virtual thread per request would set one up per request */
+    @NonNull
+    private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    /* SHA-256 of the verified tokens, to their expiry in epoch milliseconds */
+    @NonNull
+    private final Cache<ByteBuffer, Long> verified;
+
+    @Autowired
+    public JwtTokens(@Value("${" + SECRET_PROPERTY + ":}") @NonNull final String secret,
+                     @Value("${pizzeria.auth.jwt.ttl:15m}") @NonNull final Duration ttl,
+                     @Value("${pizzeria.auth.cache.max-size:10000}") final long cacheSize) {
+        this(secret, ttl, cacheSize, Clock.systemUTC());
+    }
+
+    JwtTokens(@NonNull final String secret, @NonNull final Duration ttl, final long cacheSize,
+              @NonNull final Clock clock) {
+        if (secret.isBlank()) {
+            throw new IllegalArgumentException(SECRET_PROPERTY + " is not set, e.g. by PIZZERIA_AUTH_JWT_SECRET");
+        }
+        final byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("JWT secret must hold at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.key = new SecretKeySpec(secretBytes, MAC_ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.header = encode(JSON.createObjectNode().put("alg", ALGORITHM).put("typ", "JWT"));
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilExpiry(clock))
+                .build();
+    }
+
+    /**
+     * issues a token for given subject, valid for the configured ttl
+     */
+    @NotNull
+    public String issue(@NotNull final String subject) {
+        final long now = TimeUnit.MILLISECONDS.toSeconds(this.clock.millis());
+        final ObjectNode payload = JSON.createObjectNode()
+                .put("sub", subject)
+                .put("iat", now)
+                .put("exp", now + this.ttl.toSeconds());
+        final String signed = this.header + '.' + encode(payload);
+        return signed + '.' + ENCODER.encodeToString(sign(signed));
+    }
+
+    /**
+     * tells whether given token carries a valid signature, and has not expired yet
+     */
+    public boolean verify(@Nullable final String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        final long now = this.clock.millis();
+        final ByteBuffer digest = digest(token);
+        final Long cached = this.verified.getIfPresent(digest);
+        if (cached != null) {
+            return now < cached;
+        }
+        final long expiry = expiryOfSigned(token, now);
+        if (expiry <= now) {
+            return false;
+        }
+        this.verified.put(digest, expiry);
+        return true;
+    }
+
+    /**
+     * checks the signature, algorithm and validity period of given token, and returns its expiry
+     * in epoch milliseconds, or 0 for a token to reject
+     */
+    private long expiryOfSigned(@NotNull final String token, final long now) {
+        final int headerEnd = token.indexOf('.');
+        final int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (headerEnd < 1 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            return 0;
+        }
+        try {
+            // the signature goes first, so forged tokens are rejected without parsing any JSON
+            final byte[] signature = DECODER.decode(token.substring(payloadEnd + 1));
+            if (!MessageDigest.isEqual(sign(token.substring(0, payloadEnd)), signature)) {
+                return 0;
+            }
+            final JsonNode header = decode(token.substring(0, headerEnd));
+            if (!ALGORITHM.equals(header.path("alg").asText())) {
+                return 0;
+            }
+            final JsonNode payload = decode(token.substring(headerEnd + 1, payloadEnd));
+            final JsonNode exp = payload.path("exp");
+            final JsonNode nbf = payload.path("nbf");
+            if (!exp.canConvertToLong() || nbf.canConvertToLong() && now < TimeUnit.SECONDS.toMillis(nbf.asLong())) {
+                return 0;
+            }
+            return TimeUnit.SECONDS.toMillis(exp.asLong());
+        } catch (IllegalArgumentException | IOException ex) {
+            // not base64url, or not JSON
+            return 0;
+        }
+    }
+
+    @NotNull
+    private byte[] sign(@NotNull final String content) {
+        Mac mac = this.macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        try {
+            return mac.doFinal(content.getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            this.macs.offer(mac);
+        }
+    }
+
+    @NotNull
+    private String encode(@NotNull final ObjectNode json) {
+        try {
+            return ENCODER.encodeToString(JSON.writeValueAsBytes(json));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @NotNull
+    private JsonNode decode(@NotNull final String part) throws IOException {
+        return JSON.readTree(DECODER.decode(part));
+    }
+
+    @NotNull
+    private Mac newMac() {
+        try {
+            final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(this.key);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", ex);
+        }
+    }
+
+    @NotNull
+    private static ByteBuffer digest(@NotNull final String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * keeps a verified token until its own expiry
+     */
+    private static final class UntilExpiry implements Expiry<ByteBuffer, Long> {
+
+        @NonNull
+        private final Clock clock;
+
+        private UntilExpiry(@NonNull final Clock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public long expireAfterCreate(@NonNull final ByteBuffer digest, @NonNull final Long expiry,
+                                      final long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiry - this.clock.millis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull final ByteBuffer digest, @NonNull final Long expiry,
+                                      final long currentTime, final long currentDuration) {
+            return expireAfterCreate(digest, expiry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull final ByteBuffer digest, @NonNull final Long expiry,
+                                    final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
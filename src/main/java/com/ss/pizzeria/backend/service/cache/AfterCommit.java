@@ -0,0 +1,34 @@
+package com.ss.pizzeria.backend.service.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Defers cache maintenance until the changes it reflects are visible to other readers.
+ *
+ * @author Sneha
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * runs given action after the commit of the current transaction, or right away without transaction.
+     * Actions registered in the same transaction run in registration order.
+     */
+    static void run(@NotNull final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
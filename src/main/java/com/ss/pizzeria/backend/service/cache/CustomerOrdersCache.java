@@ -0,0 +1,74 @@
+package com.ss.pizzeria.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of the order lists per customer id, evicted by size and age.
+ * <p>
+ * A list is loaded atomically for its key, and invalidating a key waits for a load in flight to
+ * finish before removing it. So a read racing a write can never leave the list from before the
+ * write in the cache, as long as writers invalidate once their changes are committed.
+ * <p>
+ * The cache is scraped as `customer_orders', with the `cache_gets_total' of its hits and misses, its size and evictions.
+ *
+ * @author Sneha
+ */
+@Component
+public class CustomerOrdersCache implements MeterBinder {
+
+    @NotNull
+    private final Cache<Long, List<OrderDto>> cache;
+
+    public CustomerOrdersCache(@Value("${pizzeria.orders.cache.max-size:10000}") final long maxSize,
+                               @Value("${pizzeria.orders.cache.ttl:60s}") final Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.cache, "customer_orders");
+    }
+
+    /**
+     * returns the cached orders of given customer, or loads and caches them.
+     * Nothing is cached when the loader throws.
+     */
+    @NotNull
+    public List<OrderDto> get(@NotNull final Long customerId,
+                              @NotNull final Function<Long, List<OrderDto>> loader) {
+        return this.cache.get(customerId, id -> List.copyOf(loader.apply(id)));
+    }
+
+    /**
+     * drops the cached orders of given customer, once the current transaction (if any) has committed
+     */
+    public void invalidate(@NotNull final Long customerId) {
+        AfterCommit.run(() -> this.cache.invalidate(customerId));
+    }
+
+    /**
+     * hit, miss and eviction counters since startup
+     */
+    @NotNull
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+}
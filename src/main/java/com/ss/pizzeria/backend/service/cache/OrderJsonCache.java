@@ -0,0 +1,105 @@
+package com.ss.pizzeria.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache of the UTF-8 JSON of single orders by order id, bounded by the total size of the cached bytes.
+ * <p>
+ * Each fragment remembers the version of its order, and is only used for that version, so a list read
+ * racing an update can never serve the older fragment once a newer version has been read.
+ * A list read racing a removal may cache the fragment of the removed order again, which is
+ * harmless because ids are never reused, and the entry ages out with the size bound.
+ * <p>
+ * Its hits, misses and evictions are published as the `cache.*' meters of the cache `order_json'.
+ *
+ * @author Sneha
+ */
+@Component
+public class OrderJsonCache implements MeterBinder {
+
+    @NotNull
+    private final Cache<Long, Fragment> cache;
+
+    public OrderJsonCache(@Value("${pizzeria.orders.json-cache.max-size:64MB}") final DataSize maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, Fragment fragment) -> fragment.json.length)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.cache, "order_json");
+    }
+
+    /**
+     * returns the cached JSON of given order, or serializes and caches it
+     */
+    @NotNull
+    public byte[] get(@NotNull final OrderDto order, @NotNull final Function<OrderDto, byte[]> serializer) {
+        // looked up without a loader, which would capture the order on every call, even on a hit
+        final Fragment cached = this.cache.getIfPresent(order.getOrderId());
+        if (cached != null && cached.version == order.getVersion()) {
+            return cached.json;
+        }
+        // two reads of the same order may both serialize it, either fragment is fine
+        final Fragment fragment = new Fragment(order, serializer);
+        this.cache.put(order.getOrderId(), fragment);
+        return fragment.json;
+    }
+
+    /**
+     * drops the JSON of given order, once the current transaction (if any) has committed
+     */
+    public void evict(@NotNull final Long orderId) {
+        AfterCommit.run(() -> this.cache.invalidate(orderId));
+    }
+
+    /**
+     * drops the JSON of given orders, once the current transaction (if any) has committed
+     */
+    public void evictAll(@NotNull final Collection<Long> orderIds) {
+        final List<Long> ids = List.copyOf(orderIds);
+        AfterCommit.run(() -> this.cache.invalidateAll(ids));
+    }
+
+    /**
+     * hit, miss and eviction counters since startup
+     */
+    @NotNull
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    /**
+     * JSON of an order at the given version
+     */
+    private static final class Fragment {
+
+        private final long version;
+
+        @NotNull
+        private final byte[] json;
+
+        private Fragment(@NotNull final OrderDto order, @NotNull final Function<OrderDto, byte[]> serializer) {
+            this.version = order.getVersion();
+            this.json = serializer.apply(order);
+        }
+    }
+}
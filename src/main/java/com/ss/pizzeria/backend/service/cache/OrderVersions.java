@@ -0,0 +1,54 @@
+package com.ss.pizzeria.backend.service.cache;
+
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing versions of the order lists, global and per customer, used as entity tags.
+ * <p>
+ * Every write takes the next global version, and the customer it touched remembers it. Tags start with
+ * the startup time, so versions counted by an earlier run of the application never match.
+ * Versions are bumped only after the write committed, so a tag is never paired with older data.
+ *
+ * @author Sneha
+ */
+@Component
+public class OrderVersions {
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong global = new AtomicLong();
+
+    /* customer id to the global version of the last write touching that customer */
+    private final ConcurrentMap<Long, Long> perCustomer = new ConcurrentHashMap<>();
+
+    /**
+     * records a write to the orders of given customer, once the current transaction (if any) has committed
+     */
+    public void bump(@NotNull final Long customerId) {
+        AfterCommit.run(() -> {
+            final long version = this.global.incrementAndGet();
+            this.perCustomer.merge(customerId, version, Math::max);
+        });
+    }
+
+    /**
+     * tag of the list of all orders
+     */
+    @NotNull
+    public String globalTag() {
+        return this.epoch + "-" + this.global.get();
+    }
+
+    /**
+     * tag of the list of orders of given customer
+     */
+    @NotNull
+    public String customerTag(@NotNull final Long customerId) {
+        return this.epoch + "-" + customerId + "-" + this.perCustomer.getOrDefault(customerId, 0L);
+    }
+}
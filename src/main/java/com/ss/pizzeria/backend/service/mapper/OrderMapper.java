@@ -0,0 +1,69 @@
+package com.ss.pizzeria.backend.service.mapper;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.OrderView;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Converts between {@link Order} and its DTOs by plain field copies.
+ *
+ * @author Sneha
+ */
+@Component
+public class OrderMapper {
+
+    /**
+     * maps a persisted order to its DTO
+     */
+    @NotNull
+    public OrderDto toDto(@NotNull final Order order) {
+        return toDto(order, order.getCustomer().getId());
+    }
+
+    /**
+     * maps an order of given customer to its DTO, the customer of the order itself is not read
+     */
+    @NotNull
+    public OrderDto toDto(@NotNull final Order order, @NotNull final Long customerId) {
+        final OrderDto dto = new OrderDto(order.getId(), order.getTimestamp());
+        dto.setCrust(order.getCrust());
+        dto.setFlavour(order.getFlavour());
+        dto.setSize(order.getSize());
+        dto.setTableNo(order.getTableNo());
+        dto.setCustomerId(customerId);
+        dto.setVersion(order.getVersion());
+        return dto;
+    }
+
+    /**
+     * maps a read-only order projection to its DTO
+     */
+    @NotNull
+    public OrderDto toDto(@NotNull final OrderView order) {
+        final OrderDto dto = new OrderDto(order.getId(), order.getTimestamp());
+        dto.setCrust(order.getCrust());
+        dto.setFlavour(order.getFlavour());
+        dto.setSize(order.getSize());
+        dto.setTableNo(order.getTableNo());
+        dto.setCustomerId(order.getCustomerId());
+        dto.setVersion(order.getVersion());
+        return dto;
+    }
+
+    /**
+     * maps a create request to a new order, the customer has to be set by the caller
+     */
+    @NotNull
+    public Order toEntity(@NotNull final OrderCreateDto request) {
+        final Order order = new Order();
+        order.setCrust(request.getCrust());
+        order.setFlavour(request.getFlavour());
+        order.setSize(request.getSize());
+        order.setTableNo(request.getTableNo());
+        return order;
+    }
+}
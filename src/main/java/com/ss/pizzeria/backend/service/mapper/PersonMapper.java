@@ -0,0 +1,51 @@
+package com.ss.pizzeria.backend.service.mapper;
+
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts between {@link Person} and its DTOs by plain field copies.
+ *
+ * @author Sneha
+ */
+@Component
+public class PersonMapper {
+
+    /* orders of a person are mapped with the order mapper */
+    @NonNull
+    private final OrderMapper orderMapper;
+
+    public PersonMapper(@NonNull final OrderMapper orderMapper) {
+        this.orderMapper = orderMapper;
+    }
+
+    /**
+     * maps a persisted person, including its orders, to its DTO
+     */
+    @NotNull
+    public PersonDto toDto(@NotNull final Person person) {
+        final PersonDto dto = new PersonDto();
+        dto.setPersonId(person.getId());
+        dto.setName(person.getName());
+        final List<OrderDto> orderList = new ArrayList<>(person.getOrderList().size());
+        person.getOrderList().forEach(order -> orderList.add(this.orderMapper.toDto(order)));
+        dto.setOrderList(orderList);
+        return dto;
+    }
+
+    /**
+     * maps a registration request to a new person without orders
+     */
+    @NotNull
+    public Person toEntity(@NotNull final PersonCreateDto request) {
+        return new Person(request.getName());
+    }
+}
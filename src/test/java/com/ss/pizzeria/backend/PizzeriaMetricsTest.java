@@ -0,0 +1,81 @@
+package com.ss.pizzeria.backend;
+
+import com.ss.pizzeria.backend.rest.filter.TokenAuthenticationFilter;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the metrics scraped in the Prometheus format, against an in-memory database.
+ * The management properties repeat those of the main application.properties, which the test resources hide.
+ *
+ * @author Sneha
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_ON_EXIT=FALSE",
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.metrics.distribution.percentiles-histogram.http.server.requests=true",
+        "management.metrics.distribution.percentiles-histogram.spring.data.repository.invocations=true"})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class PizzeriaMetricsTest {
+
+    private static final String ORDERS = Constants.Paths.API + Constants.Paths.ORDERS;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokens jwtTokens;
+
+    @Test
+    void prometheus_timersGaugesAndErrors() throws Exception {
+        // request: one of each error, and a read going down to the repository
+        this.mockMvc.perform(post(ORDERS).contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isUnauthorized());
+        this.mockMvc.perform(post(ORDERS).header(TokenAuthenticationFilter.TOKEN_HEADER, "forged")
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isUnauthorized());
+        this.mockMvc.perform(delete(ORDERS + "/999999")
+                        .header(TokenAuthenticationFilter.TOKEN_HEADER, this.jwtTokens.issue("test")))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(get(ORDERS).param(Constants.Params.LIMIT, "0")).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(ORDERS)).andExpect(status().isOk());
+
+        // response
+        final String scrape = this.mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertScraped(scrape, "http_server_requests_seconds_bucket{");
+        assertScraped(scrape, "pizzeria_service_seconds_bucket{");
+        assertScraped(scrape, "method=\"forEachOrderSortedByTime\"");
+        assertScraped(scrape, "spring_data_repository_invocations_seconds_bucket{");
+        assertScraped(scrape, "hikaricp_connections_active{");
+        assertScraped(scrape, "hikaricp_connections_max{");
+        assertScraped(scrape, "pizzeria_writes_limit ");
+        assertScraped(scrape, "pizzeria_writes_in_flight ");
+        assertScraped(scrape, "pizzeria_writes_rejected_total ");
+        assertScraped(scrape, "cache_gets_total{cache=\"customer_orders\"");
+        assertScraped(scrape, "cache_gets_total{cache=\"persons\"");
+        assertScraped(scrape, "cache_gets_total{cache=\"order_json\"");
+        assertScraped(scrape, "cache_evictions_total{cache=\"order_json\"");
+        assertScraped(scrape, "pizzeria_errors_total{reason=\"missing_token\",status=\"401\",}");
+        assertScraped(scrape, "pizzeria_errors_total{reason=\"incorrect_token\",status=\"401\",}");
+        assertScraped(scrape, "pizzeria_errors_total{reason=\"NoSuchElementException\",status=\"404\",}");
+        assertScraped(scrape, "pizzeria_errors_total{reason=\"InvalidRequestException\",status=\"400\",}");
+    }
+
+    private static void assertScraped(final String scrape, final String expected) {
+        assertTrue(scrape.contains(expected), () -> "Scrape should contain " + expected);
+    }
+}
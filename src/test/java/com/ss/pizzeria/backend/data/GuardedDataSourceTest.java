@@ -0,0 +1,51 @@
+package com.ss.pizzeria.backend.data;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the bounds of {@link GuardedDataSource}
+ *
+ * @author Sneha
+ */
+class GuardedDataSourceTest {
+
+    @Test
+    void getConnection_failsFastBeyondBound() throws SQLException {
+        // mock
+        final DataSource pool = Mockito.mock(DataSource.class);
+        final Connection pooled = Mockito.mock(Connection.class);
+        Mockito.when(pool.getConnection()).thenReturn(pooled);
+        final GuardedDataSource dataSource = new GuardedDataSource(pool, 1, 1);
+
+        final Connection first = dataSource.getConnection();
+        final Connection second = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection,
+                "Threads beyond the pool and the waiting ones should be turned away");
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.availablePermits(), "Closing twice should give the permit back once");
+        Mockito.verify(pooled, Mockito.times(2)).close();
+        second.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void getConnection_releasesOnFailure() throws SQLException {
+        // mock
+        final DataSource pool = Mockito.mock(DataSource.class);
+        Mockito.when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+        final GuardedDataSource dataSource = new GuardedDataSource(pool, 1, 0);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.availablePermits(), "Failed waits should give their permit back");
+    }
+}
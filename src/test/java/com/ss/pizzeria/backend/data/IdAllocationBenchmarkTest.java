@@ -0,0 +1,165 @@
+package com.ss.pizzeria.backend.data;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.data.model.PooledSequenceGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JMH comparison of the insert throughput of orders, with ids reserved in blocks by the per-entity sequences,
+ * against a sequence call before every insert, as the shared hibernate_sequence did with its increment of 1.
+ * Both store into an in-memory database served over TCP on the loopback interface, so every statement
+ * costs a round trip, as against a database server, though a far shorter one. Hibernate takes long to compile
+ * on few cores, hence the long warmup; the fixed heap keeps its resizing out of the measurement.
+ * Run with `mvn test -Pbenchmark -Dtest=IdAllocationBenchmarkTest`.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class IdAllocationBenchmarkTest {
+
+    /* orders inserted per transaction */
+    private static final int ORDERS = 500;
+
+    /* 1 takes an id per sequence call, like before the pooled sequences */
+    @Param({"1", "" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE})
+    public int allocationSize;
+
+    private Server server;
+
+    private HikariDataSource dataSource;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long personId;
+
+    @Setup
+    public void startDatabase() throws SQLException {
+        // the forked benchmark JVM is not a Spring Boot application, which would set the log levels
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+        this.server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        this.dataSource = new HikariDataSource();
+        this.dataSource.setJdbcUrl("jdbc:h2:tcp://localhost:" + this.server.getPort() + "/mem:ids"
+                + this.allocationSize + ";DB_CLOSE_DELAY=-1");
+        final LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(this.dataSource);
+        factory.setPackagesToScan(Order.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // the insert settings of application.properties, persons are looked up by reference only
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.jdbc.batch_size", "50",
+                "hibernate.order_inserts", "true",
+                "hibernate.cache.use_second_level_cache", "false",
+                PooledSequenceGenerator.ALLOCATION_SIZE, this.allocationSize));
+        factory.afterPropertiesSet();
+        this.entityManagerFactory = factory.getObject();
+
+        final EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        final Person person = new Person("Benchmark");
+        entityManager.persist(person);
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        this.personId = person.getId();
+    }
+
+    /**
+     * keeps every iteration inserting into a table of the same size
+     */
+    @TearDown(Level.Iteration)
+    public void deleteOrders() {
+        final EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from Order").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @TearDown
+    public void stopDatabase() {
+        this.entityManagerFactory.close();
+        this.dataSource.close();
+        this.server.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void insertOrders() {
+        final EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        final Person person = entityManager.getReference(Person.class, this.personId);
+        for (int i = 0; i < ORDERS; i++) {
+            entityManager.persist(buildOrder(person));
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @Test
+    void pooledIds_fasterThanIdPerInsert() throws Exception {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(IdAllocationBenchmarkTest.class.getName() + "\\.")
+                .build()).run();
+        final Map<String, Double> ordersPerSecond = results.stream().collect(Collectors.toMap(
+                result -> result.getParams().getParam("allocationSize"),
+                result -> result.getPrimaryResult().getScore()));
+        log.info("Inserted orders per second by allocation size: {}", ordersPerSecond);
+        assertTrue(ordersPerSecond.get(String.valueOf(PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE))
+                        > ordersPerSecond.get("1"),
+                "Reserving ids in blocks should insert faster than a sequence call per insert");
+    }
+
+    private static Order buildOrder(final Person person) {
+        final Order o = new Order();
+        o.setCrust(Pizza.Crust.THIN);
+        o.setSize(Pizza.Size.M);
+        o.setFlavour(Pizza.Flavour.REGINA);
+        o.setTableNo(1);
+        o.setCustomer(person);
+        return o;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ss.pizzeria.backend.data;
+
+import com.ss.pizzeria.backend.data.dao.OrderRepository;
+import com.ss.pizzeria.backend.data.dao.PersonRepository;
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests a smaller id block size than the increment of the sequences in an existing database.
+ * The sequences are created before the application context, as a previous run with blocks of 50 left them.
+ *
+ * @author Sneha
+ */
+@DataJpaTest(properties = {"spring.datasource.url=" + IdSequencesIncrementTest.URL,
+        "spring.jpa.hibernate.ddl-auto=update",
+        "pizzeria.ids.allocation-size=10"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdSequences.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequencesIncrementTest {
+
+    static final String URL = "jdbc:h2:mem:increment;DB_CLOSE_DELAY=-1";
+
+    /* block size of the previous run */
+    private static final int PREVIOUS_INCREMENT = 50;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createSequences() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sequence : List.of("orders_seq", "persons_seq")) {
+                statement.execute("create sequence " + sequence + " start with 1 increment by " + PREVIOUS_INCREMENT);
+                statement.execute("call next value for " + sequence);
+            }
+        }
+    }
+
+    @Test
+    void saveAll_smallerBlocksGiveUniqueIds() {
+        assertEquals(10L, this.jdbcTemplate.queryForObject(
+                "select INCREMENT from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = 'ORDERS_SEQ'", Long.class),
+                "Sequence should have the configured increment before any id is handed out");
+
+        // dataset, more than two blocks of both the previous and the configured size
+        final Person person = this.personRepository.saveAndFlush(new Person("Blocks"));
+        final int count = 2 * PREVIOUS_INCREMENT + 1;
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final Order o = new Order();
+            o.setCrust(Pizza.Crust.THIN);
+            o.setSize(Pizza.Size.M);
+            o.setFlavour(Pizza.Flavour.REGINA);
+            o.setTableNo(1);
+            o.setCustomer(person);
+            orders.add(o);
+        }
+        this.orderRepository.saveAllAndFlush(orders);
+
+        assertEquals(count, orders.stream().map(Order::getId).distinct().count(), "Every id should be unique");
+        assertEquals(count, this.orderRepository.count(), "Every order should be stored");
+    }
+}
@@ -0,0 +1,111 @@
+package com.ss.pizzeria.backend.data;
+
+import com.ss.pizzeria.backend.data.dao.OrderRepository;
+import com.ss.pizzeria.backend.data.dao.PersonRepository;
+import com.ss.pizzeria.backend.data.dao.StatementCapture;
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.data.model.PooledSequenceGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the pooled id allocation and the migration of the id sequences against an embedded database.
+ * Sequence changes are DDL and commit right away in H2, so the tests do not run in a rolled back transaction.
+ *
+ * @author Sneha
+ */
+@DataJpaTest(properties = StatementCapture.PROPERTY)
+@Import(IdSequences.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequencesTest {
+
+    @Autowired
+    private IdSequences idSequences;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        this.orderRepository.deleteAllInBatch();
+        this.personRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void saveAll_oneSequenceCallPerBlock() {
+        // dataset
+        final Person person = this.personRepository.saveAndFlush(new Person("Blocks"));
+        final int count = 2 * PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + 1;
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orders.add(buildOrder(person));
+        }
+
+        StatementCapture.clear();
+        this.orderRepository.saveAllAndFlush(orders);
+
+        final long sequenceCalls = StatementCapture.statements().stream()
+                .filter(sql -> sql.contains("orders_seq"))
+                .count();
+        assertTrue(sequenceCalls <= 3, "Ids should be fetched in blocks, but took " + sequenceCalls + " calls");
+        assertEquals(count, orders.stream().map(Order::getId).distinct().count(), "Every id should be unique");
+    }
+
+    @Test
+    // the migration runs before any id is handed out, so the generators must not hold blocks of earlier tests
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void migrate_restartsSequencesAfterExistingIds() {
+        // dataset, as left behind by the shared hibernate_sequence
+        this.jdbcTemplate.update("insert into persons (id, name) values (1000, 'Legacy')");
+        this.jdbcTemplate.update("insert into orders (id, crust, size, table_no, flavour, person_id, timestamp)"
+                + " values (5000, 0, 0, 1, 0, 1000, 1)");
+
+        this.idSequences.afterPropertiesSet();
+
+        final Person person = this.personRepository.saveAndFlush(new Person("New"));
+        final Order order = this.orderRepository.saveAndFlush(buildOrder(person));
+        assertTrue(person.getId() > 1000, "New person should get an id after the existing ones");
+        assertTrue(order.getId() > 5000, "New order should get an id after the existing ones");
+
+        // a second run leaves migrated sequences alone
+        final Long next = this.jdbcTemplate.queryForObject(
+                "select CURRENT_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = 'ORDERS_SEQ'", Long.class);
+        this.idSequences.afterPropertiesSet();
+        assertEquals(next, this.jdbcTemplate.queryForObject(
+                "select CURRENT_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = 'ORDERS_SEQ'", Long.class),
+                "Migrated sequence should not be restarted again");
+    }
+
+    /**
+     * builds a new Order for given person
+     */
+    private Order buildOrder(final Person person) {
+        final Order o = new Order();
+        o.setCrust(Pizza.Crust.THIN);
+        o.setSize(Pizza.Size.M);
+        o.setFlavour(Pizza.Flavour.REGINA);
+        o.setTableNo(1);
+        o.setCustomer(person);
+        return o;
+    }
+}
@@ -0,0 +1,226 @@
+package com.ss.pizzeria.backend.data;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.data.dao.OrderRepository;
+import com.ss.pizzeria.backend.data.dao.PersonRepository;
+import com.ss.pizzeria.backend.data.dao.StatementCapture;
+import com.ss.pizzeria.backend.data.model.OrderView;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderBatchResultDto;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import com.ss.pizzeria.backend.service.PizzeriaService;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import com.ss.pizzeria.backend.service.mapper.PersonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the second-level cache of persons and the query cache against an embedded database.
+ * The cache is only written on commit, so the tests do not run in a rolled back transaction.
+ * The batching properties repeat those of the main application.properties, which the test resources hide.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@DataJpaTest(properties = {StatementCapture.PROPERTY,
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "pizzeria.persons.query-cache.enabled=true"})
+@Import({SecondLevelCache.class, PizzeriaService.class, OrderMapper.class, PersonMapper.class,
+        CustomerOrdersCache.class, OrderVersions.class, OrderJsonCache.class, JwtTokens.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PizzeriaService pizzeriaService;
+
+    @AfterEach
+    void tearDown() {
+        this.orderRepository.deleteAllInBatch();
+        this.personRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void registerPerson_cachedOnCommit() {
+        final PersonDto registered = register("Axel");
+
+        assertTrue(this.entityManagerFactory.getCache().contains(Person.class, registered.getPersonId()),
+                "Registered person should be cached");
+        StatementCapture.clear();
+        final Person person = this.personRepository.findById(registered.getPersonId()).orElseThrow();
+        assertEquals("Axel", person.getName(), "Cached person should keep its name");
+        assertEquals(0, StatementCapture.statements().size(), "Cached person should be read without a query");
+    }
+
+    @Test
+    void createOrders_repeatCustomersWithoutQuery() {
+        // dataset
+        final Long cached = register("Cached").getPersonId();
+        final Long evicted = register("Evicted").getPersonId();
+        this.entityManagerFactory.getCache().evict(Person.class, evicted);
+        final List<OrderCreateDto> requests = List.of(request(cached), request(evicted), request(cached));
+
+        // first batch: only the evicted customer is read
+        StatementCapture.clear();
+        assertEquals(3, this.pizzeriaService.createOrders(requests, false).getCreated(), "Every order should be created");
+        assertEquals(1, count("select"), "Only the uncached customer should be queried");
+
+        // repeat customers: no query at all
+        StatementCapture.clear();
+        assertEquals(3, this.pizzeriaService.createOrders(requests, false).getCreated(), "Every order should be created");
+        assertEquals(0, count("select"), "Repeat customers should come from the cache");
+        assertEquals(1, count("insert into orders"), "Orders should still be inserted");
+    }
+
+    @Test
+    void createOrders_nullCustomerReportedPerItem() {
+        // dataset
+        final Long cached = register("Cached").getPersonId();
+        // as parsed from a batch item without a Customer_ID
+        final OrderCreateDto withoutCustomer = new OrderCreateDto();
+        withoutCustomer.setCrust(Pizza.Crust.THIN);
+        withoutCustomer.setFlavour(Pizza.Flavour.HAWAII);
+        withoutCustomer.setSize(Pizza.Size.M);
+        withoutCustomer.setTableNo(7);
+        final List<OrderCreateDto> requests = List.of(request(cached), withoutCustomer);
+
+        // the null id is reported with its item, the other order is created
+        final OrderBatchResultDto result = this.pizzeriaService.createOrders(requests, false);
+        assertEquals(1, result.getCreated(), "Order of the known customer should be created");
+        assertNull(result.getItems().get(0).getError(), "Order of the known customer should not fail");
+        assertEquals(Constants.Messages.INCOMPLETE_NEW_ORDER, result.getItems().get(1).getError(),
+                "Order without a customer should be reported");
+
+        // a null id is left out of the lookup, instead of failing it
+        final List<Person> found = this.personRepository.findAllByIdCacheFirst(Arrays.asList(cached, null));
+        assertEquals(List.of(cached), found.stream().map(Person::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findCustomerWithOrders_queryCacheDroppedOnWrite() {
+        // dataset
+        final Long customer = register("Regular").getPersonId();
+        this.pizzeriaService.createOrder(request(customer));
+
+        assertEquals(1, this.orderRepository.findCustomerWithOrdersSortedByTime(customer).size());
+        StatementCapture.clear();
+        assertEquals(1, this.orderRepository.findCustomerWithOrdersSortedByTime(customer).size());
+        assertEquals(0, count("select"), "Repeated query should come from the query cache");
+
+        // a write to the orders table makes the next read query again, and see the new order
+        this.pizzeriaService.createOrder(request(customer));
+        StatementCapture.clear();
+        final List<OrderView> orders = this.orderRepository.findCustomerWithOrdersSortedByTime(customer);
+        assertEquals(2, orders.size(), "Cached result should not outlive a write");
+        assertEquals(1, count("select"), "Query should run again after the write");
+
+        // so does a delete, though it runs as a select returning the deleted row
+        this.pizzeriaService.removeOrder(orders.get(0).getId().toString());
+        StatementCapture.clear();
+        assertEquals(1, this.orderRepository.findCustomerWithOrdersSortedByTime(customer).size(),
+                "Cached result should not outlive a delete");
+        assertEquals(1, count("select"), "Query should run again after the delete");
+    }
+
+    @Test
+    void lookups_benchmarkAndHitRatio() throws Exception {
+        // dataset
+        final List<Long> ids = LongStream.range(0, 20)
+                .mapToObj(i -> register("Guest" + i).getPersonId())
+                .collect(Collectors.toList());
+        final int rounds = 500;
+
+        StatementCapture.clear();
+        final long coldStart = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            this.entityManagerFactory.getCache().evict(Person.class);
+            assertEquals(ids.size(), this.personRepository.findAllByIdCacheFirst(ids).size());
+        }
+        final long coldNanos = System.nanoTime() - coldStart;
+        final long coldQueries = count("select");
+
+        StatementCapture.clear();
+        final long warmStart = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            assertEquals(ids.size(), this.personRepository.findAllByIdCacheFirst(ids).size());
+        }
+        final long warmNanos = System.nanoTime() - warmStart;
+        final long warmQueries = count("select");
+
+        log.info("{} lookups of {} customers: {} queries and {} us per lookup without the cache, "
+                        + "{} queries and {} us per lookup with it", rounds, ids.size(),
+                coldQueries, TimeUnit.NANOSECONDS.toMicros(coldNanos / rounds),
+                warmQueries, TimeUnit.NANOSECONDS.toMicros(warmNanos / rounds));
+        assertEquals(rounds, coldQueries, "Every uncached lookup should take one query");
+        assertEquals(0, warmQueries, "Cached lookups should take no query");
+
+        // hit ratio of the persons region, as published over JMX
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final Set<ObjectName> names = server.queryNames(new ObjectName(
+                "javax.cache:type=CacheStatistics,Cache=" + SecondLevelCache.PERSONS_REGION + ",*"), null);
+        assertFalse(names.isEmpty(), "Statistics of the persons region should be published");
+        final float hitPercentage = names.stream()
+                .map(name -> {
+                    try {
+                        return (Float) server.getAttribute(name, "CacheHitPercentage");
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                })
+                .max(Float::compare).orElseThrow();
+        log.info("Hit percentage of the persons region: {}", hitPercentage);
+        assertTrue(hitPercentage > 0, "Cached lookups should count as hits");
+    }
+
+    private PersonDto register(final String name) {
+        final PersonCreateDto request = new PersonCreateDto();
+        request.setName(name);
+        return this.pizzeriaService.registerPerson(request);
+    }
+
+    private OrderCreateDto request(final Long customerId) {
+        return new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 7, customerId);
+    }
+
+    private long count(final String prefix) {
+        return StatementCapture.statements().stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith(prefix))
+                .count();
+    }
+}
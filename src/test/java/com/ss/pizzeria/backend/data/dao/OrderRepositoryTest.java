@@ -0,0 +1,179 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.OrderView;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the custom queries of {@link OrderRepository} against an embedded database
+ *
+ * @author Sneha
+ */
+@Slf4j
+@DataJpaTest(properties = {"pizzeria.orders.stream.fetch-size=" + OrderRepositoryTest.FETCH_SIZE,
+        StatementCapture.PROPERTY})
+class OrderRepositoryTest {
+
+    static final int FETCH_SIZE = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Person person;
+
+    @BeforeEach
+    void setUp() {
+        this.person = this.entityManager.persist(new Person("Paging"));
+    }
+
+    @Test
+    void pagesSortedByTime_visitEveryOrderOnce() {
+        // dataset with several orders sharing a timestamp
+        final long[] timestamps = {30L, 10L, 20L, 20L, 20L, 10L, 40L};
+        for (long timestamp : timestamps) {
+            persistOrder(timestamp);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+        final List<Long> expected = new ArrayList<>();
+        this.orderRepository.findAll(Sort.by("timestamp", "id")).forEach(order -> expected.add(order.getId()));
+
+        // walk all pages
+        final int limit = 2;
+        final List<Long> visited = new ArrayList<>();
+        List<OrderView> page = this.orderRepository.findFirstPageSortedByTime(PageRequest.of(0, limit));
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= limit, "Page should never exceed the limit");
+            page.forEach(order -> visited.add(order.getId()));
+            final OrderView last = page.get(page.size() - 1);
+            page = this.orderRepository.findPageSortedByTimeAfter(last.getTimestamp(), last.getId(),
+                    PageRequest.of(0, limit));
+        }
+
+        assertEquals(expected, visited, "Pages should return every order exactly once, in (timestamp, id) order");
+    }
+
+    @Test
+    void customerWithOrders_oneStatementPerLookup() {
+        // dataset
+        final Person idle = this.entityManager.persist(new Person("Idle"));
+        final Order late = persistOrder(20L);
+        final Order early = persistOrder(5L);
+        final Order middle = persistOrder(10L);
+        this.entityManager.flush();
+        this.entityManager.clear();
+        final Long unknownId = idle.getId() + 100;
+
+        // customer with orders
+        StatementCapture.clear();
+        final List<OrderView> orders = this.orderRepository.findCustomerWithOrdersSortedByTime(this.person.getId());
+        assertEquals(1, StatementCapture.statements().size(), "Lookup should run a single statement");
+        final List<Long> ids = new ArrayList<>();
+        orders.forEach(order -> ids.add(order.getId()));
+        assertEquals(List.of(early.getId(), middle.getId(), late.getId()), ids,
+                "Every order of the customer should be returned, sorted by time");
+
+        // customer without orders
+        StatementCapture.clear();
+        final List<OrderView> none = this.orderRepository.findCustomerWithOrdersSortedByTime(idle.getId());
+        assertEquals(1, StatementCapture.statements().size(), "Lookup should run a single statement");
+        assertEquals(1, none.size(), "Existing customer should be returned as a single row");
+        assertNull(none.get(0).getId(), "Existing customer without orders should have no order id");
+        assertEquals(idle.getId(), none.get(0).getCustomerId(), "Row should carry the customer id");
+
+        // unknown customer
+        StatementCapture.clear();
+        assertTrue(this.orderRepository.findCustomerWithOrdersSortedByTime(unknownId).isEmpty(),
+                "Unknown customer should return no rows");
+        assertEquals(1, StatementCapture.statements().size(), "Lookup should run a single statement");
+    }
+
+    @Test
+    void streamAllSortedByTime_managesNoEntitiesAtAnyRowCount() {
+        // the persistence context is what would keep streamed rows reachable, so track its size per row;
+        // this checks that streamed rows stay unmanaged, not the heap itself
+        persistOrders(2 * FETCH_SIZE);
+        final int smallTableMax = maxManagedEntitiesWhileStreaming(2 * FETCH_SIZE);
+        persistOrders(18 * FETCH_SIZE);
+        final int largeTableMax = maxManagedEntitiesWhileStreaming(20 * FETCH_SIZE);
+
+        assertEquals(0, largeTableMax, "Streamed projections should never become managed entities");
+        assertEquals(smallTableMax, largeTableMax,
+                "Managed entities while streaming should not depend on the number of rows");
+    }
+
+    /**
+     * streams all orders, checks their sorting and returns the highest number of managed entities seen
+     */
+    private int maxManagedEntitiesWhileStreaming(final int expectedRows) {
+        final Session session = this.entityManager.getEntityManager().unwrap(Session.class);
+        final int[] max = {0};
+        final OrderView[] previous = {null};
+        final long[] rows = {0L};
+        try (Stream<OrderView> orders = this.orderRepository.streamAllSortedByTime()) {
+            orders.forEach(order -> {
+                final OrderView last = previous[0];
+                assertTrue(last == null || last.getTimestamp() < order.getTimestamp()
+                                || last.getTimestamp() == order.getTimestamp() && last.getId() < order.getId(),
+                        "Orders should be streamed in (timestamp, id) order");
+                previous[0] = order;
+                max[0] = Math.max(max[0], session.getStatistics().getEntityCount());
+                rows[0]++;
+            });
+        }
+        assertEquals(expectedRows, rows[0], "Every order should be streamed");
+        return max[0];
+    }
+
+    /**
+     * persists the given number of orders for the test person and detaches them
+     */
+    private void persistOrders(final int count) {
+        for (int i = 0; i < count; i++) {
+            persistOrder(i % 7);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+    }
+
+    /**
+     * persists a new Order for the test person with given timestamp
+     */
+    private Order persistOrder(final long timestamp) {
+        return persistOrder(this.person, timestamp);
+    }
+
+    /**
+     * persists a new Order for given person with given timestamp
+     */
+    private Order persistOrder(@NonNull final Person p, final long timestamp) {
+        final Order o = new Order();
+        o.setCrust(Pizza.Crust.THIN);
+        o.setSize(Pizza.Size.M);
+        o.setFlavour(Pizza.Flavour.REGINA);
+        o.setTableNo(1);
+        o.setCustomer(p);
+        o.setTimestamp(timestamp);
+        return this.entityManager.persist(o);
+    }
+}
@@ -0,0 +1,172 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs H2 EXPLAIN on the SQL of every custom repository query, and fails when a query
+ * has to scan or sort the whole table instead of using an index.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@DataJpaTest(properties = StatementCapture.PROPERTY)
+class QueryPlanTest {
+
+    /* H2 marks plans which read every row of a table with this comment */
+    private static final String TABLE_SCAN = "tableScan";
+
+    /* H2 marks plans which read the rows in ORDER BY order from an index with this comment */
+    private static final String INDEX_SORTED = "index sorted";
+
+    /*
+     * H2 1.4.200 never reports "index sorted" after an equality lookup, even on (person_id, timestamp, id),
+     * so a lookup like "PERSON_ID = ?1" is accepted instead: only the rows of that key get sorted
+     */
+    private static final Pattern EQUALITY_LOOKUP = Pattern.compile("/\\* [\\w.]+: \\w+ = \\?\\d+ \\*/");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Person person;
+
+    @BeforeEach
+    void setUp() {
+        final List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            people.add(this.entityManager.persist(new Person("Plan" + i)));
+        }
+        for (int i = 0; i < 500; i++) {
+            final Order o = new Order();
+            o.setCrust(Pizza.Crust.THIN);
+            o.setSize(Pizza.Size.L);
+            o.setFlavour(Pizza.Flavour.HAWAII);
+            o.setTableNo(i % 12);
+            o.setCustomer(people.get(i % people.size()));
+            o.setTimestamp(i / 3);
+            this.entityManager.persist(o);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+        this.jdbcTemplate.execute("ANALYZE");
+        this.person = people.get(0);
+    }
+
+    /**
+     * every custom query of the repositories, by method name
+     */
+    private Map<String, Runnable> queries() {
+        final Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findAllSortedByTime", () -> this.orderRepository.findAllSortedByTime());
+        queries.put("findCustomerWithOrdersSortedByTime",
+                () -> this.orderRepository.findCustomerWithOrdersSortedByTime(this.person.getId()));
+        queries.put("findFirstPageSortedByTime",
+                () -> this.orderRepository.findFirstPageSortedByTime(PageRequest.of(0, 20)));
+        queries.put("findPageSortedByTimeAfter",
+                () -> this.orderRepository.findPageSortedByTimeAfter(100L, 1L, PageRequest.of(0, 20)));
+        queries.put("findViewById", () -> this.orderRepository.findViewById(Long.MAX_VALUE));
+        queries.put("updateOrder", () -> this.orderRepository.updateOrder(Long.MAX_VALUE, 0L, null, null,
+                Pizza.Size.M, null));
+        queries.put("findCustomerIdsByIds", () -> this.orderRepository.findCustomerIdsByIds(List.of(Long.MAX_VALUE)));
+        queries.put("deleteOrderReturningCustomerId",
+                () -> this.orderRepository.deleteOrderReturningCustomerId(Long.MAX_VALUE));
+        queries.put("findIdsByTimeRange",
+                () -> this.orderRepository.findIdsByTimeRange(0L, 100L, PageRequest.of(0, 20)));
+        queries.put("findIdsByCustomerAndTimeRange", () -> this.orderRepository.findIdsByCustomerAndTimeRange(
+                this.person.getId(), 0L, 100L, PageRequest.of(0, 20)));
+        queries.put("deleteOrdersByIds", () -> this.orderRepository.deleteOrdersByIds(List.of(Long.MAX_VALUE)));
+        queries.put("streamAllSortedByTime",
+                () -> this.orderRepository.streamAllSortedByTime().limit(1).forEach(order -> { }));
+        queries.put("findAllByIdCacheFirst", () -> {
+            // persons in the second-level cache would need no query
+            this.entityManager.getEntityManager().getEntityManagerFactory().getCache().evict(Person.class);
+            this.personRepository.findAllByIdCacheFirst(List.of(this.person.getId(), Long.MAX_VALUE));
+        });
+        queries.put("deleteCreatedBefore", () -> this.idempotencyKeyRepository.deleteCreatedBefore(100L));
+        queries.put("deleteExpired", () -> this.idempotencyKeyRepository.deleteExpired("key", 100L));
+        return queries;
+    }
+
+    @Test
+    void everyQueryHasAPlanCheck() {
+        final Set<String> declared = new TreeSet<>();
+        for (Class<?> repository : List.of(OrderRepository.class, OrderRepositoryCustom.class, PersonRepository.class,
+                PersonRepositoryCustom.class, IdempotencyKeyRepository.class)) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && !method.isDefault() && !method.isSynthetic()) {
+                    declared.add(method.getName());
+                }
+            }
+        }
+        assertEquals(declared, new TreeSet<>(queries().keySet()),
+                "Every repository query needs an entry in QueryPlanTest.queries()");
+    }
+
+    @TestFactory
+    Stream<DynamicTest> noQueryScansTheTable() {
+        return queries().entrySet().stream().map(query -> DynamicTest.dynamicTest(query.getKey(), () -> {
+            StatementCapture.clear();
+            query.getValue().run();
+            final List<String> statements = StatementCapture.statements();
+            assertFalse(statements.isEmpty(), query.getKey() + " should run at least one statement");
+            for (String sql : statements) {
+                final String plan = explain(sql);
+                log.info("\n{}\n{}", query.getKey(), plan);
+                assertFalse(plan.contains(TABLE_SCAN), query.getKey() + " should not scan the table:\n" + plan);
+                if (sql.contains(" order by ")) {
+                    assertTrue(plan.contains(INDEX_SORTED) || EQUALITY_LOOKUP.matcher(plan).find(), query.getKey() + " should not sort in memory:\n" + plan);
+                }
+            }
+        }));
+    }
+
+    /**
+     * returns the H2 plan of given statement, binding a numeric value to every parameter
+     */
+    private String explain(final String sql) {
+        return this.jdbcTemplate.query(connection -> {
+            final var statement = connection.prepareStatement("EXPLAIN " + sql);
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setLong(i, 1L);
+            }
+            return statement;
+        }, resultSet -> {
+            final StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1));
+            }
+            return plan.toString();
+        });
+    }
+}
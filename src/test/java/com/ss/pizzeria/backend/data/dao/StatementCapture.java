@@ -0,0 +1,41 @@
+package com.ss.pizzeria.backend.data.dao;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL statement Hibernate prepares, to be registered with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}
+ *
+ * @author Sneha
+ */
+public class StatementCapture implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.ss.pizzeria.backend.data.dao.StatementCapture";
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    /**
+     * forgets all statements recorded so far
+     */
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /**
+     * statements recorded since the last clear
+     */
+    public static List<String> statements() {
+        return new ArrayList<>(STATEMENTS);
+    }
+}
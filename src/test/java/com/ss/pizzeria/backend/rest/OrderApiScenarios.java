@@ -0,0 +1,604 @@
+package com.ss.pizzeria.backend.rest;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.AccessTokenDto;
+import com.ss.pizzeria.backend.rest.dto.OrderBatchResultDto;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDeleteResultDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.OrderPageDto;
+import com.ss.pizzeria.backend.rest.dto.OrderUpdateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import com.ss.pizzeria.backend.rest.dto.UserAuthDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The scenarios of the REST API, which the servlet application and the reactive module both have to pass,
+ * end to end down to an in-memory database. Subclasses bind the client to their stack.
+ * Every scenario registers customers of its own, so scenarios depend neither on each other nor on seeded data.
+ *
+ * @author Sneha
+ */
+public abstract class OrderApiScenarios {
+
+    protected static final String ORDERS = Constants.Paths.API + Constants.Paths.ORDERS;
+
+    private WebTestClient client;
+
+    /* valid token of the `test' user, as issued by the API */
+    private String token;
+
+    /**
+     * a client sending requests to the stack under test
+     */
+    @NonNull
+    protected abstract WebTestClient bindClient();
+
+    @BeforeEach
+    void logIn() {
+        this.client = bindClient();
+        final AccessTokenDto access = this.client.post().uri(Constants.Paths.API + Constants.Paths.AUTH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserAuthDto(Constants.Users.USERNAME, Constants.Users.PASSWORD))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AccessTokenDto.class).returnResult().getResponseBody();
+        assertNotNull(access, "Login should answer a token");
+        assertFalse(access.getAccessToken().isEmpty(), "Token should not be empty");
+        this.token = access.getAccessToken();
+    }
+
+    @Test
+    void authenticateApi_responseUnAuthorized() {
+        // request
+        this.client.post().uri(Constants.Paths.API + Constants.Paths.AUTH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserAuthDto(Constants.Users.USERNAME, "wrong"))
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.BAD_CREDENTIALS);
+    }
+
+    @Test
+    void addPerson_responseCreated() {
+        // request
+        final PersonDto person = this.client.post().uri(Constants.Paths.API + Constants.Paths.REG)
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(person("Ada"))
+                .exchange()
+                // response
+                .expectStatus().isCreated()
+                .expectBody(PersonDto.class).returnResult().getResponseBody();
+        assertNotNull(person, "Registered person should be returned");
+        assertNotNull(person.getPersonId(), "Registered person should have an id");
+        assertEquals("Ada", person.getName(), "Name should be stored");
+        // request, without token
+        this.client.post().uri(Constants.Paths.API + Constants.Paths.REG)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(person("Ada"))
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.MISSING_TOKEN);
+    }
+
+    @Test
+    void createOrder_responseCreated() {
+        // input
+        final long customer = register("Bob");
+        // request
+        final OrderDto created = create(order(customer, Pizza.Flavour.HAWAII));
+        // response
+        assertEquals(customer, created.getCustomerId(), "Order should belong to the customer");
+        assertEquals(Pizza.Flavour.HAWAII, created.getFlavour(), "Flavour should be stored");
+        assertEquals(0L, created.getVersion(), "New order should be at version 0");
+        assertEquals(List.of(created), readOrders(customer), "Customer should have the created order");
+    }
+
+    @Test
+    void createOrder_responseNotFoundOrBadRequest() {
+        // request, for an unknown customer
+        this.client.post().uri(ORDERS)
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order(987654321L, Pizza.Flavour.HAWAII))
+                .exchange()
+                // response
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + 987654321L);
+        // request, with an unparsable body
+        this.client.post().uri(ORDERS)
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{ bad body : incorrect}")
+                .exchange()
+                // response
+                .expectStatus().isBadRequest();
+        // request, without token
+        this.client.post().uri(ORDERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order(1L, Pizza.Flavour.HAWAII))
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.MISSING_TOKEN);
+    }
+
+    @Test
+    void createOrder_idempotencyKeyReplayed() {
+        // input
+        final long customer = register("Cid");
+        final String key = UUID.randomUUID().toString();
+        final OrderCreateDto order = order(customer, Pizza.Flavour.REGINA);
+        // request, twice with the same key
+        final OrderDto first = createWithKey(key, order, false);
+        final OrderDto second = createWithKey(key, order, true);
+        // response
+        assertEquals(first, second, "Repeat should answer the stored order");
+        assertEquals(List.of(first), readOrders(customer), "Order should be created once");
+        // request, the same key with another body
+        this.client.post().uri(ORDERS)
+                .header(Constants.Headers.TOKEN, this.token)
+                .header(Constants.Headers.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order(customer, Pizza.Flavour.HAWAII))
+                .exchange()
+                // response
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.IDEMPOTENCY_KEY_REUSED);
+    }
+
+    @Test
+    void getAllOrders_responseNotModified() {
+        // input
+        final long customer = register("Dan");
+        create(order(customer, Pizza.Flavour.HAWAII));
+        // request
+        final String etag = this.client.get().uri(ORDERS)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseHeaders().getETag();
+        assertNotNull(etag, "List should carry an ETag");
+        // request, unchanged
+        this.client.get().uri(ORDERS)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .exchange()
+                // response
+                .expectStatus().isNotModified();
+        // request, after another order
+        final OrderDto created = create(order(customer, Pizza.Flavour.REGINA));
+        final List<OrderDto> orders = this.client.get().uri(ORDERS)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, changed -> assertNotEquals(etag, changed,
+                        "ETag should change with the orders"))
+                .expectBodyList(OrderDto.class).returnResult().getResponseBody();
+        assertNotNull(orders, "List should be answered");
+        assertTrue(orders.contains(created), "List should hold the new order");
+    }
+
+    @Test
+    void getAllOrdersForPerson_responseNotModified() {
+        // input
+        final long customer = register("Eve");
+        final long other = register("Fay");
+        final OrderDto first = create(order(customer, Pizza.Flavour.HAWAII));
+        final OrderDto second = create(order(customer, Pizza.Flavour.REGINA));
+        // request
+        final String etag = this.client.get().uri(ORDERS + "/" + customer)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectBodyList(OrderDto.class).isEqualTo(List.of(first, second))
+                .returnResult().getResponseHeaders().getETag();
+        assertNotNull(etag, "List should carry an ETag");
+        // request, after an order of another customer
+        create(order(other, Pizza.Flavour.HAWAII));
+        this.client.get().uri(ORDERS + "/" + customer)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .exchange()
+                // response
+                .expectStatus().isNotModified();
+        // request, after an order of the customer
+        create(order(customer, Pizza.Flavour.QUARTTRO_FORMAGGI));
+        this.client.get().uri(ORDERS + "/" + customer)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectBodyList(OrderDto.class).hasSize(3);
+    }
+
+    @Test
+    void getAllOrdersForPerson_responseNotFoundOrBadRequest() {
+        // request
+        this.client.get().uri(ORDERS + "/987654321")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                // response
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + 987654321L);
+        // request
+        this.client.get().uri(ORDERS + "/abc")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INVALID_ID + "abc");
+    }
+
+    @Test
+    void getOrdersPage_everyOrderOnce() {
+        // input
+        final long customer = register("Gus");
+        final List<Long> created = new ArrayList<>();
+        for (Pizza.Flavour flavour : Pizza.Flavour.values()) {
+            created.add(create(order(customer, flavour)).getOrderId());
+        }
+        // request, every page
+        final List<OrderDto> paged = new ArrayList<>();
+        String after = null;
+        do {
+            final OrderPageDto page = readPage(2, after);
+            assertTrue(page.getOrders().size() <= 2, "Page should hold at most limit orders");
+            paged.addAll(page.getOrders());
+            after = page.getNextCursor();
+        } while (after != null);
+        // response
+        final List<Long> ids = paged.stream().map(OrderDto::getOrderId).collect(Collectors.toList());
+        assertEquals(ids.size(), new HashSet<>(ids).size(), "No order should be on two pages");
+        assertEquals(created, ids.stream().filter(created::contains).collect(Collectors.toList()),
+                "Orders of the customer should be paged in creation order");
+        final List<OrderDto> all = this.client.get().uri(ORDERS)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectBodyList(OrderDto.class).returnResult().getResponseBody();
+        assertNotNull(all, "List should be answered");
+        assertEquals(new HashSet<>(all), new HashSet<>(paged), "Pages should hold every order of the list");
+    }
+
+    @Test
+    void getOrdersPage_responseBadRequest() {
+        // request
+        this.client.get().uri(uri -> uri.path(ORDERS).queryParam(Constants.Params.LIMIT, 0).build())
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INVALID_LIMIT);
+        // request
+        this.client.get().uri(uri -> uri.path(ORDERS).queryParam(Constants.Params.LIMIT, 2)
+                        .queryParam(Constants.Params.AFTER, "not-a-cursor").build())
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INVALID_CURSOR + "not-a-cursor");
+    }
+
+    @Test
+    void replaceOrder_responseOkOrConflict() {
+        // input
+        final OrderDto created = create(order(register("Hal"), Pizza.Flavour.HAWAII));
+        final OrderUpdateDto replacement = new OrderUpdateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA,
+                Pizza.Size.M, 7, created.getVersion());
+        // request
+        final OrderDto replaced = this.client.put().uri(ORDERS + "/" + created.getOrderId())
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(replacement)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectBody(OrderDto.class).returnResult().getResponseBody();
+        assertNotNull(replaced, "Replaced order should be returned");
+        assertEquals(Pizza.Flavour.REGINA, replaced.getFlavour(), "Flavour should be replaced");
+        assertEquals(Pizza.Size.M, replaced.getSize(), "Size should be replaced");
+        assertEquals(7, replaced.getTableNo(), "Table should be replaced");
+        assertEquals(created.getVersion() + 1, replaced.getVersion(), "Version should move on");
+        assertEquals(created.getTimestamp(), replaced.getTimestamp(), "Time of the order should be kept");
+        // request, based on the replaced version
+        this.client.put().uri(ORDERS + "/" + created.getOrderId())
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(replacement)
+                .exchange()
+                // response
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.ORDER + created.getOrderId()
+                        + Constants.Messages.ORDER_VERSION_CONFLICT);
+        // request, incomplete
+        this.client.put().uri(ORDERS + "/" + created.getOrderId())
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new OrderUpdateDto(null, Pizza.Flavour.REGINA, null, 7, replaced.getVersion()))
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INCOMPLETE_ORDER);
+    }
+
+    @Test
+    void patchOrder_responseOkOrNotFound() {
+        // input
+        final OrderDto created = create(order(register("Ivy"), Pizza.Flavour.HAWAII));
+        // request
+        final OrderDto patched = this.client.patch().uri(ORDERS + "/" + created.getOrderId())
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new OrderUpdateDto(null, null, null, 9, created.getVersion()))
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectBody(OrderDto.class).returnResult().getResponseBody();
+        assertNotNull(patched, "Patched order should be returned");
+        assertEquals(9, patched.getTableNo(), "Table should be changed");
+        assertEquals(created.getFlavour(), patched.getFlavour(), "Flavour should be kept");
+        assertEquals(created.getSize(), patched.getSize(), "Size should be kept");
+        assertEquals(List.of(patched), readOrders(created.getCustomerId()), "List should hold the patched order");
+        // request, unknown order
+        this.client.patch().uri(ORDERS + "/987654321")
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new OrderUpdateDto(null, null, null, 9, 0L))
+                .exchange()
+                // response
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.msg")
+                .isEqualTo(Constants.Messages.ORDER + 987654321 + Constants.Messages.ORDER_NOT_FOUND);
+    }
+
+    @Test
+    void createOrders_responseCreatedOrMultiStatus() {
+        // input
+        final long customer = register("Jon");
+        // request, every order valid
+        final OrderBatchResultDto created = createBatch(false,
+                List.of(order(customer, Pizza.Flavour.HAWAII), order(customer, Pizza.Flavour.REGINA)),
+                HttpStatus.CREATED);
+        assertEquals(2, created.getCreated(), "Every order should be created");
+        // request, with an unknown customer and an incomplete order
+        final OrderBatchResultDto partial = createBatch(false, List.of(order(customer, Pizza.Flavour.HAWAII),
+                        order(987654321L, Pizza.Flavour.HAWAII), Map.of("Customer_ID", customer)),
+                HttpStatus.MULTI_STATUS);
+        // response
+        assertEquals(1, partial.getCreated(), "Only the valid order should be created");
+        assertNotNull(partial.getItems().get(0).getOrder(), "Valid order should be returned");
+        assertEquals(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + 987654321L, partial.getItems().get(1).getError(),
+                "Order of the unknown customer should be reported");
+        assertEquals(Constants.Messages.INCOMPLETE_NEW_ORDER, partial.getItems().get(2).getError(),
+                "Incomplete order should be reported");
+        final List<OrderDto> expected = new ArrayList<>();
+        created.getItems().forEach(item -> expected.add(item.getOrder()));
+        expected.add(partial.getItems().get(0).getOrder());
+        assertEquals(expected, readOrders(customer), "Customer should have the created orders");
+    }
+
+    @Test
+    void createOrders_atomicResponseBadRequest() {
+        // input
+        final long customer = register("Kim");
+        // request
+        final OrderBatchResultDto result = createBatch(true, List.of(order(customer, Pizza.Flavour.HAWAII),
+                Map.of("Customer_ID", customer)), HttpStatus.BAD_REQUEST);
+        // response
+        assertEquals(0, result.getCreated(), "No order should be created");
+        assertEquals(Constants.Messages.BATCH_ABORTED, result.getItems().get(0).getError(),
+                "Valid order should be reported as aborted");
+        assertEquals(List.of(), readOrders(customer), "Customer should have no order");
+        // request, empty batch
+        this.client.post().uri(ORDERS + Constants.Paths.BATCH)
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of())
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INVALID_BATCH_SIZE);
+    }
+
+    @Test
+    void deleteOrder_responseOkOrNotFound() {
+        // input
+        final OrderDto created = create(order(register("Lea"), Pizza.Flavour.HAWAII));
+        final String path = ORDERS + "/" + created.getOrderId();
+        // request
+        this.client.delete().uri(path)
+                .header(Constants.Headers.TOKEN, this.token)
+                .exchange()
+                // response
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.ORDER_DELETED + created.getOrderId());
+        assertEquals(List.of(), readOrders(created.getCustomerId()), "Order should be gone");
+        // request, again
+        this.client.delete().uri(path)
+                .header(Constants.Headers.TOKEN, this.token)
+                .exchange()
+                // response
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.ORDER + created.getOrderId()
+                        + Constants.Messages.ORDER_NOT_FOUND);
+        // request, without token
+        this.client.delete().uri(path)
+                .exchange()
+                // response
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void deleteOrders_responseOkOrBadRequest() {
+        // input
+        final long customer = register("Max");
+        final long other = register("Ned");
+        final OrderDto first = create(order(customer, Pizza.Flavour.HAWAII));
+        create(order(customer, Pizza.Flavour.REGINA));
+        final OrderDto kept = create(order(other, Pizza.Flavour.HAWAII));
+        // request, before the first order
+        assertEquals(0L, deleteOrders(customer, null, first.getTimestamp()), "Nothing should be deleted");
+        // request, every order of the customer
+        assertEquals(2L, deleteOrders(customer, null, null), "Both orders should be deleted");
+        // response
+        assertEquals(List.of(), readOrders(customer), "Customer should have no order left");
+        assertEquals(List.of(kept), readOrders(other), "Orders of other customers should be kept");
+        // request, without filter
+        this.client.delete().uri(ORDERS)
+                .header(Constants.Headers.TOKEN, this.token)
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.MISSING_DELETE_FILTER);
+        // request, with an empty time range
+        this.client.delete().uri(uri -> uri.path(ORDERS).queryParam(Constants.Params.FROM, 2)
+                        .queryParam(Constants.Params.TO, 1).build())
+                .header(Constants.Headers.TOKEN, this.token)
+                .exchange()
+                // response
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.msg").isEqualTo(Constants.Messages.INVALID_TIME_RANGE);
+    }
+
+    /**
+     * registers a customer with given name, and returns its id
+     */
+    private long register(@NonNull final String name) {
+        final PersonDto person = this.client.post().uri(Constants.Paths.API + Constants.Paths.REG)
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(person(name))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(PersonDto.class).returnResult().getResponseBody();
+        return Objects.requireNonNull(person, "Registered person should be returned").getPersonId();
+    }
+
+    @NonNull
+    private static PersonCreateDto person(@NonNull final String name) {
+        final PersonCreateDto person = new PersonCreateDto();
+        person.setName(name);
+        return person;
+    }
+
+    @NonNull
+    private static OrderCreateDto order(final long customer, @NonNull final Pizza.Flavour flavour) {
+        return new OrderCreateDto(Pizza.Crust.THIN, flavour, Pizza.Size.L, 1, customer);
+    }
+
+    @NonNull
+    private OrderDto create(@NonNull final OrderCreateDto order) {
+        final OrderDto created = this.client.post().uri(ORDERS)
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(OrderDto.class).returnResult().getResponseBody();
+        return Objects.requireNonNull(created, "Created order should be returned");
+    }
+
+    @NonNull
+    private OrderDto createWithKey(@NonNull final String key, @NonNull final OrderCreateDto order,
+                                   final boolean replayed) {
+        final OrderDto created = this.client.post().uri(ORDERS)
+                .header(Constants.Headers.TOKEN, this.token)
+                .header(Constants.Headers.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(Constants.Headers.IDEMPOTENT_REPLAYED, String.valueOf(replayed))
+                .expectBody(OrderDto.class).returnResult().getResponseBody();
+        return Objects.requireNonNull(created, "Created order should be returned");
+    }
+
+    @NonNull
+    private OrderBatchResultDto createBatch(final boolean atomic, @NonNull final List<?> orders,
+                                            @NonNull final HttpStatus status) {
+        final OrderBatchResultDto result = this.client.post()
+                .uri(uri -> uri.path(ORDERS + Constants.Paths.BATCH)
+                        .queryParam(Constants.Params.ATOMIC, atomic).build())
+                .header(Constants.Headers.TOKEN, this.token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(orders)
+                .exchange()
+                .expectStatus().isEqualTo(status)
+                .expectBody(OrderBatchResultDto.class).returnResult().getResponseBody();
+        assertNotNull(result, "Batch should answer the outcome of each order");
+        assertEquals(orders.size(), result.getItems().size(), "Batch should report every order");
+        return result;
+    }
+
+    @NonNull
+    private List<OrderDto> readOrders(final long customer) {
+        final List<OrderDto> orders = this.client.get().uri(ORDERS + "/" + customer)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(OrderDto.class).returnResult().getResponseBody();
+        return Objects.requireNonNull(orders, "Orders of the customer should be answered");
+    }
+
+    @NonNull
+    private OrderPageDto readPage(final int limit, @Nullable final String after) {
+        final OrderPageDto page = this.client.get()
+                .uri(uri -> {
+                    uri.path(ORDERS).queryParam(Constants.Params.LIMIT, limit);
+                    return after == null ? uri.build() : uri.queryParam(Constants.Params.AFTER, after).build();
+                })
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OrderPageDto.class).returnResult().getResponseBody();
+        return Objects.requireNonNull(page, "Page should be answered");
+    }
+
+    private long deleteOrders(final long customer, @Nullable final Long from, @Nullable final Long to) {
+        return Objects.requireNonNull(this.client.delete()
+                .uri(uri -> {
+                    uri.path(ORDERS).queryParam(Constants.Params.CUSTOMER_ID, customer);
+                    if (from != null) {
+                        uri.queryParam(Constants.Params.FROM, from);
+                    }
+                    if (to != null) {
+                        uri.queryParam(Constants.Params.TO, to);
+                    }
+                    return uri.build();
+                })
+                .header(Constants.Headers.TOKEN, this.token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OrderDeleteResultDto.class)
+                .returnResult().getResponseBody()).getDeleted();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ss.pizzeria.backend.rest.controller;
+
+import com.ss.pizzeria.backend.rest.OrderApiScenarios;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.lang.NonNull;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+
+/**
+ * Runs the scenarios of the API against the servlet application, down to an in-memory database
+ *
+ * @author Sneha
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:scenarios;DB_CLOSE_ON_EXIT=FALSE")
+@AutoConfigureMockMvc
+class RestControllerScenariosTest extends OrderApiScenarios {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @NonNull
+    @Override
+    protected WebTestClient bindClient() {
+        return MockMvcWebTestClient.bindTo(this.mockMvc).build();
+    }
+}
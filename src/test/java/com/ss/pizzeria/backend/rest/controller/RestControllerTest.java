@@ -5,8 +5,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ss.pizzeria.backend.Constants;
 import com.ss.pizzeria.backend.data.model.Person;
 import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.converter.OrderListJsonConverter;
 import com.ss.pizzeria.backend.rest.dto.*;
+import com.ss.pizzeria.backend.rest.filter.TokenAuthenticationFilter;
+import com.ss.pizzeria.backend.service.ConcurrencyLimiter;
+import com.ss.pizzeria.backend.service.IdempotencyKeyReusedException;
+import com.ss.pizzeria.backend.service.IdempotentRequests;
+import com.ss.pizzeria.backend.service.IdempotentResponse;
+import com.ss.pizzeria.backend.service.InvalidIdException;
+import com.ss.pizzeria.backend.service.InvalidRequestException;
+import com.ss.pizzeria.backend.service.OrderIngestor;
 import com.ss.pizzeria.backend.service.PizzeriaService;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
 import org.mockito.InjectMocks;
@@ -14,21 +25,32 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.util.NestedServletException;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Unit Tests for Rest API requests to Controller
@@ -37,6 +59,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
  */
 @Slf4j
 @WebMvcTest({RestController.class})
+@Import({OrderJsonCache.class, JwtTokens.class, ConcurrencyLimiter.class})
 class RestControllerTest {
 
     private MockMvc mockMvc;
@@ -50,13 +73,43 @@ class RestControllerTest {
     @MockBean
     private PizzeriaService pizzeriaService;
 
+    @MockBean
+    private OrderIngestor orderIngestor;
+
+    @MockBean
+    private IdempotentRequests idempotentRequests;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderJsonCache orderJsonCache;
+
+    @Autowired
+    private OrderListJsonConverter orderListJsonConverter;
+
+    @Autowired
+    private TokenAuthenticationFilter tokenAuthenticationFilter;
+
+    @Autowired
+    private JwtTokens jwtTokens;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    /* valid token of the `test' user */
+    private String token;
+
     @BeforeEach
     void setUp() {
         checkInitializations();
 
-        // initialize Mvc for building http requests
-        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        // initialize Mvc for building http requests, behind the token check
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(this.tokenAuthenticationFilter).build();
         assertNotNull(this.mockMvc, "MockMvc instance should not be null.");
+        this.token = this.jwtTokens.issue("test");
+        // the orders of each test reuse the same ids and versions, with other timestamps
+        this.orderJsonCache.evictAll(List.of(1L, 2L, 3L, 15L, 16L));
     }
 
     @Test
@@ -65,7 +118,7 @@ class RestControllerTest {
         final UserAuthDto testAuth = new UserAuthDto("test", "test");
         // mock
         final AccessTokenDto access = new AccessTokenDto();
-        access.setAccessToken(Constants.AUTH_TOKEN);
+        access.setAccessToken(this.token);
         Mockito.when(this.pizzeriaService.fetchTokenForUser(testAuth)).thenReturn(access);
         // request
         final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
@@ -130,13 +183,156 @@ class RestControllerTest {
     void getAllOrders_responseOk() throws Exception {
         // no input
         // mock
-        final AccessTokenDto access = new AccessTokenDto();
-        access.setAccessToken(Constants.AUTH_TOKEN);
-        Mockito.when(this.pizzeriaService.readAllOrdersSortedByTime())
-                .thenReturn(List.of());
+        mockOrderStream(List.of());
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS);
+        // response is written asynchronously
+        final MvcResult started = mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content()
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(MockMvcResultMatchers.content().string("[]"));
+        // verify count of service calls, the full list is never built
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .forEachOrderSortedByTime(Mockito.any());
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .readAllOrdersSortedByTime();
+    }
+
+    @Test
+    void getAllOrders_responseSameAsJackson() throws Exception {
+        // mock
+        final List<OrderDto> orders = List.of(
+                buildOrderDto(1L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 1, 2L)),
+                buildOrderDto(2L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 3, 4L)));
+        mockOrderStream(orders);
         // request
         final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
                 .get(Constants.Paths.API + Constants.Paths.ORDERS);
+        final long hits = this.orderJsonCache.stats().hitCount();
+        // response, written twice to read the orders from the fragment cache
+        for (int i = 0; i < 2; i++) {
+            final MvcResult started = mockMvc.perform(mockRequest)
+                    .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(MockMvcResultMatchers.content().string(objectMapper.writeValueAsString(orders)));
+        }
+        assertEquals(hits + orders.size(), this.orderJsonCache.stats().hitCount(),
+                "Second response should be built from the cached orders");
+    }
+
+    @Test
+    void getAllOrders_responseNotModified() throws Exception {
+        // mock
+        Mockito.when(this.pizzeriaService.readOrdersVersion()).thenReturn("1-4");
+        mockOrderStream(List.of());
+        // first request returns the ETag
+        final MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get(Constants.Paths.API + Constants.Paths.ORDERS))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        final String etag = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(first))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-4\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS)
+                .header(HttpHeaders.IF_NONE_MATCH, etag);
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+        // changed version
+        Mockito.when(this.pizzeriaService.readOrdersVersion()).thenReturn("1-5");
+        final MvcResult changed = mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(changed))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        // the unchanged request never read the orders
+        Mockito.verify(this.pizzeriaService, Mockito.times(2))
+                .forEachOrderSortedByTime(Mockito.any());
+    }
+
+    @Test
+    void streamAllOrders_responseNdjson() throws Exception {
+        // mock
+        final List<OrderDto> orders = List.of(
+                buildOrderDto(1L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 1, 2L)),
+                buildOrderDto(3L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 4, 5L)));
+        mockOrderStream(orders);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS)
+                .accept(MediaType.APPLICATION_NDJSON);
+        // response is written asynchronously
+        final MvcResult started = mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        final String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content()
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+        final String[] lines = body.split("\n");
+        assertEquals(orders.size(), lines.length, "Every order should be written on its own line");
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(this.objectMapper.writeValueAsString(orders.get(i)), lines[i],
+                    "Line " + i + " should hold the order at index " + i);
+        }
+        // verify count of service calls, the full list is never built
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .forEachOrderSortedByTime(Mockito.any());
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .readAllOrdersSortedByTime();
+    }
+
+    @Test
+    void exportAllOrders_responseJsonArray() throws Exception {
+        // mock
+        final List<OrderDto> orders = List.of(
+                buildOrderDto(1L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 1, 2L)),
+                buildOrderDto(3L, new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 4, 5L)));
+        mockOrderStream(orders);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS + Constants.Paths.EXPORT)
+                .accept(MediaType.APPLICATION_JSON);
+        // response is written asynchronously
+        final MvcResult started = mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        final String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content()
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(this.objectMapper.writeValueAsString(orders), body,
+                "Export should hold all orders in the streamed order");
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .forEachOrderSortedByTime(Mockito.any());
+    }
+
+    @Test
+    void getOrdersPage_responseOk() throws Exception {
+        // input
+        final String cursor = "cursor";
+        // mock
+        Mockito.when(this.pizzeriaService.readOrdersPageSortedByTime(10, cursor))
+                .thenReturn(new OrderPageDto(List.of(), null));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS)
+                .param(Constants.Params.LIMIT, "10")
+                .param(Constants.Params.AFTER, cursor);
         // response
         mockMvc.perform(mockRequest)
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -144,9 +340,52 @@ class RestControllerTest {
                         .contentType(MediaType.APPLICATION_JSON_VALUE));
         // verify count of service calls
         Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .readOrdersPageSortedByTime(10, cursor);
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
                 .readAllOrdersSortedByTime();
     }
 
+    @Test
+    void getOrdersPage_responseBadRequest() throws Exception {
+        // mock
+        Mockito.when(this.pizzeriaService.readOrdersPageSortedByTime(10, "bad"))
+                .thenThrow(new InvalidRequestException(Constants.Messages.INVALID_CURSOR + "bad"));
+        // request with invalid cursor
+        final MockHttpServletRequestBuilder mockRequestBadCursor = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS)
+                .param(Constants.Params.LIMIT, "10")
+                .param(Constants.Params.AFTER, "bad");
+        // response
+        mockMvc.perform(mockRequestBadCursor)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content()
+                        .contentType(MediaType.APPLICATION_JSON_VALUE));
+        // request with cursor but without limit
+        final MockHttpServletRequestBuilder mockRequestNoLimit = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS)
+                .param(Constants.Params.AFTER, "bad");
+        // response
+        mockMvc.perform(mockRequestNoLimit)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        // check that the full list is never read
+        Mockito.verify(this.pizzeriaService, Mockito.times(0))
+                .readAllOrdersSortedByTime();
+    }
+
+    @Test
+    void getOrdersPage_otherIllegalArgumentIsNoClientError() {
+        // mock: a bug deep in the stack, rather than a bad request value
+        Mockito.when(this.pizzeriaService.readOrdersPageSortedByTime(10, null))
+                .thenThrow(new IllegalArgumentException("bug"));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS)
+                .param(Constants.Params.LIMIT, "10");
+        // response: not answered with 400, but left to the server error handling
+        final Exception ex = assertThrows(NestedServletException.class, () -> mockMvc.perform(mockRequest));
+        assertEquals("bug", ex.getCause().getMessage());
+    }
+
     @Test
     void addPerson_responseCreated() throws Exception {
         // input
@@ -164,7 +403,7 @@ class RestControllerTest {
                 .post(Constants.Paths.API + Constants.Paths.REG)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
-                .header("token", Constants.AUTH_TOKEN)
+                .header("token", this.token)
                 .content(objectAsJson(personCreateDto));
         // response
         mockMvc.perform(mockRequest)
@@ -187,17 +426,18 @@ class RestControllerTest {
                 .post(Constants.Paths.API + Constants.Paths.REG)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
-                .header("bad_token_name", Constants.AUTH_TOKEN)
+                .header("bad_token_name", this.token)
                 .content(objectAsJson(personCreateDto));
         // response
+        // a missing token is rejected by the token filter, before the body is read
         mockMvc.perform(mockRequestBadToken)
-                .andExpect(MockMvcResultMatchers.status().isBadRequest());        // request
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
         // request
         final MockHttpServletRequestBuilder mockRequestBadContent = MockMvcRequestBuilders
                 .post(Constants.Paths.API + Constants.Paths.REG)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
-                .header("token", Constants.AUTH_TOKEN)
+                .header("token", this.token)
                 .content("{ bad content }");
         // response
         mockMvc.perform(mockRequestBadContent)
@@ -259,6 +499,25 @@ class RestControllerTest {
                 .readAllOrdersForPersonSortedByTime(id);
     }
 
+    @Test
+    void getAllOrdersForPerson_responseNotModified() throws Exception {
+        // input
+        final String id = "3";
+        // mock
+        Mockito.when(this.pizzeriaService.readOrdersVersionForPerson(id)).thenReturn("1-3-7");
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .get(Constants.Paths.API + Constants.Paths.ORDERS + "/" + id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-3-7\"");
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-3-7\""));
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .readAllOrdersForPersonSortedByTime(id);
+    }
+
     @Test
     void testCreateOrder_responseCreated() throws Exception {
         // input
@@ -275,7 +534,7 @@ class RestControllerTest {
                 .post(Constants.Paths.API + Constants.Paths.ORDERS)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
-                .header("token", Constants.AUTH_TOKEN)
+                .header("token", this.token)
                 .content(objectAsJson(requestOrderDto));
         // response
         mockMvc.perform(mockRequest)
@@ -287,6 +546,129 @@ class RestControllerTest {
                 .createOrder(Mockito.any(OrderCreateDto.class));
     }
 
+    @Test
+    void testCreateOrder_responseAccepted() throws Exception {
+        // input
+        final OrderCreateDto requestOrderDto = new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 12, 10L);
+        // mock
+        OrderDto acceptedOrderDto = buildOrderDto(16L, requestOrderDto);
+        Mockito.when(this.orderIngestor.accept(requestOrderDto))
+                .thenReturn(acceptedOrderDto);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS)
+                .param(Constants.Params.ASYNC, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(requestOrderDto));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Order_ID").value(16));
+        // the order is only queued, never created synchronously
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .createOrder(Mockito.any(OrderCreateDto.class));
+    }
+
+    @Test
+    void testCreateOrder_responseServiceUnavailable() throws Exception {
+        // input
+        final OrderCreateDto requestOrderDto = new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 12, 10L);
+        // mock
+        Mockito.when(this.orderIngestor.accept(requestOrderDto))
+                .thenThrow(new RejectedExecutionException(Constants.Messages.INGEST_QUEUE_FULL));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS)
+                .param(Constants.Params.ASYNC, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(requestOrderDto));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testCreateOrder_responseReplayed() throws Exception {
+        // input
+        final OrderCreateDto requestOrderDto = new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 12, 10L);
+        // mock
+        OrderDto storedOrderDto = buildOrderDto(16L, requestOrderDto);
+        Mockito.when(this.idempotentRequests.execute(Mockito.eq(this.token), Mockito.eq("order-16"),
+                        Mockito.eq(requestOrderDto), Mockito.any()))
+                .thenReturn(new IdempotentResponse(HttpStatus.CREATED.value(), storedOrderDto, true));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .header(Constants.Headers.IDEMPOTENCY_KEY, "order-16")
+                .content(objectAsJson(requestOrderDto));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string(Constants.Headers.IDEMPOTENT_REPLAYED, "true"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Order_ID").value(16));
+        // the stored response is replayed, the order is not created again
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .createOrder(Mockito.any(OrderCreateDto.class));
+    }
+
+    @Test
+    void testCreateOrder_idempotencyKeyReused() throws Exception {
+        // input
+        final OrderCreateDto requestOrderDto = new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 12, 10L);
+        // mock
+        Mockito.when(this.idempotentRequests.execute(Mockito.eq(this.token), Mockito.eq("order-16"),
+                        Mockito.eq(requestOrderDto), Mockito.any()))
+                .thenThrow(new IdempotencyKeyReusedException());
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .header(Constants.Headers.IDEMPOTENCY_KEY, "order-16")
+                .content(objectAsJson(requestOrderDto));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isUnprocessableEntity())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.msg").value(Constants.Messages.IDEMPOTENCY_KEY_REUSED));
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .createOrder(Mockito.any(OrderCreateDto.class));
+    }
+
+    @Test
+    void testCreateOrder_withoutIdempotencyKey() throws Exception {
+        // input
+        final OrderCreateDto requestOrderDto = new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 12, 10L);
+        // mock
+        Mockito.when(this.pizzeriaService.createOrder(requestOrderDto))
+                .thenReturn(buildOrderDto(16L, requestOrderDto));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(requestOrderDto));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(Constants.Headers.IDEMPOTENT_REPLAYED));
+        Mockito.verifyNoInteractions(this.idempotentRequests);
+    }
+
     @Test
     void testCreateOrder_responseUnAuthorized() throws Exception {
         // input
@@ -325,6 +707,28 @@ class RestControllerTest {
                 .createOrder(Mockito.any(OrderCreateDto.class));
     }
 
+    @Test
+    void testCreateOrder_unauthorizedBeforeBodyIsRead() throws Exception {
+        // request: an unparsable body on another spelling of the path
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS + "/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{ bad body : incorrect}");
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.msg").value(Constants.Messages.MISSING_TOKEN));
+        // request: a token signed with another secret
+        final String forged = new JwtTokens("another-secret-of-at-least-32-bytes!!", Duration.ofMinutes(1), 10)
+                .issue("test");
+        mockMvc.perform(mockRequest.header("token", forged))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.msg").value(Constants.Messages.INCORRECT_TOKEN));
+        // check that no service call is ever made
+        Mockito.verifyNoInteractions(this.pizzeriaService, this.orderIngestor, this.idempotentRequests);
+    }
+
     @Test
     void testCreateOrder_responseBadRequest() throws Exception {
         // input
@@ -339,17 +743,18 @@ class RestControllerTest {
                 .post(Constants.Paths.API + Constants.Paths.ORDERS)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
-                .header("bad_token_name", Constants.AUTH_TOKEN)
+                .header("bad_token_name", this.token)
                 .content(objectAsJson(requestOrderDto));
         // response
+        // a missing token is rejected by the token filter, before the body is read
         mockMvc.perform(mockRequestBadToken)
-                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
         // request
         final MockHttpServletRequestBuilder mockRequestBadBody = MockMvcRequestBuilders
                 .post(Constants.Paths.API + Constants.Paths.ORDERS)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
-                .header("token", Constants.AUTH_TOKEN)
+                .header("token", this.token)
                 .content("{ bad body : incorrect}");
         // response
         mockMvc.perform(mockRequestBadBody)
@@ -361,6 +766,87 @@ class RestControllerTest {
                 .createOrder(Mockito.any(OrderCreateDto.class));
     }
 
+    @Test
+    void createOrders_responseCreated() throws Exception {
+        // input
+        final List<OrderCreateDto> requests = List.of(
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 4, 10L),
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 4, 10L));
+        // mock
+        final OrderBatchResultDto result = new OrderBatchResultDto(2, List.of(
+                new OrderBatchItemDto(buildOrderDto(15L, requests.get(0)), null),
+                new OrderBatchItemDto(buildOrderDto(16L, requests.get(1)), null)));
+        // the batch counts as one write in flight
+        Mockito.when(this.pizzeriaService.createOrders(requests, false)).thenAnswer(invocation -> {
+            assertEquals(1, this.concurrencyLimiter.getInFlight(), "Batch should run within the write limit");
+            return result;
+        });
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS + Constants.Paths.BATCH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(requests));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().string(objectMapper.writeValueAsString(result)));
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .createOrders(requests, false);
+    }
+
+    @Test
+    void createOrders_responseMultiStatus() throws Exception {
+        // input
+        final List<OrderCreateDto> requests = List.of(
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 4, 10L),
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 4, 99L));
+        // mock
+        final OrderBatchResultDto partial = new OrderBatchResultDto(1, List.of(
+                new OrderBatchItemDto(buildOrderDto(15L, requests.get(0)), null),
+                new OrderBatchItemDto(null, Constants.Messages.NO_PERSON_EXISTS_WITH_ID + 99L)));
+        final OrderBatchResultDto aborted = new OrderBatchResultDto(0, List.of(
+                new OrderBatchItemDto(null, Constants.Messages.BATCH_ABORTED),
+                new OrderBatchItemDto(null, Constants.Messages.NO_PERSON_EXISTS_WITH_ID + 99L)));
+        Mockito.when(this.pizzeriaService.createOrders(requests, false)).thenReturn(partial);
+        Mockito.when(this.pizzeriaService.createOrders(requests, true)).thenReturn(aborted);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS + Constants.Paths.BATCH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(requests));
+        // response, partly created
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isMultiStatus())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Items[1].Error")
+                        .value(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + 99L));
+        // response, all or nothing
+        mockMvc.perform(mockRequest.param(Constants.Params.ATOMIC, "true"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Created").value(0));
+    }
+
+    @Test
+    void createOrders_responseUnAuthorized() throws Exception {
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .post(Constants.Paths.API + Constants.Paths.ORDERS + Constants.Paths.BATCH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", "invalid")
+                .content("[]");
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .createOrders(Mockito.anyList(), Mockito.anyBoolean());
+    }
+
     @Test
     void deleteOrder_responseOk() throws Exception {
         // input
@@ -370,7 +856,8 @@ class RestControllerTest {
         // request
         final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
                 .delete(Constants.Paths.API + Constants.Paths.ORDERS
-                        + "/" + id);
+                        + "/" + id)
+                .header("token", this.token);
         // response
         mockMvc.perform(mockRequest)
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -384,14 +871,15 @@ class RestControllerTest {
     @Test
     void deleteOrder_responseNotFound() throws Exception {
         // input
-        final String id = "id";
+        final String id = "404";
         // mock
         Mockito.doThrow(new NoSuchElementException())
                 .when(this.pizzeriaService).removeOrder(id);
         // request
         final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
                 .delete(Constants.Paths.API + Constants.Paths.ORDERS
-                        + "/" + id);
+                        + "/" + id)
+                .header("token", this.token);
         // response
         mockMvc.perform(mockRequest)
                 .andExpect(MockMvcResultMatchers.status().isNotFound())
@@ -402,6 +890,142 @@ class RestControllerTest {
                 .removeOrder(id);
     }
 
+    @Test
+    void deleteOrder_responseBadRequest() throws Exception {
+        // input
+        final String id = "id";
+        // mock
+        Mockito.doThrow(new InvalidIdException(id))
+                .when(this.pizzeriaService).removeOrder(id);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .delete(Constants.Paths.API + Constants.Paths.ORDERS
+                        + "/" + id)
+                .header("token", this.token);
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content()
+                        .contentType(MediaType.APPLICATION_JSON_VALUE));
+    }
+
+    @Test
+    void deleteOrder_responseUnAuthorized() throws Exception {
+        // input
+        final String id = "16";
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .delete(Constants.Paths.API + Constants.Paths.ORDERS
+                        + "/" + id);
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.msg").value(Constants.Messages.MISSING_TOKEN));
+        // check that no service call is ever made
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .removeOrder(Mockito.any());
+    }
+
+    @Test
+    void patchOrder_responseOk() throws Exception {
+        // input
+        final String id = "16";
+        final OrderUpdateDto update = new OrderUpdateDto(null, null, Pizza.Size.M, null, 0L);
+        // mock
+        OrderDto updatedOrderDto = buildOrderDto(16L, new OrderCreateDto(
+                Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 12, 10L));
+        updatedOrderDto.setVersion(1L);
+        Mockito.when(this.pizzeriaService.updateOrder(id, update, false)).thenReturn(updatedOrderDto);
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .patch(Constants.Paths.API + Constants.Paths.ORDERS + "/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(update));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Size").value(Pizza.Size.M.name()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Version").value(1));
+    }
+
+    @Test
+    void replaceOrder_responseConflict() throws Exception {
+        // input
+        final String id = "16";
+        final OrderUpdateDto update = new OrderUpdateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 3, 0L);
+        // mock
+        Mockito.when(this.pizzeriaService.updateOrder(id, update, true))
+                .thenThrow(new OptimisticLockingFailureException("Order #16" + Constants.Messages.ORDER_VERSION_CONFLICT));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .put(Constants.Paths.API + Constants.Paths.ORDERS + "/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("token", this.token)
+                .content(objectAsJson(update));
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    void deleteOrders_responseOk() throws Exception {
+        // input
+        final String customerId = "3";
+        // mock
+        Mockito.when(this.pizzeriaService.removeOrders(customerId, 100L, 200L)).thenAnswer(invocation -> {
+            assertEquals(1, this.concurrencyLimiter.getInFlight(), "Bulk delete should run within the write limit");
+            return 42L;
+        });
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .delete(Constants.Paths.API + Constants.Paths.ORDERS)
+                .header("token", this.token)
+                .param(Constants.Params.CUSTOMER_ID, customerId)
+                .param(Constants.Params.FROM, "100")
+                .param(Constants.Params.TO, "200");
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.Deleted").value(42));
+        // verify count of service calls
+        Mockito.verify(this.pizzeriaService, Mockito.times(1))
+                .removeOrders(customerId, 100L, 200L);
+    }
+
+    @Test
+    void deleteOrders_responseBadRequest() throws Exception {
+        // mock
+        Mockito.when(this.pizzeriaService.removeOrders(null, null, null))
+                .thenThrow(new InvalidRequestException(Constants.Messages.MISSING_DELETE_FILTER));
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .delete(Constants.Paths.API + Constants.Paths.ORDERS)
+                .header("token", this.token);
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content()
+                        .contentType(MediaType.APPLICATION_JSON_VALUE));
+    }
+
+    @Test
+    void deleteOrders_responseUnAuthorized() throws Exception {
+        // request
+        final MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders
+                .delete(Constants.Paths.API + Constants.Paths.ORDERS)
+                .header("token", "wrong_token")
+                .param(Constants.Params.TO, "200");
+        // response
+        mockMvc.perform(mockRequest)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+        // check that no service call is ever made
+        Mockito.verify(this.pizzeriaService, Mockito.never())
+                .removeOrders(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
     @AfterEach
     void tearDown() {
         Mockito.clearAllCaches();
@@ -420,7 +1044,8 @@ class RestControllerTest {
         assertNotNull(this.pizzeriaService, "Mocked service instance should not be null.");
 
         // ensure that the controller in test is actually injected with the desired service
-        this.restController = new RestController(this.pizzeriaService);
+        this.restController = new RestController(this.pizzeriaService, this.orderIngestor,
+                this.idempotentRequests, this.concurrencyLimiter, this.orderListJsonConverter);
 
     }
 
@@ -432,6 +1057,19 @@ class RestControllerTest {
         return objectMapper.writeValueAsString(obj);
     }
 
+    /**
+     * Let the mocked service pass the given orders to the streaming sink.
+     */
+    @SuppressWarnings("unchecked")
+    private void mockOrderStream(@NonNull final List<OrderDto> orders) {
+        Mockito.when(this.pizzeriaService.forEachOrderSortedByTime(Mockito.any()))
+                .thenAnswer(invocation -> {
+                    final Consumer<OrderDto> sink = invocation.getArgument(0);
+                    orders.forEach(sink);
+                    return (long) orders.size();
+                });
+    }
+
     /**
      * Create a new Person with given name and id.
      */
@@ -0,0 +1,151 @@
+package com.ss.pizzeria.backend.rest.converter;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JMH comparison of writing a list of 10k orders from cached JSON fragments with {@link OrderListJsonConverter},
+ * against serializing it with the Jackson converter, in latency and allocated bytes per list.
+ * The response body is discarded, so only the work of the converters is measured.
+ * Run with `mvn test -Pbenchmark -Dtest=OrderListBenchmarkTest`.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderListBenchmarkTest {
+
+    private static final int ORDERS = 10_000;
+
+    private static final Type ORDER_LIST = new TypeReference<List<OrderDto>>() { }.getType();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final MappingJackson2HttpMessageConverter jacksonConverter =
+            new MappingJackson2HttpMessageConverter(this.objectMapper);
+
+    private final OrderListJsonConverter fragmentConverter =
+            new OrderListJsonConverter(this.objectMapper, new OrderJsonCache(DataSize.ofMegabytes(64)));
+
+    private final List<OrderDto> orders = buildOrders();
+
+    @Setup
+    public void cacheFragments() throws IOException {
+        // list reads after the first one find every order in the cache
+        this.fragmentConverter.write(this.orders, ORDER_LIST, MediaType.APPLICATION_JSON, new DiscardedBody());
+    }
+
+    @Benchmark
+    public void write_jackson() throws IOException {
+        this.jacksonConverter.write(this.orders, ORDER_LIST, MediaType.APPLICATION_JSON, new DiscardedBody());
+    }
+
+    @Benchmark
+    public void write_fragments() throws IOException {
+        this.fragmentConverter.write(this.orders, ORDER_LIST, MediaType.APPLICATION_JSON, new DiscardedBody());
+    }
+
+    @Test
+    void fragments_fasterAndLighterThanJackson() throws Exception {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(OrderListBenchmarkTest.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+        final Map<String, Double> micros = results.stream().collect(Collectors.toMap(
+                OrderListBenchmarkTest::name, result -> result.getPrimaryResult().getScore()));
+        final Map<String, Double> bytes = results.stream().collect(Collectors.toMap(
+                OrderListBenchmarkTest::name, OrderListBenchmarkTest::allocatedBytes));
+        log.info("Writing {} orders, average us per list: {}, allocated bytes per list: {}", ORDERS, micros, bytes);
+        assertTrue(micros.get("write_fragments") < micros.get("write_jackson"),
+                "Copying cached fragments should be faster than serializing the list");
+        assertTrue(bytes.get("write_fragments") < bytes.get("write_jackson"),
+                "Copying cached fragments should allocate less than serializing the list");
+    }
+
+    private static String name(final RunResult result) {
+        return result.getParams().getBenchmark().replaceFirst(".*\\.", "");
+    }
+
+    private static double allocatedBytes(final RunResult result) {
+        return result.getSecondaryResults().entrySet().stream()
+                .filter(entry -> entry.getKey().endsWith("gc.alloc.rate.norm"))
+                .mapToDouble(entry -> entry.getValue().getScore())
+                .findFirst().orElse(Double.NaN);
+    }
+
+    private static List<OrderDto> buildOrders() {
+        final List<OrderDto> orders = new ArrayList<>(ORDERS);
+        for (long i = 0; i < ORDERS; i++) {
+            final OrderDto order = new OrderDto(i, 1_600_000_000_000L + i);
+            order.setCrust(Pizza.Crust.THIN);
+            order.setFlavour(Pizza.Flavour.values()[(int) (i % Pizza.Flavour.values().length)]);
+            order.setSize(Pizza.Size.values()[(int) (i % Pizza.Size.values().length)]);
+            order.setTableNo((int) (i % 40));
+            order.setCustomerId(i % 100);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * response whose body goes nowhere
+     */
+    private static final class DiscardedBody implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.headers;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ss.pizzeria.backend.rest.converter;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that {@link OrderListJsonConverter} writes the same JSON as Jackson, from cached fragments
+ *
+ * @author Sneha
+ */
+class OrderListJsonConverterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private OrderJsonCache orderJsonCache;
+
+    private OrderListJsonConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        this.orderJsonCache = new OrderJsonCache(DataSize.ofMegabytes(8));
+        this.converter = new OrderListJsonConverter(this.objectMapper, this.orderJsonCache);
+    }
+
+    @Test
+    void write_matchesJacksonAndReusesFragments() throws Exception {
+        // dataset
+        final List<OrderDto> orders = buildOrders(10_000);
+        final byte[] expected = this.objectMapper.writeValueAsBytes(orders);
+
+        // first write serializes every order
+        assertArrayEquals(expected, write(orders), "Output should match the Jackson output");
+        assertEquals(orders.size(), this.orderJsonCache.stats().missCount(), "Every order should be serialized once");
+
+        // second write only copies the fragments
+        assertArrayEquals(expected, write(orders), "Cached output should match the Jackson output");
+        assertEquals(orders.size(), this.orderJsonCache.stats().hitCount(), "Every order should come from the cache");
+        assertEquals(orders.size(), this.orderJsonCache.stats().missCount(), "No order should be serialized again");
+    }
+
+    @Test
+    void write_emptyList() throws Exception {
+        assertEquals("[]", new String(write(List.of())), "Empty list should be an empty array");
+    }
+
+    @Test
+    void evict_serializesOrderAgain() throws Exception {
+        // dataset
+        final List<OrderDto> orders = buildOrders(3);
+        write(orders);
+
+        // input
+        this.orderJsonCache.evict(orders.get(1).getOrderId());
+        write(orders);
+
+        assertEquals(4, this.orderJsonCache.stats().missCount(), "Evicted order should be serialized again");
+    }
+
+    @Test
+    void write_newVersionReplacesFragment() throws Exception {
+        // dataset
+        final List<OrderDto> orders = buildOrders(3);
+        write(orders);
+
+        // input
+        orders.get(1).setTableNo(99);
+        orders.get(1).setVersion(1L);
+
+        assertArrayEquals(this.objectMapper.writeValueAsBytes(orders), write(orders),
+                "Updated order should not be served from its older fragment");
+    }
+
+    @Test
+    void canWrite_onlyOrderLists() {
+        final var orderList = new TypeReference<List<OrderDto>>() { }.getType();
+        final var personList = new TypeReference<List<PersonDto>>() { }.getType();
+
+        assertTrue(this.converter.canWrite(orderList, List.class, MediaType.APPLICATION_JSON),
+                "Order lists should be written as JSON");
+        assertFalse(this.converter.canWrite(orderList, List.class, MediaType.APPLICATION_XML),
+                "Order lists should only be written as JSON");
+        assertFalse(this.converter.canWrite(personList, List.class, MediaType.APPLICATION_JSON),
+                "Other lists should be left to Jackson");
+        assertFalse(this.converter.canWrite(List.class, MediaType.APPLICATION_JSON),
+                "Lists without element type should be left to Jackson");
+        assertFalse(this.converter.canRead(orderList, null, MediaType.APPLICATION_JSON),
+                "Order lists should never be read");
+    }
+
+    /**
+     * writes given orders with the converter under test
+     */
+    private byte[] write(final List<OrderDto> orders) throws Exception {
+        final MockHttpOutputMessage message = new MockHttpOutputMessage();
+        this.converter.write(orders, new TypeReference<List<OrderDto>>() { }.getType(),
+                MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes();
+    }
+
+    /**
+     * builds given number of orders
+     */
+    private List<OrderDto> buildOrders(final int count) {
+        final List<OrderDto> orders = new ArrayList<>(count);
+        for (long i = 0; i < count; i++) {
+            final OrderDto order = new OrderDto(i, 1_600_000_000_000L + i);
+            order.setCrust(Pizza.Crust.THIN);
+            order.setFlavour(Pizza.Flavour.values()[(int) (i % Pizza.Flavour.values().length)]);
+            order.setSize(Pizza.Size.values()[(int) (i % Pizza.Size.values().length)]);
+            order.setTableNo((int) (i % 40));
+            order.setCustomerId(i % 100);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the responses of {@link RateLimitFilter}
+ *
+ * @author Sneha
+ */
+class RateLimitFilterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    // a single request per client, refilled every 1.5 seconds
+    private final RateLimitFilter rateLimitFilter = new RateLimitFilter(
+            new RateLimiter(1, 1 / 1.5, Duration.ofMinutes(1), 100, this.nanoTime::get), new ObjectMapper());
+
+    @Test
+    void doFilter_tooManyRequests() throws Exception {
+        assertEquals(HttpStatus.OK.value(), filter(request("10.0.0.1", null)).getStatus());
+
+        // response
+        final MockHttpServletResponse response = filter(request("10.0.0.1", null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER), "Retry-After should be rounded up");
+        assertTrue(response.getContentAsString().contains("Too many requests"));
+
+        this.nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        assertEquals(HttpStatus.OK.value(), filter(request("10.0.0.1", null)).getStatus(),
+                "Client should be served again once refilled");
+    }
+
+    @Test
+    void doFilter_clientByVerifiedTokenElseAddress() throws Exception {
+        assertEquals(HttpStatus.OK.value(), filter(request("10.0.0.1", "token-a")).getStatus());
+        assertEquals(HttpStatus.OK.value(), filter(request("10.0.0.1", "token-b")).getStatus(),
+                "Tokens sharing an address should have their own buckets");
+        assertEquals(HttpStatus.OK.value(), filter(request("10.0.0.1", null)).getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), filter(request("10.0.0.1", null)).getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), filter(request("10.0.0.2", "token-a")).getStatus(),
+                "Token should keep its bucket from another address");
+    }
+
+    private MockHttpServletResponse filter(final MockHttpServletRequest request) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        this.rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(final String address, final String verifiedToken) {
+        // input
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setRemoteAddr(address);
+        if (verifiedToken != null) {
+            request.setAttribute(TokenAuthenticationFilter.VERIFIED_TOKEN, verifiedToken);
+        }
+        return request;
+    }
+}
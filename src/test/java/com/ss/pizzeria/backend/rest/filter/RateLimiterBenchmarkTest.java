@@ -0,0 +1,109 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JMH measurement of {@link RateLimiter#tryAcquire} from 32 threads at once, each with its own client,
+ * and all sharing the bucket of one client, which is the worst case for the compare-and-set.
+ * The buckets never run empty, so every call takes the whole hot path. With fewer cores than threads, the time
+ * of a call also includes waiting for a core, so the 32-thread numbers are only reported, and the bound is
+ * asserted on a second run with a thread per core.
+ * Run with `mvn test -Pbenchmark -Dtest=RateLimiterBenchmarkTest`.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Threads(RateLimiterBenchmarkTest.THREADS)
+@Fork(1)
+public class RateLimiterBenchmarkTest {
+
+    static final int THREADS = 32;
+
+    /* the hot path should add no more than a couple of microseconds to a request */
+    private static final double MAX_NANOS = TimeUnit.MICROSECONDS.toNanos(2);
+
+    private static final String SHARED_CLIENT = "shared-tablet";
+
+    /* a token every nanosecond, so no bucket ever runs empty */
+    private final RateLimiter rateLimiter = new RateLimiter(Integer.MAX_VALUE, 1e9, Duration.ofMinutes(1), 10_000);
+
+    /**
+     * the client of one benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private String token;
+
+        @Setup
+        public void register() {
+            this.token = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire_ownClient(final Client client) {
+        return this.rateLimiter.tryAcquire(client.token);
+    }
+
+    @Benchmark
+    public long tryAcquire_sharedClient() {
+        return this.rateLimiter.tryAcquire(SHARED_CLIENT);
+    }
+
+    @Test
+    void tryAcquire_microsecondsUnderContention() throws Exception {
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final Map<String, Double> contended = run(THREADS);
+        log.info("Average ns per tryAcquire with {} threads on {} cores: {}", THREADS, cores, contended);
+        final Map<String, Double> nanos = cores == THREADS ? contended : run(cores);
+        log.info("Average ns per tryAcquire with {} threads on {} cores: {}", cores, cores, nanos);
+        nanos.forEach((benchmark, score) -> assertTrue(score < MAX_NANOS,
+                benchmark + " should take less than " + MAX_NANOS + " ns with a thread per core, but took " + score));
+    }
+
+    /**
+     * runs the benchmarks with given number of threads and returns their average ns per call
+     */
+    private static Map<String, Double> run(final int threads) throws RunnerException {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmarkTest.class.getName() + "\\.")
+                .threads(threads)
+                .build()).run();
+        return results.stream().collect(Collectors.toMap(
+                result -> result.getParams().getBenchmark().replaceFirst(".*\\.", ""),
+                result -> result.getPrimaryResult().getScore()));
+    }
+}
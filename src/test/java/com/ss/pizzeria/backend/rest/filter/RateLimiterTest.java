@@ -0,0 +1,90 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the token buckets of {@link RateLimiter}
+ *
+ * @author Sneha
+ */
+class RateLimiterTest {
+
+    private static final int THREADS = 32;
+
+    private final AtomicLong nanoTime = new AtomicLong(Long.MAX_VALUE - TimeUnit.SECONDS.toNanos(1));
+
+    @Test
+    void tryAcquire_burstThenRefill() {
+        // capacity of 3, a token every 100ms; the clock overflows on the way
+        final RateLimiter rateLimiter = new RateLimiter(3, 10, Duration.ofMinutes(1), 100, this.nanoTime::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("tablet-1"), "Full bucket should grant its capacity");
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.tryAcquire("tablet-1"),
+                "Empty bucket should tell the wait for the next token");
+        assertEquals(0, rateLimiter.tryAcquire("tablet-2"), "Clients should not share a bucket");
+
+        this.nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(0, rateLimiter.tryAcquire("tablet-1"));
+        assertEquals(0, rateLimiter.tryAcquire("tablet-1"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), rateLimiter.tryAcquire("tablet-1"),
+                "Refill should be proportional to the time passed");
+
+        this.nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("tablet-1"));
+        }
+        assertTrue(rateLimiter.tryAcquire("tablet-1") > 0, "Idle bucket should refill up to its capacity only");
+    }
+
+    @Test
+    void tryAcquire_exactUnderContention() throws Exception {
+        final int capacity = 1000;
+        final RateLimiter rateLimiter = new RateLimiter(capacity, 1, Duration.ofMinutes(1), 100, this.nanoTime::get);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Integer>> granted = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                granted.add(executor.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    for (int i = 0; i < capacity; i++) {
+                        if (rateLimiter.tryAcquire("tablet") == 0) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> count : granted) {
+                total += count.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(capacity, total, "Concurrent requests should take every token exactly once");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void constructor_rejectsEmptyBuckets() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 10, Duration.ofMinutes(1), 100));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(10, 0, Duration.ofMinutes(1), 100));
+    }
+}
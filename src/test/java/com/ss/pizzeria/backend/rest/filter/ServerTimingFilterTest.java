@@ -0,0 +1,166 @@
+package com.ss.pizzeria.backend.rest.filter;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.RequestTiming;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Server-Timing header of {@link ServerTimingFilter}
+ *
+ * @author Sneha
+ */
+class ServerTimingFilterTest {
+
+    private static final byte[] BODY = "[{\"Order_ID\":1}]".getBytes(StandardCharsets.UTF_8);
+
+    private static final DataSize MAX_HELD_BACK = DataSize.ofBytes(64);
+
+    // a request going through every phase, flushing its body the way the message converters do
+    private static final FilterChain CHAIN = (request, response) -> {
+        RequestTiming.stop(RequestTiming.Phase.AUTH, RequestTiming.start());
+        RequestTiming.add(RequestTiming.Phase.DB, 2_500_000);
+        RequestTiming.add(RequestTiming.Phase.DB, 500_000);
+        RequestTiming.stop(RequestTiming.Phase.MAPPING, RequestTiming.start());
+        RequestTiming.serializing();
+        response.setContentLength(BODY.length);
+        response.getOutputStream().write(BODY);
+        response.getOutputStream().flush();
+        assertFalse(response.isCommitted(), "Body should be held back until the request completes");
+    };
+
+    @Test
+    void doFilter_onRequest() throws Exception {
+        final ServerTimingFilter filter = new ServerTimingFilter(false, true, MAX_HELD_BACK);
+
+        // request
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader(Constants.Headers.REQUEST_TIMING, "true");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, CHAIN);
+
+        // response
+        final String header = response.getHeader(Constants.Headers.SERVER_TIMING);
+        assertNotNull(header, "Timed request should get the header");
+        assertTrue(header.startsWith("auth;dur="), header);
+        assertTrue(header.contains(", db;dur=3.000;desc=\"Repository calls\", mapping;dur="), header);
+        assertTrue(header.contains(", serialization;dur="), header);
+        assertTrue(header.contains(", total;dur="), header);
+        assertArrayEquals(BODY, response.getContentAsByteArray(), "Body should be sent as written");
+        assertNull(RequestTiming.current(), "Timing should not outlive the request");
+    }
+
+    @Test
+    void doFilter_notTimed() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader(Constants.Headers.REQUEST_TIMING, "true");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        new ServerTimingFilter(false, false, MAX_HELD_BACK).doFilter(request, response, (req, res) -> {
+            assertNull(RequestTiming.current(), "Request should not be timed");
+            assertSame(response, res, "Response should be passed on as it is");
+            res.getOutputStream().write(BODY);
+        });
+
+        assertNull(response.getHeader(Constants.Headers.SERVER_TIMING));
+        assertArrayEquals(BODY, response.getContentAsByteArray());
+    }
+
+    @Test
+    void doFilter_enabledAndErrorWithoutBody() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        new ServerTimingFilter(true, false, MAX_HELD_BACK).doFilter(request, response,
+                (req, res) -> ((HttpServletResponse) res).sendError(HttpStatus.NOT_FOUND.value()));
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatus());
+        final String header = response.getHeader(Constants.Headers.SERVER_TIMING);
+        assertNotNull(header, "Every request should be timed while enabled");
+        assertTrue(header.startsWith("total;dur="), "Only the phases which ran should be reported: " + header);
+    }
+
+    @Test
+    void doFilter_largeBodySentWithoutWaiting() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final byte[] large = "x".repeat((int) MAX_HELD_BACK.toBytes() + 1).getBytes(StandardCharsets.UTF_8);
+        new ServerTimingFilter(true, false, MAX_HELD_BACK).doFilter(request, response, (req, res) -> {
+            RequestTiming.serializing();
+            res.getOutputStream().write(BODY);
+            res.getOutputStream().write(large);
+            assertArrayEquals(BODY, Arrays.copyOf(response.getContentAsByteArray(), BODY.length),
+                    "Body past the maximum should not be held back");
+        });
+
+        final String header = response.getHeader(Constants.Headers.SERVER_TIMING);
+        assertNotNull(header, "Large body should still get the header");
+        assertFalse(header.contains("serialization;"), "Serialization was not over when sent: " + header);
+        assertEquals(BODY.length + large.length, response.getContentAsByteArray().length, "Whole body should be sent");
+    }
+
+    @Test
+    void doFilter_nonBlockingWriteDelegated() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.setAsyncSupported(true);
+        final MockHttpServletResponse mock = new MockHttpServletResponse();
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final List<WriteListener> listeners = new ArrayList<>();
+        // a container stream which takes a listener, as the mock one does not
+        final HttpServletResponse response = new HttpServletResponseWrapper(mock) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(final WriteListener writeListener) {
+                        listeners.add(writeListener);
+                    }
+
+                    @Override
+                    public void write(final int b) {
+                        written.write(b);
+                    }
+                };
+            }
+        };
+        final WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                fail(t);
+            }
+        };
+        new ServerTimingFilter(true, false, MAX_HELD_BACK).doFilter(request, response, (req, res) -> {
+            req.startAsync();
+            res.getOutputStream().write(BODY);
+            res.getOutputStream().setWriteListener(listener);
+            assertTrue(res.getOutputStream().isReady(), "Readiness should be the one of the response");
+        });
+
+        assertEquals(List.of(listener), listeners, "Listener should be given to the response");
+        assertNotNull(mock.getHeader(Constants.Headers.SERVER_TIMING), "Header should be sent before the listener");
+        assertArrayEquals(BODY, written.toByteArray(), "Body written before should be sent first");
+    }
+}
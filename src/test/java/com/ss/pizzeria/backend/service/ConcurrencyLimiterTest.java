@@ -0,0 +1,162 @@
+package com.ss.pizzeria.backend.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the adaptive limit of {@link ConcurrencyLimiter}, and its latency under overload
+ *
+ * @author Sneha
+ */
+class ConcurrencyLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void execute_rejectsOverLimit() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10, Duration.ofMillis(100), 0.5,
+                this.nanoTime::get);
+
+        // a write running while another one arrives
+        final String result = limiter.execute(() -> {
+            assertEquals(1, limiter.getInFlight());
+            assertThrows(RejectedExecutionException.class, () -> limiter.execute(() -> "second"),
+                    "Write over the limit should be rejected right away");
+            return "first";
+        });
+
+        assertEquals("first", result);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void execute_additiveIncreaseMultiplicativeDecrease() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 2, 5, Duration.ofMillis(100), 0.5,
+                this.nanoTime::get);
+
+        // fast writes using the limit raise it by one per limit writes, up to the maximum
+        for (int i = 0; i < 20; i++) {
+            limiter.execute(() -> limiter.execute(() -> limiter.execute(() -> write(10))));
+        }
+        assertEquals(5, limiter.getLimit());
+
+        // a slow write halves the limit, once per threshold
+        limiter.execute(() -> limiter.execute(() -> write(150)));
+        assertEquals(2, limiter.getLimit(), "Writes slowed down together should lower the limit once");
+        this.nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        limiter.execute(() -> write(150));
+        assertEquals(2, limiter.getLimit(), "Limit should not drop below its minimum");
+    }
+
+    @Test
+    void execute_idleLimitDoesNotGrow() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 100, Duration.ofMillis(100), 0.5,
+                this.nanoTime::get);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.run(() -> write(10));
+        }
+
+        assertEquals(10, limiter.getLimit(), "Limit should only grow while writes use it");
+    }
+
+    /**
+     * load test: 64 clients against a backend of 2 connections, taking 10ms per write, first unlimited,
+     * where a write waits for some 300ms, then limited, where the accepted writes stay close to the threshold.
+     * It compares latencies of this machine, so it runs with the benchmarks, `mvn test -Pbenchmark'.
+     */
+    @Test
+    @Tag("benchmark")
+    void execute_boundedLatencyUnderOverload() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 1, 64, Duration.ofMillis(30), 0.9,
+                System::nanoTime);
+
+        final long unlimited = p99Millis(Runnable::run);
+        final long limited = p99Millis(limiter::run);
+
+        assertTrue(limiter.getRejected() > 0, "Excess writes should be shed");
+        assertTrue(limiter.getLimit() < 16, "Limit should drop below the initial one, was " + limiter.getLimit());
+        assertTrue(limited * 2 < unlimited,
+                "p99 latency should be well below the unlimited " + unlimited + "ms, was " + limited + "ms");
+    }
+
+    /**
+     * runs the load of {@link #execute_boundedLatencyUnderOverload} through given write call, shedding the
+     * rejected writes, and returns the p99 latency of the accepted ones in millis, measured after the first second
+     */
+    private static long p99Millis(final Consumer<Runnable> write) throws Exception {
+        final int clients = 64;
+        final Semaphore connections = new Semaphore(2, true);
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        final long measureFrom = end - TimeUnit.SECONDS.toNanos(2);
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                running.add(executor.submit(() -> {
+                    start.await();
+                    while (System.nanoTime() < end) {
+                        final long begin = System.nanoTime();
+                        try {
+                            write.accept(() -> {
+                                connections.acquireUninterruptibly();
+                                try {
+                                    Thread.sleep(10);
+                                } catch (InterruptedException ex) {
+                                    Thread.currentThread().interrupt();
+                                } finally {
+                                    connections.release();
+                                }
+                            });
+                            if (begin > measureFrom) {
+                                latencies.add(System.nanoTime() - begin);
+                            }
+                        } catch (RejectedExecutionException ex) {
+                            // a client honouring Retry-After, shortened
+                            Thread.sleep(5);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> client : running) {
+                client.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final List<Long> sorted = new ArrayList<>(latencies);
+        assertFalse(sorted.isEmpty(), "Writes should be served under overload");
+        Collections.sort(sorted);
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.99)));
+    }
+
+    /**
+     * a write taking given milliseconds on the test clock
+     */
+    private String write(final long millis) {
+        this.nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        return "written";
+    }
+}
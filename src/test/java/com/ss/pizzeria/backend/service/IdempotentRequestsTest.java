@@ -0,0 +1,219 @@
+package com.ss.pizzeria.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.pizzeria.backend.data.dao.IdempotencyKeyRepository;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link IdempotentRequests} against an embedded database.
+ * Responses are stored by committed transactions, so the tests do not run in a rolled back transaction.
+ *
+ * @author Sneha
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotentRequestsTest {
+
+    private static final String CLIENT = "token-of-client-a";
+
+    private static final OrderCreateDto BODY =
+            new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 4, 1L);
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Autowired
+    private IdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        this.keyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void execute_replaysStoredResponse() {
+        final IdempotentRequests requests = idempotentRequests(Duration.ofHours(1));
+
+        final IdempotentResponse first = requests.execute(CLIENT, "key-1", BODY, createOrder(7L));
+        final IdempotentResponse repeated = requests.execute(CLIENT, "key-1", BODY, createOrder(8L));
+
+        assertFalse(first.isReplayed(), "First request should not be a replay");
+        assertTrue(repeated.isReplayed(), "Repeated request should be a replay");
+        assertEquals(first.getOrder(), repeated.getOrder(), "Repeated request should get the original order");
+        assertEquals(201, repeated.getStatus(), "Repeated request should get the original status");
+        assertEquals(1, this.calls.get(), "Request should run once");
+
+        // a restart only keeps the table
+        final IdempotentResponse restarted = idempotentRequests(Duration.ofHours(1))
+                .execute(CLIENT, "key-1", BODY, createOrder(9L));
+        assertTrue(restarted.isReplayed(), "Stored response should survive a restart");
+        assertEquals(first.getOrder(), restarted.getOrder(), "Stored response should hold the original order");
+        assertEquals(1, this.calls.get(), "Request should not run again after a restart");
+    }
+
+    @Test
+    void execute_concurrentDuplicatesRunOnce() throws Exception {
+        final IdempotentRequests requests = idempotentRequests(Duration.ofHours(1));
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final Supplier<IdempotentResponse> slowRequest = () -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return createOrder(this.calls.get() + 10L).get();
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<IdempotentResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return requests.execute(CLIENT, "key-2", BODY, slowRequest);
+                }));
+            }
+            start.countDown();
+            final OrderDto order = responses.get(0).get().getOrder();
+            for (Future<IdempotentResponse> response : responses) {
+                assertEquals(order, response.get().getOrder(), "Every duplicate should get the same order");
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, this.calls.get(), "Concurrent duplicates should run the request once");
+        assertEquals(1, this.keyRepository.count(), "Key should be stored once");
+    }
+
+    @Test
+    void execute_failureNotStored() {
+        final IdempotentRequests requests = idempotentRequests(Duration.ofHours(1));
+
+        assertThrows(NoSuchElementException.class, () -> requests.execute(CLIENT, "key-3", BODY, () -> {
+            throw new NoSuchElementException("unknown customer");
+        }), "Failure should reach the caller");
+        assertEquals(0, this.keyRepository.count(), "Failure should not be stored");
+
+        final IdempotentResponse retried = requests.execute(CLIENT, "key-3", BODY, createOrder(7L));
+        assertFalse(retried.isReplayed(), "Retry after a failure should run the request");
+
+        assertThrows(InvalidRequestException.class, () -> requests.execute(CLIENT, " ", BODY, createOrder(7L)),
+                "Blank key should be rejected");
+    }
+
+    @Test
+    void execute_keyReusedWithAnotherBody() throws Exception {
+        final IdempotentRequests requests = idempotentRequests(Duration.ofHours(1));
+        final OrderCreateDto otherBody = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 4, 1L);
+
+        // while the first request runs
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<IdempotentResponse> first = executor.submit(() -> requests.execute(CLIENT, "key-6", BODY, () -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return createOrder(7L).get();
+            }));
+            running.await();
+            assertThrows(IdempotencyKeyReusedException.class,
+                    () -> requests.execute(CLIENT, "key-6", otherBody, createOrder(8L)),
+                    "Key should not be reused for another body while its request runs");
+            release.countDown();
+            assertFalse(first.get().isReplayed(), "First request should not be affected");
+        } finally {
+            executor.shutdown();
+        }
+
+        // once stored, also after a restart
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> requests.execute(CLIENT, "key-6", otherBody, createOrder(8L)),
+                "Key should not be reused for another body");
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotentRequests(Duration.ofHours(1))
+                        .execute(CLIENT, "key-6", otherBody, createOrder(8L)),
+                "Stored key should not be reused for another body");
+        assertTrue(requests.execute(CLIENT, "key-6", BODY, createOrder(8L)).isReplayed(),
+                "Same body should still be replayed");
+        assertEquals(1, this.calls.get(), "Request should run once");
+    }
+
+    @Test
+    void execute_keyScopedByClient() {
+        final IdempotentRequests requests = idempotentRequests(Duration.ofHours(1));
+
+        final IdempotentResponse mine = requests.execute(CLIENT, "key-7", BODY, createOrder(7L));
+        final IdempotentResponse theirs = requests.execute("token-of-client-b", "key-7", BODY, createOrder(8L));
+
+        assertFalse(theirs.isReplayed(), "Same key of another client should run its request");
+        assertNotEquals(mine.getOrder(), theirs.getOrder(), "Clients should not see each other's responses");
+        assertEquals(2, this.keyRepository.count(), "Key should be stored per client");
+    }
+
+    @Test
+    void execute_expiredKeyRunsAgain() throws Exception {
+        final IdempotentRequests requests = idempotentRequests(Duration.ofMillis(50));
+        requests.execute(CLIENT, "key-4", BODY, createOrder(7L));
+        requests.execute(CLIENT, "key-5", BODY, createOrder(7L));
+        Thread.sleep(100);
+
+        assertFalse(requests.execute(CLIENT, "key-4", BODY, createOrder(8L)).isReplayed(), "Expired key should run again");
+        assertEquals(1, requests.purgeExpired(), "Purge should delete the other expired key");
+        assertEquals(1, this.keyRepository.count(), "Only the renewed key should be left");
+    }
+
+    /**
+     * builds the instance under test, with an empty memory
+     */
+    private IdempotentRequests idempotentRequests(final Duration ttl) {
+        return new IdempotentRequests(this.keyRepository, this.transactionManager, this.objectMapper, 100, ttl);
+    }
+
+    /**
+     * request creating an order with given id, counting its calls
+     */
+    private Supplier<IdempotentResponse> createOrder(final long orderId) {
+        return () -> {
+            this.calls.incrementAndGet();
+            final OrderDto order = new OrderDto(orderId, 1_600_000_000_000L);
+            order.setCrust(Pizza.Crust.THIN);
+            order.setFlavour(Pizza.Flavour.HAWAII);
+            order.setSize(Pizza.Size.M);
+            order.setTableNo(4);
+            order.setCustomerId(1L);
+            return new IdempotentResponse(201, order, false);
+        };
+    }
+}
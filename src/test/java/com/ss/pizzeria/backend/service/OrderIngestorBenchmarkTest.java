@@ -0,0 +1,146 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.data.dao.OrderRepository;
+import com.ss.pizzeria.backend.data.dao.PersonRepository;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import com.ss.pizzeria.backend.service.mapper.PersonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the throughput of orders created by concurrent clients, stored one transaction each by
+ * {@link PizzeriaService#createOrder}, against accepted by {@link OrderIngestor} and stored in batches,
+ * counting until the last order has been written. The first round of each only warms up.
+ * The batching properties repeat those of the main application.properties, which the test resources hide.
+ * Run with `mvn test -Pbenchmark -Dtest=OrderIngestorBenchmarkTest`.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"})
+@Import({PizzeriaService.class, OrderMapper.class, PersonMapper.class,
+        CustomerOrdersCache.class, OrderVersions.class, OrderJsonCache.class, JwtTokens.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestorBenchmarkTest {
+
+    private static final int CLIENTS = 8;
+
+    private static final int ORDERS_PER_CLIENT = 500;
+
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private PizzeriaService pizzeriaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private CustomerOrdersCache customerOrdersCache;
+
+    @Autowired
+    private OrderVersions orderVersions;
+
+    @AfterEach
+    void tearDown() {
+        this.orderRepository.deleteAllInBatch();
+        this.personRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void async_fasterThanSync() throws Exception {
+        // dataset
+        final List<Person> customers = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            customers.add(this.personRepository.saveAndFlush(new Person("Client " + i)));
+        }
+
+        double sync = 0;
+        double async = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            sync = ordersPerSecond(customers, this.pizzeriaService::createOrder, () -> { });
+
+            final OrderIngestor ingestor = new OrderIngestor(this.entityManagerFactory, this.transactionManager,
+                    this.personRepository, this.orderMapper, this.customerOrdersCache, this.orderVersions,
+                    CLIENTS * ORDERS_PER_CLIENT, 200, Duration.ofMillis(20), 100);
+            ingestor.start();
+            async = ordersPerSecond(customers, ingestor::accept, ingestor::stop);
+            assertEquals(0, ingestor.failed() + ingestor.dropped(), "Every accepted order should be stored");
+        }
+        log.info("Orders stored per second by {} clients, sync: {}, async: {}", CLIENTS, (long) sync, (long) async);
+        assertEquals(2L * ROUNDS * CLIENTS * ORDERS_PER_CLIENT, this.orderRepository.count(),
+                "Every order should be stored");
+        assertTrue(async > sync, "Storing orders in batches should be faster than one by one");
+    }
+
+    /**
+     * places the orders of every client with given call, and returns how many were stored per second,
+     * once the finish has returned
+     */
+    private double ordersPerSecond(final List<Person> customers, final Consumer<OrderCreateDto> place,
+                                   final Runnable finish) throws Exception {
+        final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            final long start = System.nanoTime();
+            final List<Future<?>> placed = new ArrayList<>();
+            for (Person customer : customers) {
+                final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII,
+                        Pizza.Size.M, 7, customer.getId());
+                placed.add(clients.submit(() -> {
+                    for (int i = 0; i < ORDERS_PER_CLIENT; i++) {
+                        place.accept(request);
+                    }
+                }));
+            }
+            for (Future<?> client : placed) {
+                client.get();
+            }
+            finish.run();
+            return CLIENTS * ORDERS_PER_CLIENT * 1e9 / (System.nanoTime() - start);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.data.dao.OrderRepository;
+import com.ss.pizzeria.backend.data.dao.PersonRepository;
+import com.ss.pizzeria.backend.data.dao.StatementCapture;
+import com.ss.pizzeria.backend.data.model.FailedOrder;
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the write-behind ingestion of {@link OrderIngestor} against an embedded database.
+ * The writer commits on its own thread, so the tests do not run in a rolled back transaction.
+ *
+ * @author Sneha
+ */
+@DataJpaTest(properties = {StatementCapture.PROPERTY,
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestorTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final OrderVersions orderVersions = new OrderVersions();
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("delete from failed_orders");
+        this.orderRepository.deleteAllInBatch();
+        this.personRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void accept_writtenInBatchesWithAcceptedIds() {
+        // dataset
+        final Person person = this.personRepository.saveAndFlush(new Person("Rush"));
+        final OrderIngestor ingestor = ingestor(1000, 50);
+        final String version = this.orderVersions.customerTag(person.getId());
+
+        // queue everything before the writer starts, so the batches are full
+        final List<Long> acceptedIds = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            final OrderDto accepted = ingestor.accept(request(person.getId()));
+            assertNotNull(accepted.getOrderId(), "Accepted order should have its id");
+            acceptedIds.add(accepted.getOrderId());
+        }
+        assertEquals(120, ingestor.pending(), "Orders should wait for the writer");
+        assertEquals(0, this.orderRepository.count(), "Nothing should be stored before the writer runs");
+
+        StatementCapture.clear();
+        ingestor.start();
+        ingestor.stop();
+
+        assertEquals(0, ingestor.pending(), "Stop should drain the queue");
+        assertEquals(acceptedIds, this.orderRepository.findAll().stream().map(Order::getId).sorted()
+                .collect(Collectors.toList()), "Orders should be stored with the accepted ids");
+        assertEquals(3, StatementCapture.statements().stream()
+                        .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("insert into orders")).count(),
+                "120 orders should take three jdbc batches");
+        assertNotEquals(version, this.orderVersions.customerTag(person.getId()),
+                "Writes should change the version of the customer");
+    }
+
+    @Test
+    void accept_rejectedWhenFullOrStopped() {
+        // dataset
+        final Person person = this.personRepository.saveAndFlush(new Person("Queue"));
+        final OrderIngestor ingestor = ingestor(2, 50);
+
+        assertThrows(NoSuchElementException.class, () -> ingestor.accept(request(Long.MAX_VALUE)),
+                "Unknown customer should not be accepted");
+        ingestor.accept(request(person.getId()));
+        ingestor.accept(request(person.getId()));
+        assertThrows(RejectedExecutionException.class, () -> ingestor.accept(request(person.getId())),
+                "Full queue should reject the order");
+
+        ingestor.start();
+        ingestor.stop();
+        assertEquals(2, this.orderRepository.count(), "Accepted orders should be stored on stop");
+        assertThrows(RejectedExecutionException.class, () -> ingestor.accept(request(person.getId())),
+                "Stopped ingestor should reject the order");
+    }
+
+    @Test
+    void accept_failingOrderKeptAsFailed() {
+        // dataset
+        final Person person = this.personRepository.saveAndFlush(new Person("Stays"));
+        final Person leaving = this.personRepository.saveAndFlush(new Person("Leaves"));
+        final OrderIngestor ingestor = ingestor(10, 50);
+
+        ingestor.accept(request(person.getId()));
+        final OrderDto failing = ingestor.accept(request(leaving.getId()));
+        ingestor.accept(request(person.getId()));
+        // the foreign key fails the order of a customer gone after its order was accepted
+        this.personRepository.deleteById(leaving.getId());
+
+        ingestor.start();
+        ingestor.stop();
+
+        assertEquals(2, this.orderRepository.count(), "Other orders of the batch should be stored");
+        assertEquals(1, ingestor.failed(), "Failing order should be counted");
+        assertEquals(0, ingestor.dropped(), "Failing order should not be lost");
+        final EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        try {
+            final FailedOrder kept = entityManager.find(FailedOrder.class, failing.getOrderId());
+            assertNotNull(kept, "Failing order should be kept with its accepted id");
+            assertEquals(leaving.getId(), kept.getCustomerId(), "Failing order should keep its customer");
+            assertEquals(failing.getTimestamp().longValue(), kept.getTimestamp(), "Failing order should keep its timestamp");
+            assertNotNull(kept.getReason(), "Failing order should tell why it failed");
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * builds an ingestor which is not started yet
+     */
+    private OrderIngestor ingestor(final int queueCapacity, final int batchSize) {
+        return new OrderIngestor(this.entityManagerFactory, this.transactionManager, this.personRepository,
+                new OrderMapper(), new CustomerOrdersCache(100, Duration.ofMinutes(1)), this.orderVersions,
+                queueCapacity, batchSize, Duration.ofMillis(20), 100);
+    }
+
+    /**
+     * builds a create request for given customer
+     */
+    private OrderCreateDto request(final Long customerId) {
+        return new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 7, customerId);
+    }
+}
@@ -0,0 +1,266 @@
+package com.ss.pizzeria.backend.service;
+
+import com.ss.pizzeria.backend.Constants;
+import com.ss.pizzeria.backend.data.dao.OrderRepository;
+import com.ss.pizzeria.backend.data.dao.StatementCapture;
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.OrderUpdateDto;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import com.ss.pizzeria.backend.service.mapper.PersonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the round trips of the {@link PizzeriaService} writes against an embedded database.
+ * The batching properties repeat those of the main application.properties, which the test resources hide.
+ *
+ * @author Sneha
+ */
+@DataJpaTest(properties = {StatementCapture.PROPERTY,
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "pizzeria.orders.delete.chunk-size=2"})
+@Import({PizzeriaService.class, OrderMapper.class, PersonMapper.class,
+        CustomerOrdersCache.class, OrderVersions.class, OrderJsonCache.class, JwtTokens.class})
+class PizzeriaServiceStatementTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PizzeriaService pizzeriaService;
+
+    @Test
+    void createOrders_oneCustomerQueryAndBatchedInserts() {
+        // dataset
+        final List<Person> people = List.of(
+                this.entityManager.persist(new Person("Table1")),
+                this.entityManager.persist(new Person("Table2")));
+        this.entityManager.flush();
+        this.entityManager.clear();
+        // input
+        final List<OrderCreateDto> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 7,
+                    people.get(i % people.size()).getId()));
+        }
+
+        StatementCapture.clear();
+        final var result = this.pizzeriaService.createOrders(requests, false);
+
+        assertEquals(requests.size(), result.getCreated(), "Every order should be created");
+        assertEquals(1, count("select"), "Customers should be resolved with a single query");
+        assertEquals(1, count("insert into orders"), "Orders should be inserted with one batched statement");
+        assertEquals(requests.size(), this.orderRepository.count(), "Every order should be stored");
+    }
+
+    @Test
+    void createOrder_statementsDoNotGrowWithHistory() {
+        // dataset
+        final Person newcomer = this.entityManager.persist(new Person("Newcomer"));
+        final Person regular = this.entityManager.persist(new Person("Regular"));
+        for (int i = 0; i < 200; i++) {
+            final Order o = new Order();
+            o.setCrust(Pizza.Crust.THIN);
+            o.setFlavour(Pizza.Flavour.REGINA);
+            o.setSize(Pizza.Size.L);
+            o.setTableNo(2);
+            o.setCustomer(regular);
+            this.entityManager.persist(o);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        final List<String> newcomerStatements = statementsOfCreateOrder(newcomer);
+        final List<String> regularStatements = statementsOfCreateOrder(regular);
+
+        assertEquals(newcomerStatements, regularStatements,
+                "Creating an order should run the same statements whatever the customer's history");
+        assertEquals(1, regularStatements.size(), "Creating an order should only insert it: " + regularStatements);
+    }
+
+    @Test
+    void createOrder_unknownCustomerNotFound() {
+        // input
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 7,
+                Long.MAX_VALUE);
+
+        final NoSuchElementException ex = assertThrows(NoSuchElementException.class,
+                () -> this.pizzeriaService.createOrder(request), "Unknown customer should not be found");
+        assertEquals(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + Long.MAX_VALUE, ex.getMessage(),
+                "Message should name the unknown customer");
+    }
+
+    @Test
+    void removeOrder_singleStatement() {
+        // dataset
+        final Person person = this.entityManager.persist(new Person("Leaving"));
+        final Order order = new Order();
+        order.setCrust(Pizza.Crust.THIN);
+        order.setFlavour(Pizza.Flavour.REGINA);
+        order.setSize(Pizza.Size.L);
+        order.setTableNo(2);
+        order.setCustomer(person);
+        this.entityManager.persist(order);
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        StatementCapture.clear();
+        this.pizzeriaService.removeOrder(order.getId().toString());
+
+        assertEquals(1, StatementCapture.statements().size(),
+                "Removing an order should delete it and return its customer in one statement: "
+                        + StatementCapture.statements());
+        assertTrue(StatementCapture.statements().get(0).contains("delete from orders"), "Statement should delete");
+        assertTrue(this.orderRepository.findById(order.getId()).isEmpty(), "Order should be deleted");
+        assertThrows(NoSuchElementException.class, () -> this.pizzeriaService.removeOrder(order.getId().toString()),
+                "Deleted order should not be found again");
+    }
+
+    @Test
+    void updateOrder_singleConditionalStatement() {
+        // dataset
+        final Person person = this.entityManager.persist(new Person("Kitchen"));
+        persistOrder(person, 1L);
+        this.entityManager.flush();
+        this.entityManager.clear();
+        final OrderDto stored = this.pizzeriaService.readAllOrdersForPersonSortedByTime(person.getId().toString()).get(0);
+        final String id = stored.getOrderId().toString();
+
+        StatementCapture.clear();
+        final OrderDto patched = this.pizzeriaService.updateOrder(id,
+                new OrderUpdateDto(null, null, Pizza.Size.M, null, stored.getVersion()), false);
+
+        assertEquals(1, count("update orders"), "Patching should update the order in place");
+        assertEquals(1, count("select"), "Only the updated order should be read back: " + StatementCapture.statements());
+        assertEquals(Pizza.Size.M, patched.getSize(), "Given field should change");
+        assertEquals(Pizza.Flavour.REGINA, patched.getFlavour(), "Other fields should keep their value");
+        assertEquals(stored.getVersion() + 1, patched.getVersion(), "Version should move on");
+
+        // an update based on the old version conflicts, and changes nothing
+        final OrderUpdateDto stale = new OrderUpdateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.L, 9,
+                stored.getVersion());
+        assertThrows(OptimisticLockingFailureException.class, () -> this.pizzeriaService.updateOrder(id, stale, true),
+                "Stale version should conflict");
+        stale.setVersion(patched.getVersion());
+        final OrderDto replaced = this.pizzeriaService.updateOrder(id, stale, true);
+        assertEquals(Pizza.Flavour.HAWAII, replaced.getFlavour(), "Replacement should change every field");
+        assertEquals(9, replaced.getTableNo(), "Replacement should change every field");
+        assertThrows(NoSuchElementException.class, () -> this.pizzeriaService.updateOrder(String.valueOf(Long.MAX_VALUE),
+                stale, true), "Unknown order should not be found");
+    }
+
+    @Test
+    void updateOrder_keepsPositionInPages() {
+        // dataset
+        final Person person = this.entityManager.persist(new Person("Early"));
+        for (long timestamp = 1; timestamp <= 3; timestamp++) {
+            persistOrder(person, timestamp);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+        final List<OrderDto> before = this.pizzeriaService.readOrdersPageSortedByTime(10, null).getOrders();
+        final OrderDto first = before.get(0);
+
+        this.pizzeriaService.updateOrder(first.getOrderId().toString(),
+                new OrderUpdateDto(null, null, Pizza.Size.M, null, first.getVersion()), false);
+
+        final List<OrderDto> after = this.pizzeriaService.readOrdersPageSortedByTime(10, null).getOrders();
+        assertEquals(before.stream().map(OrderDto::getOrderId).collect(Collectors.toList()),
+                after.stream().map(OrderDto::getOrderId).collect(Collectors.toList()),
+                "Updated order should keep its place in the pages");
+        assertEquals(first.getTimestamp(), after.get(0).getTimestamp(), "Update should keep the time of the order");
+        assertEquals(Pizza.Size.M, after.get(0).getSize(), "Update should be read back");
+    }
+
+    @Test
+    void removeOrders_chunkedByCustomerAndTime() {
+        // dataset
+        final Person person = this.entityManager.persist(new Person("Leaving"));
+        final Person other = this.entityManager.persist(new Person("Staying"));
+        for (long timestamp = 1; timestamp <= 6; timestamp++) {
+            persistOrder(person, timestamp);
+            persistOrder(other, timestamp);
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        StatementCapture.clear();
+        // timestamps 2 to 5 of one customer, in chunks of two
+        final long removed = this.pizzeriaService.removeOrders(person.getId().toString(), 2L, 6L);
+
+        assertEquals(4, removed, "Orders of the customer within the range should be removed");
+        assertEquals(2, count("delete"), "Each chunk should be deleted with one statement");
+        assertEquals(3, count("select"), "A full last chunk takes one more query to find the range exhausted");
+        assertEquals(8, this.orderRepository.count(), "Other orders should stay");
+
+        // purge by time only
+        final OrderPurgeJob purgeJob = new OrderPurgeJob(this.pizzeriaService, Duration.ZERO);
+        assertEquals(8, purgeJob.purge(), "Purge should remove every order placed before now");
+        assertEquals(0, this.orderRepository.count(), "No order should be left");
+    }
+
+    /**
+     * persists an order for given person at given time
+     */
+    private void persistOrder(final Person person, final long timestamp) {
+        final Order order = new Order();
+        order.setCrust(Pizza.Crust.THIN);
+        order.setFlavour(Pizza.Flavour.REGINA);
+        order.setSize(Pizza.Size.L);
+        order.setTableNo(2);
+        order.setCustomer(person);
+        order.setTimestamp(timestamp);
+        this.entityManager.persist(order);
+    }
+
+    /**
+     * creates an order for given person, and returns the statements it took apart from sequence calls
+     */
+    private List<String> statementsOfCreateOrder(final Person person) {
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 7,
+                person.getId());
+        StatementCapture.clear();
+        this.pizzeriaService.createOrder(request);
+        final List<String> statements = new ArrayList<>();
+        StatementCapture.statements().stream()
+                .filter(sql -> !sql.contains("next value for"))
+                .forEach(statements::add);
+        this.entityManager.clear();
+        return statements;
+    }
+
+    /**
+     * counts captured statements starting with the given text, ignoring sequence calls
+     */
+    private long count(final String prefix) {
+        return StatementCapture.statements().stream()
+                .map(sql -> sql.trim().toLowerCase(Locale.ROOT))
+                .filter(sql -> sql.startsWith(prefix) && !sql.contains("next value for"))
+                .count();
+    }
+}
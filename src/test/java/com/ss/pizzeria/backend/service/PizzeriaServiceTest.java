@@ -4,25 +4,40 @@ import com.ss.pizzeria.backend.Constants;
 import com.ss.pizzeria.backend.data.dao.OrderRepository;
 import com.ss.pizzeria.backend.data.dao.PersonRepository;
 import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.OrderView;
 import com.ss.pizzeria.backend.data.model.Person;
 import com.ss.pizzeria.backend.data.model.Pizza;
 import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
 import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.OrderUpdateDto;
 import com.ss.pizzeria.backend.rest.dto.UserAuthDto;
+import com.ss.pizzeria.backend.service.auth.JwtTokens;
+import com.ss.pizzeria.backend.service.cache.CustomerOrdersCache;
+import com.ss.pizzeria.backend.service.cache.OrderJsonCache;
+import com.ss.pizzeria.backend.service.cache.OrderVersions;
+import com.ss.pizzeria.backend.service.mapper.OrderMapper;
+import com.ss.pizzeria.backend.service.mapper.PersonMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mockito;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -39,15 +54,23 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 class PizzeriaServiceTest {
 
-    @InjectMocks
     private PizzeriaService pizzeriaService;
 
     @MockBean
     private PersonRepository personRepository;
     @MockBean
     private OrderRepository orderRepository;
-    @MockBean
-    private ModelMapper mapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JwtTokens jwtTokens;
+
+    private final OrderMapper orderMapper = new OrderMapper();
+    private final PersonMapper personMapper = new PersonMapper(orderMapper);
+    private CustomerOrdersCache customerOrdersCache;
+    private OrderVersions orderVersions;
 
     @BeforeEach
     void setUp() {
@@ -64,7 +87,7 @@ class PizzeriaServiceTest {
         assertEquals(StringUtils.EMPTY, resultTwo.getAccessToken(), "The access token should be empty");
 
         final var resultThree = this.pizzeriaService.fetchTokenForUser(new UserAuthDto("test", "test"));
-        assertEquals(Constants.AUTH_TOKEN, resultThree.getAccessToken(), "The access token should match with the right one");
+        assertTrue(this.jwtTokens.verify(resultThree.getAccessToken()), "The access token should be signed with the secret");
     }
 
     @Test
@@ -76,13 +99,7 @@ class PizzeriaServiceTest {
         final List<OrderDto> mappedList = buildDtoData(list);
         // input not needed
         // mock
-        Mockito.when(this.orderRepository.findAll(Sort.by("timestamp"))).thenReturn(list);
-        list.forEach(o ->
-                Mockito.when(this.mapper.map(o, OrderDto.class))
-                        .thenReturn(mappedList.get(list.indexOf(o)))
-        );
-
-        //log.info("\n method[{}]", this.orderRepository.findAll(Sort.by("timestamp")));
+        Mockito.when(this.orderRepository.findAllSortedByTime()).thenReturn(buildViews(list));
 
         // test
         final var result = this.pizzeriaService.readAllOrdersSortedByTime();
@@ -97,10 +114,53 @@ class PizzeriaServiceTest {
                         "The resulting Orders should be in ascending order of timestamp");
         }
 
+        assertEquals(mappedList, result, "Every field of the orders should be mapped");
+
         Mockito.verify(this.orderRepository,
                         Mockito.times(1)
                                 .description("Method should be called exact one time."))
-                .findAll(Mockito.any(Sort.class));
+                .findAllSortedByTime();
+        Mockito.verify(this.orderRepository, Mockito.never()).findAll(Mockito.any(Sort.class));
+    }
+
+    @Test
+    void testReadOrdersPageSortedByTime() {
+        // dataset
+        final Person p = buildPerson(8, "TestUser");
+        final List<Order> orders = buildOrdersForPerson(p);
+        final List<OrderView> list = buildViews(orders);
+        final List<OrderDto> mappedList = buildDtoData(orders);
+        // mock
+        Mockito.when(this.orderRepository.findFirstPageSortedByTime(PageRequest.of(0, 3)))
+                .thenReturn(list);
+
+        // first page, one more row exists than requested
+        final var first = this.pizzeriaService.readOrdersPageSortedByTime(2, null);
+        assertEquals(mappedList.subList(0, 2), first.getOrders(), "Page should hold the first orders up to the limit.");
+        assertEquals(OrderCursor.of(list.get(1)).encode(), first.getNextCursor(),
+                "Cursor should point at the last order of the page");
+
+        // following page, no more rows
+        final OrderCursor cursor = OrderCursor.decode(first.getNextCursor());
+        Mockito.when(this.orderRepository.findPageSortedByTimeAfter(
+                        cursor.getTimestamp(), cursor.getId(), PageRequest.of(0, 3)))
+                .thenReturn(list.subList(2, 3));
+        final var second = this.pizzeriaService.readOrdersPageSortedByTime(2, first.getNextCursor());
+        assertEquals(1, second.getOrders().size(), "Last page should hold the remaining order.");
+        assertNull(second.getNextCursor(), "Last page should not have a cursor");
+
+        // invalid input
+        assertThrows(InvalidRequestException.class,
+                () -> this.pizzeriaService.readOrdersPageSortedByTime(0, null),
+                "Should throw exception for a limit below 1");
+        assertThrows(InvalidRequestException.class,
+                () -> this.pizzeriaService.readOrdersPageSortedByTime(Constants.Paging.MAX_LIMIT + 1, null),
+                "Should throw exception for a limit above the maximum");
+        assertThrows(InvalidRequestException.class,
+                () -> this.pizzeriaService.readOrdersPageSortedByTime(2, "not-a-cursor"),
+                "Should throw exception for a malformed cursor");
+
+        Mockito.verify(this.orderRepository, Mockito.never()).findAll(Mockito.any(Sort.class));
     }
 
     @Test
@@ -109,7 +169,6 @@ class PizzeriaServiceTest {
         final Person p = buildPerson(8, "TestUser");
         final List<Order> list = buildOrdersForPerson(p);
         p.getOrderList().addAll(list);
-        final List<OrderDto> mappedList = buildDtoData(list);
         // input
         OrderCreateDto newOrdercreateDto = new OrderCreateDto(
                 Pizza.Crust.THIN,Pizza.Flavour.HAWAII,
@@ -130,55 +189,250 @@ class PizzeriaServiceTest {
                 newOrder.getCustomer().getId(),
                 newOrder.getTimestamp()
         );
-        Mockito.when(this.mapper.map(newOrdercreateDto, Order.class))
-                        .thenReturn(newOrder);
-        Mockito.when(this.orderRepository.saveAndFlush(newOrder))
-                .thenReturn(newOrder);
-        Mockito.when(this.mapper.map(newOrder, OrderDto.class))
-                .thenReturn(newOrderDto);
-
-        // when person does not exist
-        Mockito.when(this.personRepository.findById(p.getId()))
-                .thenReturn(Optional.empty());
+        Mockito.when(this.personRepository.getById(p.getId()))
+                .thenReturn(p);
+
+        // when person does not exist, the foreign key rejects the order
+        Mockito.when(this.orderRepository.saveAndFlush(Mockito.any(Order.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement", new SQLException(),
+                                "FK_ORDER_PERSON_ID: PUBLIC.ORDERS FOREIGN KEY(PERSON_ID)")));
         assertThrows(NoSuchElementException.class,
                 () -> this.pizzeriaService.createOrder(newOrdercreateDto),
                 "Exception should be thrown when person could not be found");
 
         // when person exists
-        Mockito.when(this.personRepository.findById(p.getId()))
-                .thenReturn(Optional.of(p));
+        Mockito.when(this.orderRepository.saveAndFlush(Mockito.any(Order.class)))
+                .thenAnswer(invocation -> {
+                    final Order saved = invocation.getArgument(0);
+                    saved.setId(newOrder.getId());
+                    return saved;
+                });
         final var result = this.pizzeriaService.createOrder(newOrdercreateDto);
         assertEquals(OrderDto.class, result.getClass(),
                     "result should be of type OrderDto, but instead is of type: "
                             + result.getClass().getSimpleName());
         assertEquals(p.getId(), result.getCustomerId(),
                 "The input customer ID and that of the ordering person in result should be same");
+        newOrderDto.setTimestamp(result.getTimestamp());
+        assertEquals(newOrderDto, result, "Every field of the created order should be mapped");
+        assertEquals(list.size(), p.getOrderList().size(), "The customer's order list should not be touched");
+        Mockito.verify(this.personRepository, Mockito.never()).findById(Mockito.any(Long.class));
     }
 
     @Test
-    void removeOrder() {
+    void testCreateOrders() {
+        // dataset
+        final Person p = buildPerson(8, "TestUser");
+        final Long unknownId = 9L;
+        // input
+        final List<OrderCreateDto> requests = List.of(
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 3, p.getId()),
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.L, 3, unknownId),
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 3, p.getId()));
+        // mock
+        Mockito.when(this.personRepository.findAllByIdCacheFirst(Mockito.anyCollection())).thenReturn(List.of(p));
+        Mockito.when(this.orderRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            final List<Order> saved = invocation.getArgument(0);
+            for (int i = 0; i < saved.size(); i++) {
+                saved.get(i).setId(20L + i);
+            }
+            return saved;
+        });
+
+        // all or nothing
+        final var aborted = this.pizzeriaService.createOrders(requests, true);
+        assertEquals(0, aborted.getCreated(), "Atomic batch should not create any order");
+        aborted.getItems().forEach(item -> assertNull(item.getOrder(), "Atomic batch should not create any order"));
+        assertEquals(Constants.Messages.NO_PERSON_EXISTS_WITH_ID + unknownId, aborted.getItems().get(1).getError(),
+                "Failed order should report its own error");
+        assertEquals(Constants.Messages.BATCH_ABORTED, aborted.getItems().get(0).getError(),
+                "Valid orders should report the aborted batch");
+        Mockito.verify(this.orderRepository, Mockito.never()).saveAll(Mockito.anyList());
+
+        // partial
+        final var result = this.pizzeriaService.createOrders(requests, false);
+        assertEquals(2, result.getCreated(), "Orders of known customers should be created");
+        assertEquals(20L, result.getItems().get(0).getOrder().getOrderId(), "Created orders should keep their position");
+        assertNotNull(result.getItems().get(1).getError(), "Order of unknown customer should report an error");
+        assertEquals(21L, result.getItems().get(2).getOrder().getOrderId(), "Created orders should keep their position");
+        assertEquals(requests.get(2).getFlavour(), result.getItems().get(2).getOrder().getFlavour(),
+                "Every field of the created order should be mapped");
+
+        // one customer lookup per batch
+        Mockito.verify(this.personRepository, Mockito.times(2)).findAllByIdCacheFirst(Mockito.anyCollection());
+        Mockito.verify(this.personRepository, Mockito.never()).findById(Mockito.any(Long.class));
+
+        // invalid input
+        assertThrows(InvalidRequestException.class, () -> this.pizzeriaService.createOrders(List.of(), false),
+                "Should throw exception for an empty batch");
+    }
+
+    @Test
+    void testCreateOrders_incompleteItem() {
+        // dataset
+        final Person p = buildPerson(8, "TestUser");
+        // input: no flavour, which the entity does not accept
+        final OrderCreateDto incomplete = new OrderCreateDto();
+        incomplete.setCrust(Pizza.Crust.THIN);
+        incomplete.setSize(Pizza.Size.M);
+        incomplete.setTableNo(3);
+        incomplete.setCustomerId(p.getId());
+        final List<OrderCreateDto> requests = List.of(
+                new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.HAWAII, Pizza.Size.M, 3, p.getId()),
+                incomplete);
+        // mock
+        Mockito.when(this.personRepository.findAllByIdCacheFirst(Mockito.anyCollection())).thenReturn(List.of(p));
+        Mockito.when(this.orderRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            final List<Order> saved = invocation.getArgument(0);
+            for (int i = 0; i < saved.size(); i++) {
+                saved.get(i).setId(30L + i);
+            }
+            return saved;
+        });
+
+        // all or nothing
+        final var aborted = this.pizzeriaService.createOrders(requests, true);
+        assertEquals(0, aborted.getCreated(), "Atomic batch should not create any order");
+        assertEquals(Constants.Messages.BATCH_ABORTED, aborted.getItems().get(0).getError(),
+                "Valid order should report the aborted batch");
+        assertEquals(Constants.Messages.INCOMPLETE_NEW_ORDER, aborted.getItems().get(1).getError(),
+                "Incomplete order should report its own error");
+        Mockito.verify(this.orderRepository, Mockito.never()).saveAll(Mockito.anyList());
+
+        // partial
+        final var result = this.pizzeriaService.createOrders(requests, false);
+        assertEquals(1, result.getCreated(), "Complete order should be created");
+        assertEquals(30L, result.getItems().get(0).getOrder().getOrderId());
+        assertEquals(Constants.Messages.INCOMPLETE_NEW_ORDER, result.getItems().get(1).getError(),
+                "Incomplete order should report its own error");
+    }
+
+    @Test
+    void updateOrder() {
         // input
         final String id = "6";
+        final OrderUpdateDto patch = new OrderUpdateDto(null, null, Pizza.Size.M, null, 2L);
+        // mock
+        Mockito.when(this.orderRepository.updateOrder(Mockito.eq(6L), Mockito.eq(2L), Mockito.isNull(),
+                        Mockito.isNull(), Mockito.eq(Pizza.Size.M), Mockito.isNull()))
+                .thenReturn(1);
+        Mockito.when(this.orderRepository.findViewById(6L)).thenReturn(Optional.of(new OrderView(6L,
+                Pizza.Crust.THIN, Pizza.Flavour.REGINA, Pizza.Size.M, 4, 3L, 1_600_000_000_000L, 3L)));
+        final String customerVersion = this.pizzeriaService.readOrdersVersionForPerson("3");
+
+        final OrderDto updated = this.pizzeriaService.updateOrder(id, patch, false);
+        assertEquals(Pizza.Size.M, updated.getSize(), "Updated field should be returned");
+        assertEquals(3L, updated.getVersion(), "Next version should be returned");
+        assertNotEquals(customerVersion, this.pizzeriaService.readOrdersVersionForPerson("3"),
+                "Orders of the customer should get a new version");
+        // the order is changed in place, never loaded as an entity
+        Mockito.verify(this.orderRepository, Mockito.never()).findById(Mockito.anyLong());
+        Mockito.verify(this.orderRepository, Mockito.never()).save(Mockito.any(Order.class));
+
+        // a replacement needs every field
+        assertThrows(InvalidRequestException.class, () -> this.pizzeriaService.updateOrder(id, patch, true),
+                "Should reject an incomplete replacement");
+        // an update is always based on a version
+        assertThrows(InvalidRequestException.class, () -> this.pizzeriaService.updateOrder(id,
+                new OrderUpdateDto(null, null, Pizza.Size.M, null, null), false), "Should reject a missing version");
+    }
+
+    @Test
+    void updateOrder_conflictOrNotFound() {
+        // input
+        final OrderUpdateDto patch = new OrderUpdateDto(Pizza.Crust.THIN, null, null, null, 1L);
         // mock
-        final Long idAsLong = Long.parseLong(id, 10);
-        final Person person = buildPerson(4, "Annie");
-        final Order order = buildOrder(idAsLong, Pizza.Size.L,
-                Pizza.Flavour.QUARTTRO_FORMAGGI, 6, person);
-        Mockito.doNothing().when(this.orderRepository).delete(order);
+        Mockito.when(this.orderRepository.updateOrder(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(0);
+        Mockito.when(this.orderRepository.existsById(6L)).thenReturn(true);
+        Mockito.when(this.orderRepository.existsById(7L)).thenReturn(false);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> this.pizzeriaService.updateOrder("6", patch, false),
+                "Should report a stale version as a conflict");
+        assertThrows(NoSuchElementException.class, () -> this.pizzeriaService.updateOrder("7", patch, false),
+                "Should report a missing order as not found");
+        assertThrows(InvalidIdException.class, () -> this.pizzeriaService.updateOrder("abc", patch, false),
+                "Should reject an invalid id");
+    }
+
+    @Test
+    void removeOrder() {
+        // input
+        final String id = "6";
+        final long idAsLong = Long.parseLong(id, 10);
 
         // when order does not exist
-        Mockito.when(this.orderRepository.findById(idAsLong))
-                .thenReturn(Optional.empty());
+        Mockito.when(this.orderRepository.deleteOrderReturningCustomerId(idAsLong)).thenReturn(Optional.empty());
         assertThrows(NoSuchElementException.class,
                 () -> this.pizzeriaService.removeOrder(id),
                 "Should throw appropriate exception when order not found.");
 
         // when order exists
-        Mockito.when(this.orderRepository.findById(idAsLong))
-                        .thenReturn(Optional.of(order));
+        Mockito.when(this.orderRepository.deleteOrderReturningCustomerId(idAsLong)).thenReturn(Optional.of(3L));
         assertDoesNotThrow(
                 () -> this.pizzeriaService.removeOrder(id),
                 "Should not throw any exception when order is found.");
+        Mockito.verify(this.orderRepository, Mockito.never()).findById(Mockito.any(Long.class));
+    }
+
+    @Test
+    void removeOrder_invalidId() {
+        for (String id : List.of("", "abc", "-1", "1.5", "99999999999999999999", "9223372036854775808")) {
+            final InvalidIdException ex = assertThrows(InvalidIdException.class,
+                    () -> this.pizzeriaService.removeOrder(id), "Should reject id '" + id + "'");
+            assertEquals(0, ex.getStackTrace().length, "Invalid ids should not capture a stack trace");
+        }
+        Mockito.verify(this.orderRepository, Mockito.never()).deleteOrderReturningCustomerId(Mockito.anyLong());
+    }
+
+    @Test
+    void removeOrders_chunked() {
+        // mock
+        Mockito.when(this.orderRepository.findIdsByCustomerAndTimeRange(
+                        Mockito.eq(3L), Mockito.eq(100L), Mockito.eq(Long.MAX_VALUE), Mockito.any()))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L, 4L))
+                .thenReturn(List.of(5L));
+        Mockito.when(this.orderRepository.deleteOrdersByIds(Mockito.anyCollection()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+
+        assertEquals(5L, this.pizzeriaService.removeOrders("3", 100L, null), "Every chunk should be counted");
+        // a short chunk ends the delete without another query
+        Mockito.verify(this.orderRepository, Mockito.times(3)).deleteOrdersByIds(Mockito.anyCollection());
+        Mockito.verify(this.orderRepository, Mockito.times(3)).findIdsByCustomerAndTimeRange(
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.anyLong(), Mockito.any());
+        Mockito.verify(this.orderRepository, Mockito.never()).findIdsByTimeRange(
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    void removeOrders_byTime_changesOnlyAffectedCustomers() {
+        // mock
+        Mockito.when(this.orderRepository.findIdsByTimeRange(Mockito.eq(Long.MIN_VALUE), Mockito.eq(100L), Mockito.any()))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of());
+        Mockito.when(this.orderRepository.findCustomerIdsByIds(List.of(1L, 2L))).thenReturn(List.of(3L));
+        Mockito.when(this.orderRepository.deleteOrdersByIds(List.of(1L, 2L))).thenReturn(2);
+
+        final String affected = this.pizzeriaService.readOrdersVersionForPerson("3");
+        final String other = this.pizzeriaService.readOrdersVersionForPerson("4");
+        assertEquals(2L, this.pizzeriaService.removeOrders(null, null, 100L), "Orders in the range should be removed");
+        assertNotEquals(affected, this.pizzeriaService.readOrdersVersionForPerson("3"),
+                "Remove should change the version of the customer of a removed order");
+        assertEquals(other, this.pizzeriaService.readOrdersVersionForPerson("4"),
+                "Remove should not change versions of other customers");
+    }
+
+    @Test
+    void removeOrders_invalidFilter() {
+        assertThrows(InvalidRequestException.class, () -> this.pizzeriaService.removeOrders(null, null, null),
+                "Should not delete every order without a filter");
+        assertThrows(InvalidRequestException.class, () -> this.pizzeriaService.removeOrders(null, 200L, 100L),
+                "Should reject a reversed time range");
+        assertThrows(InvalidIdException.class, () -> this.pizzeriaService.removeOrders("abc", null, null),
+                "Should reject an invalid customer id");
+        Mockito.verify(this.orderRepository, Mockito.never()).deleteOrdersByIds(Mockito.anyCollection());
     }
 
 //    @Disabled("To be added later")
@@ -193,26 +447,26 @@ class PizzeriaServiceTest {
         final List<Order> list = buildOrdersForPerson(p);
         p.getOrderList().addAll(list);
         final List<OrderDto> mappedList = buildDtoData(list);
+        final Person idle = buildPerson(2, "Idle");
         // input
         final String id = "5";
         // mock
-        Mockito.when(this.personRepository.findById(p.getId()))
-                .thenReturn(Optional.of(p));
-        Mockito.when(this.personRepository.findById(Long.parseLong(id,10)))
-                .thenReturn(Optional.empty());
-        Mockito.when(this.orderRepository
-                .findAllByCustomer(p,Sort.by("timestamp")))
-                .thenReturn(list);
-        list.forEach(o ->
-                Mockito.when(this.mapper.map(o, OrderDto.class))
-                        .thenReturn(mappedList.get(list.indexOf(o)))
-        );
+        Mockito.when(this.orderRepository.findCustomerWithOrdersSortedByTime(p.getId()))
+                .thenReturn(buildViews(list));
+        Mockito.when(this.orderRepository.findCustomerWithOrdersSortedByTime(idle.getId()))
+                .thenReturn(List.of(new OrderView(null, null, null, null, 0, idle.getId(), 0L, 0L)));
+        Mockito.when(this.orderRepository.findCustomerWithOrdersSortedByTime(Long.parseLong(id, 10)))
+                .thenReturn(List.of());
 
         // check when person does not exist
         assertThrows(NoSuchElementException.class,
                 () -> this.pizzeriaService.readAllOrdersForPersonSortedByTime(id),
                 "Should throw exception when person not found");
 
+        // check when person exists without orders
+        assertTrue(this.pizzeriaService.readAllOrdersForPersonSortedByTime(idle.getId().toString()).isEmpty(),
+                "Should return an empty list when person has no orders");
+
         // check when person does exist
         final var result = this.pizzeriaService
                 .readAllOrdersForPersonSortedByTime(p.getId().toString());
@@ -226,15 +480,90 @@ class PizzeriaServiceTest {
                 assertTrue(result.get(i - 1).getTimestamp() <= r.getTimestamp(),
                         "The resulting Orders should be in ascending order of timestamp");
         }
+        assertEquals(mappedList, result, "Every field of the orders should be mapped");
 
-        Mockito.verify(this.personRepository,
-                        Mockito.times(2)
-                                .description("Method should be called exactly two times."))
-                .findById(Mockito.any(Long.class));
+        // one query per call, the person is never loaded on its own
         Mockito.verify(this.orderRepository,
-                        Mockito.times(1)
-                                .description("Method should be called exact one time."))
-                .findAllByCustomer(Mockito.any(Person.class), Mockito.any(Sort.class));
+                        Mockito.times(3)
+                                .description("Method should be called exactly once per call."))
+                .findCustomerWithOrdersSortedByTime(Mockito.any(Long.class));
+        Mockito.verifyNoInteractions(this.personRepository);
+    }
+
+    @Test
+    void readAllOrdersForPersonSortedByTime_cachedUntilWrite() {
+        // dataset
+        final Person p = buildPerson(3, "Regular");
+        final List<Order> list = buildOrdersForPerson(p);
+        final Order added = buildOrder(4L, Pizza.Size.L, Pizza.Flavour.REGINA, 2, p);
+        final List<Order> extended = new ArrayList<>(list);
+        extended.add(added);
+        // input
+        final String id = p.getId().toString();
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, added.getFlavour(),
+                added.getSize(), added.getTableNo(), p.getId());
+        // mock
+        Mockito.when(this.orderRepository.findCustomerWithOrdersSortedByTime(p.getId()))
+                .thenReturn(buildViews(list))
+                .thenReturn(buildViews(extended));
+        Mockito.when(this.personRepository.getById(p.getId())).thenReturn(p);
+        Mockito.when(this.orderRepository.saveAndFlush(Mockito.any(Order.class))).thenReturn(added);
+
+        // repeated reads are served from the cache
+        final var first = this.pizzeriaService.readAllOrdersForPersonSortedByTime(id);
+        final var second = this.pizzeriaService.readAllOrdersForPersonSortedByTime(id);
+        assertEquals(first, second, "Cached result should match the loaded one");
+        Mockito.verify(this.orderRepository, Mockito.times(1))
+                .findCustomerWithOrdersSortedByTime(p.getId());
+        assertEquals(1, this.customerOrdersCache.stats().hitCount(), "Second read should be a cache hit");
+
+        // a new order invalidates the customer's list
+        this.pizzeriaService.createOrder(request);
+        final var third = this.pizzeriaService.readAllOrdersForPersonSortedByTime(id);
+        assertEquals(buildDtoData(extended), third, "Read after a write should see the new order");
+        Mockito.verify(this.orderRepository, Mockito.times(2))
+                .findCustomerWithOrdersSortedByTime(p.getId());
+    }
+
+    @Test
+    void readOrdersVersion_changesOnlyWithWrites() {
+        // dataset
+        final Person p = buildPerson(3, "Regular");
+        final Person other = buildPerson(4, "Other");
+        final Order order = buildOrder(6L, Pizza.Size.L, Pizza.Flavour.REGINA, 2, p);
+        // input
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, order.getFlavour(),
+                order.getSize(), order.getTableNo(), p.getId());
+        // mock
+        Mockito.when(this.personRepository.getById(p.getId())).thenReturn(p);
+        Mockito.when(this.orderRepository.saveAndFlush(Mockito.any(Order.class))).thenReturn(order);
+        Mockito.when(this.orderRepository.deleteOrderReturningCustomerId(order.getId()))
+                .thenReturn(Optional.of(p.getId()));
+
+        // reads do not change versions
+        final String global = this.pizzeriaService.readOrdersVersion();
+        final String own = this.pizzeriaService.readOrdersVersionForPerson(p.getId().toString());
+        final String others = this.pizzeriaService.readOrdersVersionForPerson(other.getId().toString());
+        assertEquals(global, this.pizzeriaService.readOrdersVersion(), "Version should be stable without writes");
+        assertNotEquals(own, others, "Customers should have distinct versions");
+
+        // create bumps the global and the customer's version only
+        this.pizzeriaService.createOrder(request);
+        final String createdGlobal = this.pizzeriaService.readOrdersVersion();
+        final String createdOwn = this.pizzeriaService.readOrdersVersionForPerson(p.getId().toString());
+        assertNotEquals(global, createdGlobal, "Create should change the global version");
+        assertNotEquals(own, createdOwn, "Create should change the version of the customer");
+        assertEquals(others, this.pizzeriaService.readOrdersVersionForPerson(other.getId().toString()),
+                "Create should not change versions of other customers");
+
+        // remove bumps them again
+        this.pizzeriaService.removeOrder(order.getId().toString());
+        assertNotEquals(createdGlobal, this.pizzeriaService.readOrdersVersion(),
+                "Remove should change the global version");
+        assertNotEquals(createdOwn, this.pizzeriaService.readOrdersVersionForPerson(p.getId().toString()),
+                "Remove should change the version of the customer");
+        assertEquals(others, this.pizzeriaService.readOrdersVersionForPerson(other.getId().toString()),
+                "Remove should not change versions of other customers");
     }
 
     @AfterEach
@@ -248,15 +577,17 @@ class PizzeriaServiceTest {
     private void checkInitializations() {
 
         // initialization of the mocks is taken care by the annotations
-        /*log.info("\n injected objects: \n {} \n\t{} \n\t{}, \n\t{}",
-                this.pizzeriaService, this.personRepository, this.orderRepository, this.mapper);*/
-        assertNotNull(this.pizzeriaService, "Corresponding class instance should not be null.");
+        /*log.info("\n injected objects: \n {} \n\t{} \n\t{}",
+                this.pizzeriaService, this.personRepository, this.orderRepository);*/
         assertNotNull(this.orderRepository, "Mocked dao instance for Order should not be null.");
         assertNotNull(this.personRepository, "Mocked dao instance for Person should not be null.");
-        assertNotNull(this.mapper, "Mocked mapper instance should not be null.");
 
         // ensure that the service in test is actually injected with the desired objects
-        this.pizzeriaService = new PizzeriaService(this.personRepository, this.orderRepository, this.mapper);
+        this.customerOrdersCache = new CustomerOrdersCache(100, Duration.ofMinutes(1));
+        this.orderVersions = new OrderVersions();
+        this.pizzeriaService = new PizzeriaService(this.personRepository, this.orderRepository,
+                this.orderMapper, this.personMapper, this.customerOrdersCache, this.orderVersions,
+                new OrderJsonCache(DataSize.ofMegabytes(1)), this.jwtTokens, this.transactionManager, 2);
     }
 
     /**
@@ -276,6 +607,16 @@ class PizzeriaServiceTest {
         return dtos;
     }
 
+    /**
+     * generates the projections of the given orders
+     */
+    private List<OrderView> buildViews(List<Order> list) {
+        List<OrderView> views = new ArrayList<>();
+        list.forEach(o -> views.add(new OrderView(o.getId(), o.getCrust(), o.getFlavour(), o.getSize(),
+                o.getTableNo(), o.getCustomer().getId(), o.getTimestamp(), o.getVersion())));
+        return views;
+    }
+
     /**
      * generates a dummy data set
      */
@@ -0,0 +1,122 @@
+package com.ss.pizzeria.backend.service.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.NestedExceptionUtils;
+
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the issuing and verification of {@link JwtTokens}
+ *
+ * @author Sneha
+ */
+class JwtTokensTest {
+
+    private static final String SECRET = "test-secret-of-the-pizzeria-api-0123456789";
+
+    private final MovingClock clock = new MovingClock(Instant.parse("2026-01-01T12:00:00Z"));
+
+    private final JwtTokens jwtTokens = new JwtTokens(SECRET, Duration.ofMinutes(15), 100, this.clock);
+
+    @Test
+    void verify_issuedTokenUntilExpiry() {
+        final String token = this.jwtTokens.issue("test");
+
+        assertTrue(this.jwtTokens.verify(token), "Issued token should be valid");
+        // the second check is answered from the cache
+        assertTrue(this.jwtTokens.verify(token), "Issued token should stay valid");
+
+        this.clock.advance(Duration.ofMinutes(15));
+        assertFalse(this.jwtTokens.verify(token), "Cached token should expire with its exp claim");
+        assertFalse(new JwtTokens(SECRET, Duration.ofMinutes(15), 100, this.clock).verify(token),
+                "Expired token should not be verified again");
+    }
+
+    @Test
+    void verify_rejectsForgedTokens() {
+        final String token = this.jwtTokens.issue("test");
+        final String[] parts = token.split("\\.");
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        // another secret
+        assertFalse(new JwtTokens(SECRET + "!", Duration.ofMinutes(15), 100, this.clock)
+                .verify(token), "Token of another secret should be rejected");
+        // changed claims under the original signature
+        final String claims = encoder.encodeToString(
+                "{\"sub\":\"admin\",\"exp\":9999999999}".getBytes(StandardCharsets.UTF_8));
+        assertFalse(this.jwtTokens.verify(parts[0] + '.' + claims + '.' + parts[2]),
+                "Changed claims should be rejected");
+        // unsigned
+        final String none = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        assertFalse(this.jwtTokens.verify(none + '.' + parts[1] + '.'), "Unsigned token should be rejected");
+        // malformed
+        for (String malformed : new String[]{null, "", "abc", "a.b", "a.b.c.d", parts[0] + '.' + parts[1] + ".%%",
+                "x".repeat(5000)}) {
+            assertFalse(this.jwtTokens.verify(malformed), "Malformed token should be rejected: " + malformed);
+        }
+    }
+
+    @Test
+    void newJwtTokens_rejectsShortSecret() {
+        assertThrows(IllegalArgumentException.class, () -> new JwtTokens("short", Duration.ofMinutes(1), 10),
+                "Secret shorter than the hash should be rejected");
+    }
+
+    @Test
+    void startup_failsWithoutSecret() {
+        // converts the ttl, as in the application
+        final ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory()
+                        .setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withUserConfiguration(JwtTokens.class);
+        runner.run(context -> {
+            assertNotNull(context.getStartupFailure(), "Startup should fail without a secret");
+            assertTrue(NestedExceptionUtils.getMostSpecificCause(context.getStartupFailure()).getMessage()
+                    .contains(JwtTokens.SECRET_PROPERTY), "Failure should name the missing property");
+        });
+        runner.withPropertyValues(JwtTokens.SECRET_PROPERTY + "=" + SECRET)
+                .run(context -> assertNull(context.getStartupFailure(), "Startup should succeed with a secret"));
+    }
+
+    /**
+     * clock which only moves when told to
+     */
+    private static final class MovingClock extends Clock {
+
+        private Instant now;
+
+        private MovingClock(final Instant now) {
+            this.now = now;
+        }
+
+        private void advance(final Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+}
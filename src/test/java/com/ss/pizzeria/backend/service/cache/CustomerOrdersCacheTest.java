@@ -0,0 +1,126 @@
+package com.ss.pizzeria.backend.service.cache;
+
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that {@link CustomerOrdersCache} never keeps a list older than the last invalidation
+ *
+ * @author Sneha
+ */
+class CustomerOrdersCacheTest {
+
+    private static final Long CUSTOMER_ID = 7L;
+
+    @Test
+    void readRacingWrite_neverCachesStaleList() throws Exception {
+        final CustomerOrdersCache cache = new CustomerOrdersCache(100, Duration.ofMinutes(1));
+        // the "database" holds one order before the write and two after it
+        final AtomicReference<List<OrderDto>> table = new AtomicReference<>(orders(1));
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // reader: reads the table before the write commits, and finishes loading after it
+            final Future<List<OrderDto>> read = executor.submit(() -> cache.get(CUSTOMER_ID, id -> {
+                final List<OrderDto> before = table.get();
+                loading.countDown();
+                await(written);
+                return before;
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS), "Reader should start loading");
+
+            // writer: commits, then invalidates while the stale load is still in flight
+            table.set(orders(2));
+            final Thread invalidate = new Thread(() -> cache.invalidate(CUSTOMER_ID));
+            invalidate.start();
+            waitUntilParkedOrDone(invalidate);
+            written.countDown();
+            invalidate.join(5000);
+
+            assertEquals(1, read.get(5, TimeUnit.SECONDS).size(), "Racing reader should see the old list");
+            assertEquals(2, cache.get(CUSTOMER_ID, id -> table.get()).size(),
+                    "Next read should see the written order instead of the stale list");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentReadsAndWrites_endWithCurrentList() throws Exception {
+        final CustomerOrdersCache cache = new CustomerOrdersCache(100, Duration.ofMinutes(1));
+        final AtomicReference<List<OrderDto>> table = new AtomicReference<>(orders(0));
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 1; i <= 200; i++) {
+                final int count = i;
+                tasks.add(executor.submit(() -> cache.get(CUSTOMER_ID, id -> table.get())));
+                tasks.add(executor.submit(() -> {
+                    table.set(orders(count));
+                    cache.invalidate(CUSTOMER_ID);
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(table.get(), cache.get(CUSTOMER_ID, id -> table.get()),
+                    "Cache should hold the current list once all writes are done");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedLoad_isNotCached() {
+        final CustomerOrdersCache cache = new CustomerOrdersCache(100, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(CUSTOMER_ID, id -> {
+            throw new IllegalStateException("unknown customer");
+        }), "Loader exception should be passed on");
+        assertEquals(3, cache.get(CUSTOMER_ID, id -> orders(3)).size(), "Failed load should not be cached");
+        assertEquals(2, cache.stats().missCount(), "Both reads should be counted as misses");
+    }
+
+    /**
+     * waits until given thread either waits for a lock or has finished
+     */
+    private static void waitUntilParkedOrDone(final Thread thread) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() == Thread.State.RUNNABLE || thread.getState() == Thread.State.NEW) {
+            assertTrue(System.nanoTime() < deadline, "Invalidation should block or finish");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * waits for given latch, failing the load when it takes too long
+     */
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "Writer should commit");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * builds a list with given number of orders
+     */
+    private static List<OrderDto> orders(final int count) {
+        final List<OrderDto> list = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            list.add(new OrderDto(i, i));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ss.pizzeria.backend.service.mapper;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JMH comparison of {@link OrderMapper} with the reflective ModelMapper it replaced, on both directions of the
+ * order hot path. Run with `mvn test -Pbenchmark -Dtest=MapperBenchmarkTest`.
+ *
+ * @author Sneha
+ */
+@Slf4j
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class MapperBenchmarkTest {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    private final Order order = buildOrder();
+
+    private final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA,
+            Pizza.Size.L, 12, 5L);
+
+    @Benchmark
+    public OrderDto toDto_modelMapper() {
+        // OrderDto has no default constructor, so ModelMapper can only fill an existing instance
+        final OrderDto dto = new OrderDto(0L, 0L);
+        this.modelMapper.map(this.order, dto);
+        return dto;
+    }
+
+    @Benchmark
+    public OrderDto toDto_orderMapper() {
+        return this.orderMapper.toDto(this.order);
+    }
+
+    @Benchmark
+    public Order toEntity_modelMapper() {
+        return this.modelMapper.map(this.request, Order.class);
+    }
+
+    @Benchmark
+    public Order toEntity_orderMapper() {
+        return this.orderMapper.toEntity(this.request);
+    }
+
+    @Test
+    void orderMapper_fasterThanModelMapper() throws Exception {
+        final Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(MapperBenchmarkTest.class.getName() + "\\.")
+                .build()).run();
+        final Map<String, Double> nanos = results.stream().collect(Collectors.toMap(
+                result -> result.getParams().getBenchmark().replaceFirst(".*\\.", ""),
+                result -> result.getPrimaryResult().getScore()));
+        log.info("Average ns per mapping: {}", nanos);
+        assertTrue(nanos.get("toDto_orderMapper") < nanos.get("toDto_modelMapper"),
+                "OrderMapper should map an order to its DTO faster than ModelMapper");
+        assertTrue(nanos.get("toEntity_orderMapper") < nanos.get("toEntity_modelMapper"),
+                "OrderMapper should map a request to an order faster than ModelMapper");
+    }
+
+    private static Order buildOrder() {
+        final Person person = new Person("Tom");
+        person.setId(3L);
+        final Order order = new Order();
+        order.setId(11L);
+        order.setCrust(Pizza.Crust.THIN);
+        order.setSize(Pizza.Size.M);
+        order.setFlavour(Pizza.Flavour.HAWAII);
+        order.setTableNo(7);
+        order.setCustomer(person);
+        return order;
+    }
+}
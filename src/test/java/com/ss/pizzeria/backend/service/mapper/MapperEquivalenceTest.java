@@ -0,0 +1,128 @@
+package com.ss.pizzeria.backend.service.mapper;
+
+import com.ss.pizzeria.backend.data.model.Order;
+import com.ss.pizzeria.backend.data.model.Person;
+import com.ss.pizzeria.backend.data.model.Pizza;
+import com.ss.pizzeria.backend.rest.dto.OrderCreateDto;
+import com.ss.pizzeria.backend.rest.dto.OrderDto;
+import com.ss.pizzeria.backend.rest.dto.PersonCreateDto;
+import com.ss.pizzeria.backend.rest.dto.PersonDto;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link OrderMapper} and {@link PersonMapper} produce the same fields
+ * as the reflective ModelMapper they replace.
+ *
+ * @author Sneha
+ */
+class MapperEquivalenceTest {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    private final PersonMapper personMapper = new PersonMapper(orderMapper);
+
+    @Test
+    void orderToDto() {
+        for (Pizza.Flavour flavour : Pizza.Flavour.values()) {
+            for (Pizza.Size size : Pizza.Size.values()) {
+                final Order order = buildOrder(11L, size, flavour, 7, buildPerson(3L, "Tom"));
+                // OrderDto has no default constructor, so ModelMapper can only fill an existing instance
+                final OrderDto expected = new OrderDto(0L, 0L);
+                this.modelMapper.map(order, expected);
+
+                final OrderDto actual = this.orderMapper.toDto(order);
+
+                assertEquals(expected, actual, "Order should map like ModelMapper for " + flavour + "/" + size);
+                assertEquals(order.getId(), actual.getOrderId(), "Order ID should be mapped");
+                assertEquals(order.getTimestamp(), actual.getTimestamp(), "Timestamp should be mapped");
+                assertEquals(order.getCrust(), actual.getCrust(), "Crust should be mapped");
+                assertEquals(order.getFlavour(), actual.getFlavour(), "Flavour should be mapped");
+                assertEquals(order.getSize(), actual.getSize(), "Size should be mapped");
+                assertEquals(order.getTableNo(), actual.getTableNo(), "Table number should be mapped");
+                assertEquals(order.getCustomer().getId(), actual.getCustomerId(), "Customer ID should be mapped");
+            }
+        }
+    }
+
+    @Test
+    void createDtoToOrder() {
+        final OrderCreateDto request = new OrderCreateDto(Pizza.Crust.THIN, Pizza.Flavour.REGINA,
+                Pizza.Size.L, 12, 5L);
+        final Order expected = this.modelMapper.map(request, Order.class);
+
+        final Order actual = this.orderMapper.toEntity(request);
+
+        assertNull(actual.getId(), "A new order should not have an ID");
+        assertEquals(expected.getCrust(), actual.getCrust(), "Crust should be mapped");
+        assertEquals(expected.getFlavour(), actual.getFlavour(), "Flavour should be mapped");
+        assertEquals(expected.getSize(), actual.getSize(), "Size should be mapped");
+        assertEquals(expected.getTableNo(), actual.getTableNo(), "Table number should be mapped");
+        // the service always replaces the customer with the registered one
+        assertNull(actual.getCustomer(), "The customer is resolved by the caller");
+    }
+
+    @Test
+    void personToDto() {
+        // ModelMapper cannot create OrderDto elements, so compare it on a person without orders
+        final Person newPerson = buildPerson(4L, "Anna");
+        final PersonDto expected = this.modelMapper.map(newPerson, PersonDto.class);
+        assertEquals(expected, this.personMapper.toDto(newPerson), "Person should map like ModelMapper");
+
+        // orders of a person are mapped with the order mapper
+        final Person person = buildPerson(5L, "Ben");
+        person.getOrderList().add(buildOrder(1L, Pizza.Size.M, Pizza.Flavour.HAWAII, 2, person));
+        person.getOrderList().add(buildOrder(2L, Pizza.Size.L, Pizza.Flavour.REGINA, 2, person));
+        final PersonDto actual = this.personMapper.toDto(person);
+        assertEquals(person.getId(), actual.getPersonId(), "Person ID should be mapped");
+        assertEquals(person.getName(), actual.getName(), "Name should be mapped");
+        assertEquals(List.of(this.orderMapper.toDto(person.getOrderList().get(0)),
+                        this.orderMapper.toDto(person.getOrderList().get(1))),
+                actual.getOrderList(), "Orders should be mapped");
+    }
+
+    @Test
+    void createDtoToPerson() {
+        final PersonCreateDto request = new PersonCreateDto();
+        request.setName("Carl");
+        final Person expected = this.modelMapper.map(request, Person.class);
+
+        final Person actual = this.personMapper.toEntity(request);
+
+        assertNull(actual.getId(), "A new person should not have an ID");
+        assertEquals(expected.getName(), actual.getName(), "Name should be mapped");
+        assertTrue(actual.getOrderList().isEmpty(), "A new person should not have orders");
+    }
+
+    /**
+     * Create a new Person with given name and id.
+     */
+    private Person buildPerson(@NonNull final Long id, @NonNull final String name) {
+        final Person p = new Person(name);
+        p.setId(id);
+        return p;
+    }
+
+    /**
+     * Create a new Order with given values.
+     */
+    private Order buildOrder(@NonNull final Long id, @NonNull final Pizza.Size size,
+                             @NonNull final Pizza.Flavour flavour, final int table,
+                             @NonNull final Person p) {
+        final Order o = new Order();
+        o.setId(id);
+        o.setCrust(Pizza.Crust.THIN);
+        o.setSize(size);
+        o.setFlavour(flavour);
+        o.setTableNo(table);
+        o.setCustomer(p);
+        return o;
+    }
+}